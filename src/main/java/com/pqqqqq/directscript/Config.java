@@ -1,15 +1,35 @@
 package com.pqqqqq.directscript;
 
+import com.google.common.collect.Iterables;
 import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Compiler;
+import com.pqqqqq.directscript.lang.data.Folder;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.Sequencer;
 import com.pqqqqq.directscript.lang.data.env.Variable;
+import com.pqqqqq.directscript.lang.exception.state.CompilationException;
+import com.pqqqqq.directscript.lang.exception.state.ExecutionException;
+import com.pqqqqq.directscript.lang.reader.Reader;
+import com.pqqqqq.directscript.lang.script.Limits;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
 import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.loader.ConfigurationLoader;
+import org.spongepowered.api.scheduler.Task;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Created by Kevin on 2015-06-22.
@@ -18,6 +38,23 @@ public class Config {
     private File file;
     private ConfigurationLoader<CommentedConfigurationNode> cfg;
     private DirectScript plugin = DirectScript.instance();
+    private CommentedConfigurationNode settings = null;
+    private CommentedConfigurationNode root = null;
+    private Journal journal = null;
+    private boolean unsavedWarned = false;
+
+    // Write-behind of public variables
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private Task writer = null;
+    private long saveInterval = 2000L;
+    private int saveDirtyCount = 100;
+    private int compactRecords = 10000;
+
+    private volatile long flushCount = 0L;
+    private volatile long lastFlushNanos = 0L;
+    private volatile long maxFlushNanos = 0L;
+    private volatile long totalFlushNanos = 0L;
 
     Config(File file, ConfigurationLoader<CommentedConfigurationNode> cfg) {
         this.file = file;
@@ -33,41 +70,285 @@ public class Config {
         }
     }
 
-    public void load() {
+    public synchronized void load() {
+        Lang lang = Lang.instance();
         try {
-            Lang lang = Lang.instance();
+            lang.suppressNotifications(true); // Suppress notifications, since this is what's saved
             lang.clear(); // Clear variables
 
-            CommentedConfigurationNode root = cfg.load();
-            CommentedConfigurationNode publicNode = root.getNode("public");
+            this.root = cfg.load();
+            loadSettings(root.getNode("settings"));
 
-            lang.suppressNotifications(true); // Suppress notifications to save temporarily
-            for (CommentedConfigurationNode variableNode : publicNode.getChildrenMap().values()) {
-                Literal literal = Sequencer.instance().parse(variableNode.getNode("value").getString()).resolve(null);
-                Optional<Literal.Types> type = Literal.Types.fromName(variableNode.getNode("type").getString());
+            if (journal != null) {
+                journal.close();
+            }
 
-                lang.addVariable(new Variable(variableNode.getKey().toString(), lang, literal, type));
+            journal = new Journal(file.getParentFile());
+            unsavedWarned = false;
+            try {
+                if (journal.exists()) {
+                    replay(lang);
+                } else if (!root.getNode("public").isVirtual()) { // Move the variables saved before the journal into it
+                    int count = readVariables(root.getNode("public"));
+                    journal.compact(lang);
+                    root.removeChild("public");
+
+                    plugin.getLogger().info(String.format("Moved %d public variable(s) from %s into the journal", count, file.getName()));
+                }
+            } catch (Exception e) {
+                journal = null; // Don't compact what could be read over the files
+                Lang.instance().exceptionHandler().log(new CompilationException(e, "The public variable journal in %s could not be opened", getDirectory().getPath()));
+                Lang.instance().exceptionHandler().flush();
+                plugin.getLogger().error(String.format("The public variable journal in %s could not be opened, see errors.log. Public variable changes will NOT be saved until it's fixed and the config is reloaded", getDirectory().getPath()));
             }
-            lang.suppressNotifications(false); // Unsuppress them
 
             cfg.save(root);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            lang.suppressNotifications(false); // Unsuppress them
+            dirty.clear();
         }
+
+        scheduleWriter();
     }
 
-    public void saveAll() {
+    private void replay(Lang lang) throws IOException {
         try {
-            CommentedConfigurationNode root = cfg.createEmptyNode(ConfigurationOptions.defaults());
-            CommentedConfigurationNode publicNode = root.getNode("public");
+            journal.replay(lang);
+        } catch (Exception e) { // Keep saving, from what could be read, rather than drop every change after this
+            Lang.instance().exceptionHandler().log(new CompilationException(e, "The public variable journal in %s could not be replayed", getDirectory().getPath()));
+            Lang.instance().exceptionHandler().flush();
+
+            List<File> moved = journal.setAside();
+            journal.compact(lang);
+            plugin.getLogger().warn(String.format("The public variable journal could not be replayed, see errors.log. Its files were moved to %s, and a new journal was started from the %d public variable(s) read before the error",
+                    moved.stream().map(File::getName).collect(Collectors.joining(", ")), Iterables.size(lang)));
+        }
+    }
 
-            for (Variable publicVariable : Lang.instance()) {
-                publicVariable.save(publicNode.getNode(publicVariable.getName()));
+    /**
+     * Marks a public {@link Variable} as changed, so the writer journals it with the next flush
+     *
+     * @param name the name of the variable
+     */
+    public void markDirty(String name) {
+        if (dirty.add(name) && dirty.size() >= saveDirtyCount && flushQueued.compareAndSet(false, true)) { // Don't wait for the interval
+            plugin.getGame().getScheduler().createTaskBuilder().async().execute(() -> {
+                flushQueued.set(false);
+                flush();
+            }).name("PublicVariableFlush").submit(plugin);
+        }
+    }
+
+    /**
+     * Appends every dirty public {@link Variable} to the journal, if any have changed since the last flush, and compacts it once it outgrows its snapshot
+     */
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        if (journal == null) {
+            if (!unsavedWarned) { // Once per load, since it's every flush until then
+                unsavedWarned = true;
+                plugin.getLogger().error("Public variables have changed, but aren't being saved since the journal could not be opened. See errors.log");
             }
+            return;
+        }
 
-            cfg.save(root);
+        long start = System.nanoTime();
+        List<String> written = new ArrayList<>();
+        try {
+            for (Iterator<String> iterator = dirty.iterator(); iterator.hasNext(); ) {
+                String name = iterator.next();
+                iterator.remove(); // Remove first, so a change made while writing is flushed next time
+                written.add(name);
+
+                Optional<Variable> variable = Lang.instance().getVariable(name);
+                if (variable.isPresent()) {
+                    journal.append(variable.get());
+                } else {
+                    journal.appendRemove(name);
+                }
+            }
+
+            journal.sync();
+            if (journal.getRecords() >= Math.max(compactRecords, journal.getSnapshotSize())) { // Compaction stays linear in the records written
+                journal.compact(Lang.instance());
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            dirty.addAll(written); // Written again with the next flush, as they may not have reached the file
+
+            Lang.instance().exceptionHandler().log(new ExecutionException(e, "Public variables could not be written to the journal in %s", getDirectory().getPath()));
+            Lang.instance().exceptionHandler().flush();
+        } finally {
+            long nanos = System.nanoTime() - start;
+
+            lastFlushNanos = nanos;
+            maxFlushNanos = Math.max(maxFlushNanos, nanos);
+            totalFlushNanos += nanos;
+            flushCount++;
         }
     }
+
+    /**
+     * Flushes and compacts the journal, and stops the writer
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            writer.cancel();
+            writer = null;
+        }
+
+        flush();
+        try {
+            if (journal != null) {
+                journal.compact(Lang.instance());
+                journal.close();
+            }
+        } catch (Exception e) {
+            Lang.instance().exceptionHandler().log(new ExecutionException(e, "The public variable journal in %s could not be compacted", getDirectory().getPath()));
+            Lang.instance().exceptionHandler().flush();
+        }
+    }
+
+    /**
+     * Gets the directory of the config and the public variable journal
+     *
+     * @return the directory
+     */
+    public File getDirectory() {
+        return file.getParentFile();
+    }
+
+    /**
+     * Imports the public {@link Variable}s from a HOCON file, in the format of <code>public { name { type, value } }</code>
+     *
+     * @param file the file
+     * @return the number of variables imported
+     * @throws IOException if the file cannot be read
+     */
+    public int importVariables(File file) throws IOException {
+        return readVariables(HoconConfigurationLoader.builder().setFile(file).build().load().getNode("public"));
+    }
+
+    /**
+     * Exports the public {@link Variable}s to a HOCON file, in the format of <code>public { name { type, value } }</code>
+     *
+     * @param file the file
+     * @return the number of variables exported
+     * @throws IOException if the file cannot be written
+     */
+    public int exportVariables(File file) throws IOException {
+        HoconConfigurationLoader loader = HoconConfigurationLoader.builder().setFile(file).build();
+        CommentedConfigurationNode exportRoot = loader.createEmptyNode(ConfigurationOptions.defaults());
+        CommentedConfigurationNode publicNode = exportRoot.getNode("public");
+
+        int count = 0;
+        for (Variable publicVariable : Lang.instance()) {
+            publicVariable.save(publicNode.getNode(publicVariable.getName()));
+            count++;
+        }
+
+        loader.save(exportRoot);
+        return count;
+    }
+
+    private int readVariables(CommentedConfigurationNode publicNode) {
+        Lang lang = Lang.instance();
+        int count = 0;
+
+        for (CommentedConfigurationNode variableNode : publicNode.getChildrenMap().values()) {
+            Literal literal = Sequencer.instance().parse(variableNode.getNode("value").getString()).resolve(null);
+            Optional<Literal.Types> type = Literal.Types.fromName(variableNode.getNode("type").getString());
+
+            lang.addVariable(new Variable(variableNode.getKey().toString(), lang, literal, type));
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of public {@link Variable}s changed since the last flush
+     *
+     * @return the dirty count
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Gets the number of flushes written since the plugin started
+     *
+     * @return the flush count
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Gets how long the last flush took, in nanoseconds
+     *
+     * @return the last flush latency
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * Gets how long the longest flush took, in nanoseconds
+     *
+     * @return the max flush latency
+     */
+    public long getMaxFlushNanos() {
+        return maxFlushNanos;
+    }
+
+    /**
+     * Gets how long flushes took on average, in nanoseconds
+     *
+     * @return the average flush latency
+     */
+    public long getAverageFlushNanos() {
+        long flushCount = this.flushCount;
+        return flushCount == 0 ? 0L : totalFlushNanos / flushCount;
+    }
+
+    private void scheduleWriter() {
+        if (writer != null) {
+            writer.cancel();
+        }
+
+        writer = plugin.getGame().getScheduler().createTaskBuilder().async().delay(saveInterval, TimeUnit.MILLISECONDS).interval(saveInterval, TimeUnit.MILLISECONDS)
+                .execute(this::flush).name("PublicVariableWriter").submit(plugin);
+    }
+
+    private void loadSettings(CommentedConfigurationNode settingsNode) {
+        this.settings = settingsNode;
+
+        String parser = getSetting("parser", Sequencer.Mode.PRECEDENCE.name().toLowerCase(Locale.ROOT), "The expression parser: precedence, or legacy for the old trial splitting parser").getString();
+        Sequencer.instance().setMode(Sequencer.Mode.fromName(parser).orElse(Sequencer.Mode.PRECEDENCE));
+        Folder.instance().setEnabled(getSetting("constant-folding", true, "Whether expressions made only of literals are folded into one value when scripts compile").getBoolean(true));
+        Compiler.instance().setEnabled(getSetting("closure-compiling", true, "Whether expressions are compiled into closures specialized for their operators when scripts compile").getBoolean(true));
+        Compiler.instance().setBindThreshold(getSetting("bound-script-threshold", 1000L, "How many times a script runs before the arguments of its lines are bound, or 0 to never bind scripts. Bound scripts are still interpreted").getLong(1000L));
+        Reader.instance().setParallelism(getSetting("reload-parallelism", Runtime.getRuntime().availableProcessors(), "How many script files are parsed at the same time on reload, or 1 to parse them one by one").getInt(Runtime.getRuntime().availableProcessors()));
+        Causes.TIMER.setPhaseSpread(getSetting("timer-phase-spread", false, "Whether timer scripts with the same delay are spread over it, instead of all running in the same tick").getBoolean(false));
+        Limits.global().setStatements(getSetting("max-statements", 0L, "How many statements a script run can execute before it's aborted, or 0 for no limit").getLong(0L));
+        Limits.global().setTime(getSetting("max-execution-time", 0L, "Milliseconds a script run can take before it's aborted, not counting ticks a time sliced run is suspended for, or 0 for no limit").getLong(0L), TimeUnit.MILLISECONDS);
+        Limits.global().setCallDepth(getSetting("max-call-depth", 64, "How deep scripts can call each other before they're aborted, or 0 for no limit").getInt(64));
+        saveInterval = Math.max(50L, getSetting("save-interval", 2000L, "Milliseconds between writes of changed public variables").getLong(2000L));
+        saveDirtyCount = Math.max(1, getSetting("save-dirty-count", 100, "How many public variables can change before they are written without waiting for the interval").getInt(100));
+        compactRecords = Math.max(1, getSetting("journal-compact-records", 10000, "How many records the public variable journal can hold before it's compacted into a snapshot (at least as many as the snapshot has)").getInt(10000));
+    }
+
+    private CommentedConfigurationNode getSetting(String name, Object def, String comment) {
+        CommentedConfigurationNode node = settings.getNode(name);
+        if (node.isVirtual()) {
+            node.setValue(def).setComment(comment); // Write the default so it can be found and changed
+        }
+
+        return node;
+    }
 }
@@ -19,7 +19,6 @@ import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
 import org.spongepowered.api.plugin.Plugin;
 
 import java.io.File;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Kevin on 2015-06-02.
@@ -76,7 +75,7 @@ public class DirectScript {
         eventManager.registerListeners(this, new TriggerEvents());
 
         // Schedule events
-        game.getScheduler().createTaskBuilder().delay(200L, TimeUnit.MILLISECONDS).interval(200L, TimeUnit.MILLISECONDS).execute(new InternalTimer()).name("ScriptTimer").submit(this);
+        game.getScheduler().createTaskBuilder().delayTicks(1L).intervalTicks(1L).execute(new InternalTimer()).name("ScriptTimer").submit(this);
     }
 
     @Listener
@@ -87,6 +86,7 @@ public class DirectScript {
     @Listener
     public void serverStopping(GameStoppingServerEvent event) {
         Causes.SERVER_STOPPING.activate(); // Trigger server stopping cause
+        cfg.close(); // Journal public variables changed since the last flush, and compact them
         Lang.instance().exceptionHandler().close(); // Close exception handler stream
     }
 
@@ -109,7 +109,7 @@ public class DirectScript {
 
         @Override
         public void run() {
-            Causes.TIMER.activate();
+            Causes.TIMER.tick();
         }
     }
 }
@@ -0,0 +1,353 @@
+package com.pqqqqq.directscript;
+
+import com.google.common.io.CountingInputStream;
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Datum;
+import com.pqqqqq.directscript.lang.data.Literal;
+import com.pqqqqq.directscript.lang.data.env.Environment;
+import com.pqqqqq.directscript.lang.data.env.Variable;
+import com.pqqqqq.directscript.lang.exception.state.CompilationException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>An append-only binary journal of public {@link Variable} changes, compacted into a snapshot of every variable.</p>
+ * <p>Both files carry a generation, and the journal is only replayed over the snapshot of the same generation, so a crash mid-compaction never replays stale records.
+ * A journal of another generation, or a record cut off by a crash, is dropped when it's replayed, before anything more is appended.</p>
+ */
+class Journal {
+    private static final int MAGIC = 0x44534A31; // DSJ1
+
+    // Records
+    private static final byte SET = 1;
+    private static final byte REMOVE = 2;
+
+    // Values
+    private static final byte EMPTY = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte NUMBER = 3;
+    private static final byte ARRAY = 4;
+    private static final byte MAP = 5;
+    private static final byte SEQUENCE = 6; // Anything else, stored as its serialization
+
+    private final File snapshotFile;
+    private final File journalFile;
+
+    private DataOutputStream journal = null;
+    private long generation = 0L;
+    private int snapshotSize = 0;
+    private int records = 0;
+
+    Journal(File directory) {
+        this.snapshotFile = new File(directory, "public.snapshot");
+        this.journalFile = new File(directory, "public.journal");
+    }
+
+    /**
+     * Gets whether this journal has been written before
+     *
+     * @return true if the snapshot or journal file exists
+     */
+    boolean exists() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    /**
+     * Gets the number of records appended since the last snapshot
+     *
+     * @return the record count
+     */
+    int getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the number of variables in the last snapshot
+     *
+     * @return the snapshot size
+     */
+    int getSnapshotSize() {
+        return snapshotSize;
+    }
+
+    /**
+     * Replays the snapshot and then the journal's tail into the given {@link Environment}
+     *
+     * @param environment the environment
+     * @throws IOException if the files cannot be read
+     */
+    synchronized void replay(Environment environment) throws IOException {
+        generation = 0L;
+        snapshotSize = 0;
+        records = 0;
+
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                checkState(in.readInt() == MAGIC, "%s is not a public variable snapshot", snapshotFile.getName());
+                generation = in.readLong();
+                snapshotSize = in.readInt();
+
+                for (int i = 0; i < snapshotSize; i++) {
+                    replayRecord(in, environment);
+                }
+            }
+        }
+
+        if (journalFile.exists()) {
+            long complete = 0L; // The end of the last whole record, or 0 if the journal isn't of this generation
+            try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+                 DataInputStream in = new DataInputStream(counter)) {
+                if (in.readInt() == MAGIC && in.readLong() == generation) { // Otherwise the snapshot already has these records
+                    complete = counter.getCount();
+                    while (true) {
+                        replayRecord(in, environment);
+                        complete = counter.getCount();
+                        records++;
+                    }
+                }
+            } catch (EOFException ignored) { // End of the journal, or a record cut off by a crash
+            }
+
+            if (complete == 0L) {
+                journalFile.delete(); // Left by a crash before compaction could delete it. Open writes a new header of this generation
+            } else if (complete < journalFile.length()) {
+                try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                    file.setLength(complete); // Cut off the partial record, so new records follow the last whole one
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a record of the given {@link Variable}'s current value
+     *
+     * @param variable the variable
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void append(Variable<?, ?> variable) throws IOException {
+        writeSet(open(), variable);
+        records++;
+    }
+
+    /**
+     * Appends a record of a removed {@link Variable}
+     *
+     * @param name the name of the variable
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void appendRemove(String name) throws IOException {
+        DataOutputStream out = open();
+        out.writeByte(REMOVE);
+        writeString(out, name);
+        records++;
+    }
+
+    /**
+     * Flushes appended records to the journal file
+     *
+     * @throws IOException if the records cannot be written
+     */
+    synchronized void sync() throws IOException {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Writes every {@link Variable} in the {@link Environment} into a new snapshot, and starts an empty journal after it
+     *
+     * @param environment the environment
+     * @throws IOException if the snapshot cannot be written
+     */
+    synchronized void compact(Environment environment) throws IOException {
+        List<Variable> variables = new ArrayList<>();
+        environment.forEach(variables::add);
+
+        File temporary = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(generation + 1);
+            out.writeInt(variables.size());
+
+            for (Variable variable : variables) {
+                writeSet(out, variable);
+            }
+        }
+
+        Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        close();
+        generation++;
+        snapshotSize = variables.size();
+        records = 0;
+        journalFile.delete(); // Open writes a new header of this generation
+    }
+
+    /**
+     * Moves the snapshot and journal files aside, so a new journal can be started without them
+     *
+     * @return the files they were moved to
+     * @throws IOException if either cannot be moved
+     */
+    synchronized List<File> setAside() throws IOException {
+        close();
+
+        String suffix = ".broken-" + System.currentTimeMillis();
+        List<File> moved = new ArrayList<>();
+        for (File file : new File[]{snapshotFile, journalFile}) {
+            if (file.exists()) {
+                File aside = new File(file.getParentFile(), file.getName() + suffix);
+                Files.move(file.toPath(), aside.toPath());
+                moved.add(aside);
+            }
+        }
+
+        generation = 0L;
+        snapshotSize = 0;
+        records = 0;
+        return moved;
+    }
+
+    /**
+     * Closes the journal file, if it's open
+     *
+     * @throws IOException if the records cannot be written
+     */
+    synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private DataOutputStream open() throws IOException {
+        if (journal == null) {
+            boolean header = !journalFile.exists() || journalFile.length() == 0;
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+
+            if (header) {
+                journal.writeInt(MAGIC);
+                journal.writeLong(generation);
+            }
+        }
+
+        return journal;
+    }
+
+    private void replayRecord(DataInputStream in, Environment environment) throws IOException {
+        byte record = in.readByte();
+        String name = readString(in);
+
+        if (record == REMOVE) {
+            environment.removeVariable(name);
+            return;
+        }
+
+        String type = readString(in);
+        Literal literal = readLiteral(in);
+        try {
+            environment.addVariable(new Variable(name, environment, literal, Literal.Types.fromName(type)));
+        } catch (Throwable e) { // Skip this variable, not the rest
+            Lang.instance().exceptionHandler().log(new CompilationException(e, "Public variable %s could not be loaded", name));
+            Lang.instance().exceptionHandler().flush();
+        }
+    }
+
+    private void writeSet(DataOutputStream out, Variable<?, ?> variable) throws IOException {
+        out.writeByte(SET);
+        writeString(out, variable.getName());
+        writeString(out, variable.getType().isPresent() ? variable.getType().get().getName() : "null");
+        writeDatum(out, variable.getDatum());
+    }
+
+    private void writeDatum(DataOutputStream out, Datum<?> datum) throws IOException {
+        Literal<?> literal = datum instanceof Literal ? (Literal<?>) datum : null;
+
+        if (literal == null || literal.isObjective() || literal.getResolvedFrom().isPresent()) {
+            out.writeByte(SEQUENCE);
+            writeString(out, String.valueOf(datum.serialize()));
+        } else if (literal.isEmpty()) {
+            out.writeByte(EMPTY);
+        } else if (literal.isString()) {
+            out.writeByte(STRING);
+            writeString(out, literal.getString());
+        } else if (literal.isBoolean()) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(literal.getBoolean());
+        } else if (literal.isNumber()) {
+            out.writeByte(NUMBER);
+            out.writeDouble(literal.getNumber());
+        } else if (literal.isArray()) {
+            List<Literal> array = literal.getArray();
+            out.writeByte(ARRAY);
+            out.writeInt(array.size());
+
+            for (Literal element : array) {
+                writeDatum(out, element);
+            }
+        } else if (literal.isMap()) {
+            Map<Literal, Literal> map = literal.getMap();
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+
+            for (Map.Entry<Literal, Literal> entry : map.entrySet()) {
+                writeDatum(out, entry.getKey());
+                writeDatum(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(SEQUENCE);
+            writeString(out, String.valueOf(literal.serialize()));
+        }
+    }
+
+    private Literal readLiteral(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        switch (value) {
+            case EMPTY:
+                return Literal.Literals.empty();
+            case STRING:
+                return Literal.fromObject(readString(in));
+            case BOOLEAN:
+                return Literal.fromObject(in.readBoolean());
+            case NUMBER:
+                return Literal.fromObject(in.readDouble());
+            case ARRAY:
+                List<Literal> array = new ArrayList<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    array.add(readLiteral(in));
+                }
+
+                return Literal.fromObject(array);
+            case MAP:
+                Map<Literal, Literal> map = new HashMap<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    map.put(readLiteral(in), readLiteral(in));
+                }
+
+                return Literal.fromObject(map);
+            case SEQUENCE:
+                return Lang.instance().sequencer().parse(readString(in)).resolve(null);
+            default:
+                throw new IOException("Unknown value type " + value + " in the public variable journal");
+        }
+    }
+
+    private void writeString(DataOutputStream out, String string) throws IOException { // Not writeUTF, which can't write more than 64KB
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
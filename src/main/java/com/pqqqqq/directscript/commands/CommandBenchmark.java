@@ -0,0 +1,269 @@
+package com.pqqqqq.directscript.commands;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Literal;
+import com.pqqqqq.directscript.lang.data.Sequencer;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.reader.Line;
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.statement.Statements;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.command.spec.CommandExecutor;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The command that benchmarks parts of the language against their alternatives
+ */
+public class CommandBenchmark implements CommandExecutor {
+    private static final int DEFAULT_ITERATIONS = 100;
+    private static final int DEFAULT_LOOP_ITERATIONS = 1000000;
+    private DirectScript plugin;
+
+    private CommandBenchmark(DirectScript plugin) {
+        this.plugin = plugin;
+    }
+
+    public static CommandSpec build(DirectScript plugin) {
+        return CommandSpec.builder().executor(new CommandBenchmark(plugin)).description(Text.of(TextColors.AQUA, "Benchmarks parts of the language against their alternatives")).permission("directscript.benchmark")
+                .arguments(GenericArguments.string(Text.of("Type")), GenericArguments.optional(GenericArguments.integer(Text.of("Iterations")))).build();
+    }
+
+    @Override
+    public CommandResult execute(CommandSource commandSource, CommandContext commandContext) throws CommandException {
+        String type = commandContext.<String>getOne("Type").get();
+        Optional<Integer> iterations = commandContext.<Integer>getOne("Iterations");
+
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "parser":
+                benchmarkParser(commandSource, Math.max(1, iterations.orElse(DEFAULT_ITERATIONS)));
+                break;
+            case "statements":
+                benchmarkStatements(commandSource, Math.max(1, iterations.orElse(DEFAULT_ITERATIONS)));
+                break;
+            case "variables":
+                benchmarkVariables(commandSource, Math.max(1, iterations.orElse(DEFAULT_LOOP_ITERATIONS)));
+                break;
+            default:
+                commandSource.sendMessage(Text.of(TextColors.RED, "Unknown benchmark. Valid benchmarks are: parser, statements, variables"));
+                break;
+        }
+
+        return CommandResult.success();
+    }
+
+    private void benchmarkParser(CommandSource commandSource, int iterations) {
+        List<String> lines = getLines();
+        if (lines.isEmpty()) {
+            commandSource.sendMessage(Text.of(TextColors.RED, "There are no script lines loaded to parse."));
+            return;
+        }
+
+        Sequencer sequencer = Lang.instance().sequencer();
+        Sequencer.Mode originalMode = sequencer.getMode();
+        Map<Sequencer.Mode, String[]> descriptions = new EnumMap<>(Sequencer.Mode.class);
+
+        try {
+            for (Sequencer.Mode mode : Sequencer.Mode.values()) {
+                sequencer.setMode(mode);
+
+                String[] described = new String[lines.size()];
+                for (int i = 0; i < described.length; i++) {
+                    described[i] = describe(lines.get(i));
+                }
+                descriptions.put(mode, described);
+
+                long start = System.nanoTime();
+                for (int iteration = 0; iteration < iterations; iteration++) {
+                    for (String line : lines) {
+                        try {
+                            Line.builder().line(line).getContent();
+                        } catch (Throwable ignored) { // Already counted in the description
+                        }
+                    }
+                }
+
+                double seconds = (System.nanoTime() - start) / 1.0E9;
+                commandSource.sendMessage(Text.of(TextColors.GREEN, mode.name().toLowerCase(Locale.ROOT), ": ", TextColors.WHITE, String.format("%.0f lines/s (%d lines x %d)", (lines.size() * iterations) / seconds, lines.size(), iterations)));
+            }
+        } finally {
+            sequencer.setMode(originalMode);
+        }
+
+        int mismatches = 0;
+        String[] expected = descriptions.get(Sequencer.Mode.LEGACY), actual = descriptions.get(Sequencer.Mode.PRECEDENCE);
+        for (int i = 0; i < lines.size(); i++) {
+            if (!expected[i].equals(actual[i])) {
+                if (mismatches++ == 0) {
+                    commandSource.sendMessage(Text.of(TextColors.RED, "First mismatch: ", TextColors.WHITE, lines.get(i)));
+                }
+            }
+        }
+
+        commandSource.sendMessage(Text.of(mismatches == 0 ? TextColors.GREEN : TextColors.RED, mismatches, " line(s) parse differently between the parsers."));
+    }
+
+    private void benchmarkStatements(CommandSource commandSource, int iterations) {
+        List<String> lines = getLines();
+        if (lines.isEmpty()) {
+            commandSource.sendMessage(Text.of(TextColors.RED, "There are no script lines loaded to look up."));
+            return;
+        }
+
+        int mismatches = 0;
+        for (String line : lines) {
+            if (!Statements.getStatementLinear(line).equals(Statements.getStatement(line)) && mismatches++ == 0) {
+                commandSource.sendMessage(Text.of(TextColors.RED, "First mismatch: ", TextColors.WHITE, line));
+            }
+        }
+
+        Map<String, Function<String, Optional<Statement>>> lookups = new LinkedHashMap<>();
+        lookups.put("linear", Statements::getStatementLinear);
+        lookups.put("indexed", Statements::getStatement);
+
+        for (Map.Entry<String, Function<String, Optional<Statement>>> lookup : lookups.entrySet()) {
+            long start = System.nanoTime();
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                for (String line : lines) {
+                    lookup.getValue().apply(line);
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1.0E9;
+            commandSource.sendMessage(Text.of(TextColors.GREEN, lookup.getKey(), ": ", TextColors.WHITE, String.format("%.0f lookups/s (%d lines x %d)", (lines.size() * iterations) / seconds, lines.size(), iterations)));
+        }
+
+        commandSource.sendMessage(Text.of(mismatches == 0 ? TextColors.GREEN : TextColors.RED, mismatches, " line(s) match a different statement between the lookups."));
+    }
+
+    private void benchmarkVariables(CommandSource commandSource, int iterations) {
+        File directory = null, file = null;
+
+        try {
+            directory = Files.createTempDirectory("directscript").toFile();
+            file = new File(directory, "benchmark.ds");
+
+            FileWriter fw = new FileWriter(file);
+            BufferedWriter bw = new BufferedWriter(fw);
+
+            bw.write("script(\"VariableBenchmark\") {");
+            bw.newLine();
+            bw.write("\ttotal = 0");
+            bw.newLine();
+            bw.write("\tfor (i=1," + iterations + ") {");
+            bw.newLine();
+            bw.write("\t\ttotal += i"); // Reads both total and i
+            bw.newLine();
+            bw.write("\t}");
+            bw.newLine();
+            bw.write("}");
+            bw.newLine();
+
+            bw.flush();
+            bw.close();
+
+            Optional<Script> script = Lang.instance().reader().readScriptsFile(directory, file).getScript("VariableBenchmark");
+            if (!script.isPresent()) {
+                commandSource.sendMessage(Text.of(TextColors.RED, "The benchmark script failed to compile."));
+                return;
+            }
+
+            long start = System.nanoTime();
+            ScriptInstance.builder().script(script.get()).cause(Causes.CALL).build().execute();
+
+            double seconds = (System.nanoTime() - start) / 1.0E9;
+            commandSource.sendMessage(Text.of(TextColors.GREEN, "variables: ", TextColors.WHITE, String.format("%.0f reads/s (%d iterations in %.3fs)", (2D * iterations) / seconds, iterations, seconds)));
+        } catch (IOException e) {
+            commandSource.sendMessage(Text.of(TextColors.RED, e.getMessage()));
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
+
+            if (directory != null) {
+                directory.delete();
+            }
+        }
+    }
+
+    private List<String> getLines() { // Every loaded script line
+        List<String> lines = new ArrayList<>();
+        for (ScriptsFile scriptsFile : Lang.instance().getScriptsFiles()) {
+            for (Script script : scriptsFile.getScripts()) {
+                for (Line line : script.getLines()) {
+                    lines.add(line.getLine());
+                }
+            }
+        }
+
+        return lines;
+    }
+
+    private String describe(String line) {
+        try {
+            StringBuilder builder = new StringBuilder();
+            describe(Line.builder().line(line).getContent().getContainers(), builder, Collections.newSetFromMap(new IdentityHashMap<>()));
+            return builder.toString();
+        } catch (Throwable e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    private void describe(Object object, StringBuilder builder, Set<Object> visited) throws IllegalAccessException { // Structural description of a container tree
+        if (object instanceof Literal) {
+            builder.append("Literal(").append(((Literal<?>) object).getValue().orElse(null)).append(')');
+        } else if (object instanceof Map) {
+            List<String> entries = new ArrayList<>(); // Sorted, since map containers are hashed by identity
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                StringBuilder entryBuilder = new StringBuilder();
+                describe(entry.getKey(), entryBuilder, visited);
+                describe(entry.getValue(), entryBuilder.append('='), visited);
+                entries.add(entryBuilder.toString());
+            }
+
+            Collections.sort(entries);
+            builder.append(entries);
+        } else if (object instanceof Iterable) {
+            builder.append('[');
+            for (Object element : (Iterable<?>) object) {
+                describe(element, builder, visited);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (object instanceof DataContainer && visited.add(object)) {
+            builder.append(object.getClass().getSimpleName()).append('{');
+            for (Class<?> clazz = object.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        describe(field.get(object), builder, visited);
+                        builder.append(';');
+                    }
+                }
+            }
+            builder.append('}');
+        } else {
+            builder.append(object);
+        }
+    }
+}
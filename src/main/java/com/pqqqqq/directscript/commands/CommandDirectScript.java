@@ -23,7 +23,8 @@ public class CommandDirectScript implements CommandExecutor {
     public static CommandSpec build(DirectScript plugin) {
         return CommandSpec.builder().executor(new CommandDirectScript(plugin)).description(Text.of(TextColors.AQUA, "Main plugin command"))
                 .child(CommandReload.build(plugin), "reload").child(CommandCall.build(plugin), "call", "run").child(CommandFile.build(plugin), "file").child(CommandScript.build(plugin), "script")
-                .child(CommandPublicVariables.build(plugin), "publicvariables", "publicvars", "pubvars", "vars", "pv").build();
+                .child(CommandPublicVariables.build(plugin), "publicvariables", "publicvars", "pubvars", "vars", "pv").child(CommandBenchmark.build(plugin), "benchmark", "bench")
+                .child(CommandTriggers.build(plugin), "triggers").child(CommandPrecompile.build(plugin), "precompile", "cache").build();
     }
 
     @Override
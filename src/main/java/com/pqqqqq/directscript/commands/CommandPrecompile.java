@@ -0,0 +1,59 @@
+package com.pqqqqq.directscript.commands;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.exception.state.CompilationException;
+import com.pqqqqq.directscript.lang.reader.ScriptCache;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import org.apache.commons.lang3.tuple.Pair;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.spec.CommandExecutor;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+/**
+ * The command that writes the precompiled .dsc cache of every .ds script file
+ */
+public class CommandPrecompile implements CommandExecutor {
+    private DirectScript plugin;
+
+    private CommandPrecompile(DirectScript plugin) {
+        this.plugin = plugin;
+    }
+
+    public static CommandSpec build(DirectScript plugin) {
+        return CommandSpec.builder().executor(new CommandPrecompile(plugin)).description(Text.of(TextColors.AQUA, "Writes the precompiled .dsc cache of every .ds script file, which is read instead of parsing the file while it's unchanged")).permission("directscript.precompile").build();
+    }
+
+    @Override
+    public CommandResult execute(CommandSource commandSource, CommandContext commandContext) throws CommandException {
+        int files = 0, lines = 0, precompiledLines = 0, failed = 0;
+
+        for (ScriptsFile scriptsFile : Lang.instance().getScriptsFiles()) {
+            if (ScriptCache.getCacheFile(scriptsFile.getFile()) == null) { // .dsc files written as source
+                continue;
+            }
+
+            try {
+                Pair<Integer, Integer> written = ScriptCache.instance().write(scriptsFile);
+                precompiledLines += written.getLeft();
+                lines += written.getRight();
+                files++;
+            } catch (Exception e) {
+                Lang.instance().exceptionHandler().log(new CompilationException(e, "Error in precompilation of %s", scriptsFile.getStringRepresentation()));
+                Lang.instance().exceptionHandler().flush();
+                failed++;
+            }
+        }
+
+        commandSource.sendMessage(Text.of(TextColors.AQUA, "Precompiled ", files, " script file(s), ", precompiledLines, " of ", lines, " line(s). The rest are parsed from source."));
+        if (failed > 0) {
+            commandSource.sendMessage(Text.of(TextColors.RED, failed, " file(s) could not be precompiled, see errors.log"));
+        }
+        return CommandResult.success();
+    }
+}
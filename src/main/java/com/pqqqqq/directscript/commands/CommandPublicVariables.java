@@ -1,5 +1,6 @@
 package com.pqqqqq.directscript.commands;
 
+import com.pqqqqq.directscript.Config;
 import com.pqqqqq.directscript.DirectScript;
 import com.pqqqqq.directscript.lang.Lang;
 import com.pqqqqq.directscript.lang.data.Literal;
@@ -14,12 +15,15 @@ import org.spongepowered.api.command.spec.CommandSpec;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.format.TextColors;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Optional;
 
 /**
  * Created by Kevin on 2015-11-15.
  */
 public class CommandPublicVariables implements CommandExecutor {
+    private static final String DEFAULT_EXCHANGE_FILE = "public-variables.conf";
     private DirectScript plugin;
 
     private CommandPublicVariables(DirectScript plugin) {
@@ -84,8 +88,33 @@ public class CommandPublicVariables implements CommandExecutor {
                 lang.clear();
                 commandSource.sendMessage(Text.of(TextColors.GREEN, "Clear successful."));
                 break;
+            case "import":
+            case "export":
+                Config publicConfig = plugin.getConfig();
+                File file = new File(publicConfig.getDirectory(), variableName.orElse(DEFAULT_EXCHANGE_FILE)); // The variable name is the file name here
+
+                try {
+                    if (action.equalsIgnoreCase("import")) {
+                        if (!file.exists()) {
+                            commandSource.sendMessage(Text.of(TextColors.RED, "Could not find ", file.getName(), "."));
+                        } else {
+                            commandSource.sendMessage(Text.of(TextColors.GREEN, "Imported ", publicConfig.importVariables(file), " variable(s) from ", file.getName(), "."));
+                        }
+                    } else {
+                        commandSource.sendMessage(Text.of(TextColors.GREEN, "Exported ", publicConfig.exportVariables(file), " variable(s) to ", file.getName(), "."));
+                    }
+                } catch (IOException e) {
+                    commandSource.sendMessage(Text.of(TextColors.RED, e.getMessage()));
+                }
+
+                break;
+            case "stats":
+                Config config = plugin.getConfig();
+                commandSource.sendMessage(Text.of(TextColors.GREEN, "Flushes: ", TextColors.WHITE, config.getFlushCount(), TextColors.GREEN, " Pending: ", TextColors.WHITE, config.getDirtyCount()));
+                commandSource.sendMessage(Text.of(TextColors.GREEN, "Flush latency: ", TextColors.WHITE, String.format("%.3fms last, %.3fms average, %.3fms max", config.getLastFlushNanos() / 1.0E6, config.getAverageFlushNanos() / 1.0E6, config.getMaxFlushNanos() / 1.0E6)));
+                break;
             default:
-                commandSource.sendMessage(Text.of(TextColors.RED, "Unknown actions. Valid actions are: add/remove/reset/clearall"));
+                commandSource.sendMessage(Text.of(TextColors.RED, "Unknown actions. Valid actions are: add/remove/reset/clearall/import/export/stats"));
                 break;
         }
 
@@ -6,6 +6,7 @@ import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.GenericArguments;
 import org.spongepowered.api.command.spec.CommandExecutor;
 import org.spongepowered.api.command.spec.CommandSpec;
 import org.spongepowered.api.text.Text;
@@ -22,13 +23,15 @@ public class CommandReload implements CommandExecutor {
     }
 
     public static CommandSpec build(DirectScript plugin) {
-        return CommandSpec.builder().executor(new CommandReload(plugin)).description(Text.of(TextColors.AQUA, "Reloads the config and scripts.")).permission("directscript.reload").build();
+        return CommandSpec.builder().executor(new CommandReload(plugin)).description(Text.of(TextColors.AQUA, "Reloads the config and changed scripts, or every script with -f."))
+                .permission("directscript.reload").arguments(GenericArguments.flags().flag("f").buildWith(GenericArguments.none())).build();
     }
 
     @Override
     public CommandResult execute(CommandSource commandSource, CommandContext commandContext) throws CommandException {
+        plugin.getConfig().flush(); // Don't lose changes made since the last flush
         plugin.getConfig().load();
-        Lang.instance().reloadScripts();
+        Lang.instance().reloadScripts(commandContext.hasAny("f")); // Eg after changing how scripts compile
 
         commandSource.sendMessage(Text.of(TextColors.AQUA, "Scripts/config reloaded."));
         return CommandResult.success();
@@ -0,0 +1,74 @@
+package com.pqqqqq.directscript.commands;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.trigger.Limiter;
+import com.pqqqqq.directscript.lang.trigger.Trigger;
+import com.pqqqqq.directscript.lang.trigger.cause.Cause;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.spec.CommandExecutor;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+/**
+ * The command that lists trigger guards, throttles, debounces and timer lateness
+ */
+public class CommandTriggers implements CommandExecutor {
+    private DirectScript plugin;
+
+    private CommandTriggers(DirectScript plugin) {
+        this.plugin = plugin;
+    }
+
+    public static CommandSpec build(DirectScript plugin) {
+        return CommandSpec.builder().executor(new CommandTriggers(plugin)).description(Text.of(TextColors.AQUA, "Lists the trigger guards of scripts and how often they reject events, their throttles and debounces, and how late timers run")).permission("directscript.triggers").build();
+    }
+
+    @Override
+    public CommandResult execute(CommandSource commandSource, CommandContext commandContext) throws CommandException {
+        int limited = 0;
+
+        for (ScriptsFile scriptsFile : Lang.instance().getScriptsFiles()) {
+            for (Script script : scriptsFile.getScripts()) {
+                if (!script.getTrigger().isPresent()) {
+                    continue;
+                }
+
+                Trigger trigger = script.getTrigger().get();
+                String name = scriptsFile.getStringRepresentationNoExt() + ":" + script.getName() + ": ";
+
+                if (trigger.getGuard().isPresent()) {
+                    Trigger.Guard guard = trigger.getGuard().get();
+                    commandSource.sendMessage(Text.of(TextColors.GREEN, name, TextColors.WHITE, guard.getEvaluations(), " evaluation(s), ", guard.getRejections(), " rejection(s)"));
+                    limited++;
+                }
+
+                if (trigger.getLimiter().isPresent()) {
+                    Limiter limiter = trigger.getLimiter().get();
+                    commandSource.sendMessage(Text.of(TextColors.GREEN, name, TextColors.WHITE, limiter.getMode().getName(), " every ", limiter.getInterval(), "ms, ", limiter.size(), " key(s) tracked"));
+                    limited++;
+                }
+            }
+        }
+
+        Cause.TimerCause timers = Causes.TIMER;
+        if (timers.getScheduled() > 0) {
+            commandSource.sendMessage(Text.of(TextColors.GREEN, "Timers: ", TextColors.WHITE, timers.getScheduled(), " scheduled, ", timers.getRuns(), " run(s), ",
+                    String.format("%.1fms average and %.1fms max lateness", timers.getAverageLateness(), timers.getMaxLateness())));
+            limited++;
+        }
+
+        if (limited == 0) {
+            commandSource.sendMessage(Text.of(TextColors.RED, "No scripts have trigger guards, throttles, debounces or timers."));
+        }
+
+        return CommandResult.success();
+    }
+}
@@ -2,7 +2,9 @@ package com.pqqqqq.directscript.events;
 
 import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.spongepowered.api.block.BlockSnapshot;
 import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.data.Transaction;
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.entity.projectile.Projectile;
@@ -30,6 +32,8 @@ import org.spongepowered.api.text.serializer.TextSerializers;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -39,6 +43,10 @@ public class TriggerEvents {
 
     @Listener(order = Order.LAST)
     public void join(ClientConnectionEvent.Join event) {
+        if (!Causes.PLAYER_JOIN.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_JOIN.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -47,17 +55,23 @@ public class TriggerEvents {
 
     @Listener(order = Order.LAST)
     public void quit(ClientConnectionEvent.Disconnect event) {
-        Optional<Text> message = event.getMessage();
-        Causes.PLAYER_QUIT.activate(ScriptInstance.builder()
-                .event(event)
-                .eventCause(event.getCause())
-                .eventVar("Player", event.getTargetEntity())
-                .eventVar("QuitMessage", (message == null ? null : TextSerializers.PLAIN.serialize(message.get()))));
+        if (Causes.PLAYER_QUIT.hasTriggers()) {
+            Causes.PLAYER_QUIT.activate(ScriptInstance.builder()
+                    .event(event)
+                    .eventCause(event.getCause())
+                    .eventVar("Player", event.getTargetEntity())
+                    .eventVar("QuitMessage", () -> serialize(event.getMessage())));
+        }
+
+        Causes.evict(event.getTargetEntity().getUniqueId()); // After the quit triggers, which may be limited too
     }
 
     @Listener(order = Order.LAST)
     public void death(DestructEntityEvent.Death event, @First Player player) {
-        Optional<Text> message = event.getMessage();
+        if (!Causes.PLAYER_DEATH.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_DEATH.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -66,11 +80,15 @@ public class TriggerEvents {
                     .eventVar("KeepsLevel", event.keepsLevel())
                     .eventVar("NewExp", event.getNewExperience())
                     .eventVar("NewLevel", event.getNewLevel())*/
-                .eventVar("DeathMessage", (message == null ? null : TextSerializers.PLAIN.serialize(message.get()))));
+                .eventVar("DeathMessage", () -> serialize(event.getMessage())));
     }
 
     @Listener(order = Order.LAST)
     public void respawn(RespawnPlayerEvent event) {
+        if (!Causes.PLAYER_RESPAWN.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_RESPAWN.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -82,6 +100,10 @@ public class TriggerEvents {
 
     @Listener(order = Order.LAST)
     public void move(DisplaceEntityEvent.TargetPlayer event) {
+        if (!Causes.PLAYER_MOVE.hasTriggers()) {
+            return;
+        }
+
         Location<World> oldLoc = event.getFromTransform().getLocation(), newLoc = event.getToTransform().getLocation();
         if (oldLoc.getBlockX() != newLoc.getBlockX() || oldLoc.getBlockY() != newLoc.getBlockY() || oldLoc.getBlockZ() != newLoc.getBlockZ()) { // We only want when the block is changed
             Causes.PLAYER_MOVE.activate(ScriptInstance.builder()
@@ -95,16 +117,23 @@ public class TriggerEvents {
 
     @Listener
     public void chat(MessageChannelEvent.Chat event, @First Player player) {
-        Optional<Text> message = event.getMessage();
+        if (!Causes.PLAYER_CHAT.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_CHAT.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
                 .eventVar("Player", player)
-                .eventVar("Message", (message == null ? null : TextSerializers.PLAIN.serialize(message.get()))));
+                .eventVar("Message", () -> serialize(event.getMessage())));
     }
 
     @Listener
     public void useItem(UseItemStackEvent.Start event, @First Player player) {
+        if (!Causes.PLAYER_USE_ITEM.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_USE_ITEM.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -125,6 +154,10 @@ public class TriggerEvents {
 
     @Listener
     public void damageEntity(DamageEntityEvent event) {
+        if (!Causes.PLAYER_HURT.hasTriggers() && !Causes.PLAYER_ATTACK.hasTriggers()) {
+            return;
+        }
+
         Entity attacker = null;
         DamageType damageType = null;
 
@@ -147,43 +180,53 @@ public class TriggerEvents {
         }
 
         Entity entity = event.getTargetEntity();
-        if (entity instanceof Player) { // If the hurt entity is a player, hurt cause
-            Causes.PLAYER_HURT.activate(ScriptInstance.builder()
-                    .event(event)
-                    .eventCause(event.getCause())
-                    .eventVar("Hurt", entity)
-                    .eventVar("Damaged", entity) // alias
-                    .eventVar("Attacker", attacker)
-                    .eventVar("Damage", event.getFinalDamage())
-                    .eventVar("Death", event.willCauseDeath())
-                    .eventVar("Type", damageType));
+        boolean hurt = entity instanceof Player && Causes.PLAYER_HURT.hasTriggers(); // If the hurt entity is a player, hurt cause
+        boolean attack = attacker instanceof Player && Causes.PLAYER_ATTACK.hasTriggers(); // If attacker is a player, attack cause
+        if (!hurt && !attack) {
+            return;
         }
 
-        if (attacker != null && attacker instanceof Player) { // If attacker is a player, attack cause
-            Causes.PLAYER_ATTACK.activate(ScriptInstance.builder()
-                    .event(event)
-                    .eventCause(event.getCause())
-                    .eventVar("Hurt", entity)
-                    .eventVar("Damaged", entity) // alias
-                    .eventVar("Attacker", attacker)
-                    .eventVar("Damage", event.getFinalDamage())
-                    .eventVar("Death", event.willCauseDeath())
-                    .eventVar("Type", damageType));
+        ScriptInstance.Builder builder = ScriptInstance.builder() // Shared by both causes
+                .event(event)
+                .eventCause(event.getCause())
+                .eventVar("Hurt", entity)
+                .eventVar("Damaged", entity) // alias
+                .eventVar("Attacker", attacker)
+                .eventVar("Damage", event::getFinalDamage)
+                .eventVar("Death", event::willCauseDeath)
+                .eventVar("Type", damageType);
+
+        if (hurt) {
+            Causes.PLAYER_HURT.activate(builder.copy());
+        }
+
+        if (attack) {
+            Causes.PLAYER_ATTACK.activate(builder.copy());
         }
     }
 
     @Listener
     public void interactBlock(InteractBlockEvent event, @First Player player) {
+        if (!Causes.PLAYER_INTERACT_BLOCK.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_INTERACT_BLOCK.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
                 .eventVar("Player", player)
                 .eventVar("Block", event.getTargetBlock())
-                .eventVar("Interaction", event instanceof InteractBlockEvent.Primary ? "Left" : "Right"));
+                .eventVar("Interaction", event instanceof InteractBlockEvent.Primary ? "Left" : "Right")
+                .key(event.getTargetBlock().getState().getType().getId())
+                .worldKey(player.getWorld().getName()));
     }
 
     @Listener
     public void interactEntity(InteractEntityEvent event, @First Player player) {
+        if (!Causes.PLAYER_INTERACT_ENTITY.hasTriggers()) {
+            return;
+        }
+
         Causes.PLAYER_INTERACT_ENTITY.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -196,18 +239,28 @@ public class TriggerEvents {
 
     @Listener
     public void itemPickup(ChangeInventoryEvent.Pickup event, @First Player player) {
+        if (!Causes.ITEM_PICKUP.hasTriggers()) {
+            return;
+        }
+
         for (SlotTransaction transaction : event.getTransactions()) {
             Causes.ITEM_PICKUP.activate(ScriptInstance.builder()
                     .event(event)
                     .eventCause(event.getCause())
                     .eventVar("Player", player)
                     .eventVar("From", transaction.getOriginal())
-                    .eventVar("To", transaction.getFinal()));
+                    .eventVar("To", transaction.getFinal())
+                    .key(transaction.getFinal().getType().getId())
+                    .worldKey(player.getWorld().getName()));
         }
     }
 
     @Listener
     public void itemDrop(DropItemEvent.Dispense event, @First Player player) {
+        if (!Causes.ITEM_DROP.hasTriggers()) {
+            return;
+        }
+
         for (int i = 0; i < event.getEntities().size(); i++) {
             Causes.ITEM_DROP.activate(ScriptInstance.builder()
                     .event(event)
@@ -221,9 +274,19 @@ public class TriggerEvents {
 
     @Listener
     public void blockChange(ChangeBlockEvent event) { // Includes place, break, etc.
+        if (!(event instanceof ChangeBlockEvent.Break ? Causes.PLAYER_BLOCK_BREAK.hasTriggers() || Causes.BLOCK_BREAK.hasTriggers()
+                : event instanceof ChangeBlockEvent.Place && (Causes.PLAYER_BLOCK_PLACE.hasTriggers() || Causes.BLOCK_PLACE.hasTriggers()))) {
+            return;
+        }
+
         Optional<Player> player = event.getCause().first(Player.class);
         ScriptInstance.Builder builder = null;
 
+        List<String> blockTypes = new ArrayList<>(); // Broken blocks were the original, placed blocks are the final
+        for (Transaction<BlockSnapshot> transaction : event.getTransactions()) {
+            blockTypes.add((event instanceof ChangeBlockEvent.Place ? transaction.getFinal() : transaction.getOriginal()).getState().getType().getId());
+        }
+
         if (player.isPresent()) {
             builder = ScriptInstance.builder()
                     .event(event)
@@ -231,7 +294,9 @@ public class TriggerEvents {
                     .eventVar("Player", player.get())
                     .eventVar("Root", player.get())
                     .eventVar("Transactions", event.getTransactions())
-                    .eventVar("World", event.getTargetWorld());
+                    .eventVar("World", event.getTargetWorld())
+                    .key(blockTypes.toArray(new String[blockTypes.size()]))
+                    .worldKey(event.getTargetWorld().getName());
 
             if (event instanceof ChangeBlockEvent.Break) {
                 Causes.PLAYER_BLOCK_BREAK.activate(builder);
@@ -247,7 +312,9 @@ public class TriggerEvents {
                         .eventCause(event.getCause())
                         .eventVar("Entity", entity.get())
                         .eventVar("Transactions", event.getTransactions())
-                        .eventVar("World", event.getTargetWorld());
+                        .eventVar("World", event.getTargetWorld())
+                        .key(blockTypes.toArray(new String[blockTypes.size()]))
+                        .worldKey(event.getTargetWorld().getName());
 
                 if (event instanceof ChangeBlockEvent.Break) {
                     Causes.BLOCK_BREAK.activate(builder);
@@ -260,13 +327,19 @@ public class TriggerEvents {
 
     @Listener
     public void entitySpawn(SpawnEntityEvent event) {
+        if (!Causes.ENTITY_SPAWN.hasTriggers()) {
+            return;
+        }
+
         for (int i = 0; i < event.getEntities().size(); i++) {
             Causes.ENTITY_SPAWN.activate(ScriptInstance.builder()
                     .event(event)
                     .eventCause(event.getCause())
                     .eventVar("Entity", event.getEntities().get(i))
                     .eventVar("Snapshot", event.getEntitySnapshots().get(i))
-                    .eventVar("World", event.getTargetWorld()));
+                    .eventVar("World", event.getTargetWorld())
+                    .key(event.getEntities().get(i).getType().getId())
+                    .worldKey(event.getTargetWorld().getName()));
         }
     }
 
@@ -274,6 +347,10 @@ public class TriggerEvents {
 
     @Listener(order = Order.LATE)
     public void playerCommand(SendCommandEvent event, @First CommandSource commandSource) {
+        if (!(commandSource instanceof Player ? Causes.PLAYER_COMMAND : Causes.COMMAND).hasCommand(event.getCommand())) { // Not a script command
+            return;
+        }
+
         if (commandSource instanceof Player) {
             Causes.PLAYER_COMMAND.activate(ScriptInstance.builder()
                     .event(event)
@@ -293,6 +370,10 @@ public class TriggerEvents {
 
     @Listener
     public void explosion(ExplosionEvent.Pre event) {
+        if (!Causes.EXPLOSION.hasTriggers()) {
+            return;
+        }
+
         Causes.EXPLOSION.activate(ScriptInstance.builder()
                 .event(event)
                 .eventCause(event.getCause())
@@ -300,6 +381,10 @@ public class TriggerEvents {
                 .eventVar("World", event.getTargetWorld()));
     }
 
+    private String serialize(Optional<Text> message) { // Only run when a script reads the message
+        return message == null || !message.isPresent() ? null : TextSerializers.PLAIN.serialize(message.get());
+    }
+
     /*@Listener(order = Order.BEFORE_POST)
     public void changeDataHolder(ChangeDataHolderEvent.ValueChange event) {
 
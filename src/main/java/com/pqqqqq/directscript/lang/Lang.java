@@ -2,12 +2,15 @@ package com.pqqqqq.directscript.lang;
 
 import com.google.common.collect.ImmutableSet;
 import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.data.Compiler;
+import com.pqqqqq.directscript.lang.data.Folder;
 import com.pqqqqq.directscript.lang.data.Sequencer;
 import com.pqqqqq.directscript.lang.data.env.Environment;
 import com.pqqqqq.directscript.lang.exception.handler.ExceptionHandler;
 import com.pqqqqq.directscript.lang.reader.Reader;
 import com.pqqqqq.directscript.lang.script.Script;
 import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.util.Lexer;
 import com.pqqqqq.directscript.lang.util.StringParser;
 
 import java.util.Optional;
@@ -74,6 +77,36 @@ public class Lang extends Environment {
         return StringParser.instance();
     }
 
+    /**
+     * <p>Gets the {@link Lexer} instance.</p>
+     * <p>This is analogous to: <code>Lexer.instance()</code></p>
+     *
+     * @return the lexer
+     */
+    public Lexer lexer() {
+        return Lexer.instance();
+    }
+
+    /**
+     * <p>Gets the {@link Folder} instance.</p>
+     * <p>This is analogous to: <code>Folder.instance()</code></p>
+     *
+     * @return the folder
+     */
+    public Folder folder() {
+        return Folder.instance();
+    }
+
+    /**
+     * <p>Gets the {@link Compiler} instance.</p>
+     * <p>This is analogous to: <code>Compiler.instance()</code></p>
+     *
+     * @return the compiler
+     */
+    public Compiler compiler() {
+        return Compiler.instance();
+    }
+
     /**
      * Gets the {@link Set} of {@link ScriptsFile} cached after the last {@link #reloadScripts()}
      *
@@ -84,11 +117,23 @@ public class Lang extends Environment {
     }
 
     /**
-     * Reloads the scripts and re-attaches the error handler
+     * Reloads the scripts that changed since the last reload and re-attaches the error handler
+     *
+     * @see #reloadScripts(boolean)
      */
     public void reloadScripts() {
+        reloadScripts(false);
+    }
+
+    /**
+     * Reloads the scripts and re-attaches the error handler
+     *
+     * @param full whether every script is read again, rather than only those whose files changed since the last reload
+     * @see Reader#reload(Set)
+     */
+    public void reloadScripts(boolean full) {
         exceptionHandler().attach(); // Attach error handler
-        scriptsFiles = ImmutableSet.copyOf(reader().load()); // Creates an immutable set of reloaded scripts
+        scriptsFiles = ImmutableSet.copyOf(full || scriptsFiles == null ? reader().load() : reader().reload(scriptsFiles)); // Creates an immutable set of reloaded scripts
     }
 
     /**
@@ -121,8 +166,8 @@ public class Lang extends Environment {
 
     // Environment override
     @Override
-    public void notifyChange() {
-        DirectScript.instance().getConfig().saveAll();
+    public void notifyChange(String name) {
+        DirectScript.instance().getConfig().markDirty(name); // Written behind by the config's writer
     }
 
     @Override
@@ -0,0 +1,275 @@
+package com.pqqqqq.directscript.lang.data;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.data.container.ConditionContainer;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.data.container.UnresolvableContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ConditionalExpressionContainer;
+import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.reader.Line;
+import com.pqqqqq.directscript.lang.script.Script;
+
+/**
+ * <p>A compile-time backend that walks a {@link DataContainer} tree once and turns its expressions into closures specialized for their operator.</p>
+ * <p>Each operator gets its own closure, with a path straight to the number arithmetic when both operands are numbers, so the JIT sees monomorphic calls it can inline.
+ * The containers are kept as the closures' source, and anything that's read as a container, such as the variables statements set, is left as it was.</p>
+ * <p>It also binds the lines of scripts that run often, once, so making their contexts allocates less.
+ * Bound scripts still run through the interpreter; no classes are generated for them.</p>
+ */
+public class Compiler {
+    private static final Compiler INSTANCE = new Compiler();
+
+    private volatile boolean enabled = true;
+    private volatile long bindThreshold = 1000L;
+
+    private Compiler() {
+    }
+
+    /**
+     * Gets the {@link Compiler} instance
+     *
+     * @return the compiler instance
+     */
+    public static Compiler instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets whether expressions are compiled into closures
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether expressions are compiled into closures
+     *
+     * @param enabled the new value
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the number of runs after which the {@link Line}s of a {@link Script} are bound
+     *
+     * @return the threshold, or 0 if scripts are never bound
+     */
+    public long getBindThreshold() {
+        return bindThreshold;
+    }
+
+    /**
+     * Sets the number of runs after which the {@link Line}s of a {@link Script} are bound
+     *
+     * @param bindThreshold the new threshold, or 0 to never bind scripts
+     */
+    public void setBindThreshold(long bindThreshold) {
+        this.bindThreshold = Math.max(0L, bindThreshold);
+    }
+
+    /**
+     * Binds a {@link Script}, binding the arguments of each of its {@link Line}s once so their contexts are made without building maps
+     *
+     * @param script the script
+     * @see Line.Content#bind()
+     */
+    public void bind(Script script) {
+        if (script.isBound() || script.isUnbound()) {
+            return;
+        }
+
+        int bound = 0;
+        for (Line line : script.getLines()) {
+            bound += line.getContent().bind();
+        }
+
+        script.setBound(true);
+        DirectScript.instance().getLogger().info(String.format("Bound script '%s' -> '%s' after %d runs (%d argument syntaxes bound)", script.getScriptsFile().getStringRepresentation(), script.getName(), script.getExecutions(), bound));
+    }
+
+    /**
+     * Unbinds a bound {@link Script} for good, after it failed, so its contexts are made as they were before
+     *
+     * @param script the script
+     */
+    public void unbind(Script script) {
+        if (!script.isBound()) {
+            return;
+        }
+
+        script.setBound(false);
+        for (Line line : script.getLines()) {
+            line.getContent().unbind();
+        }
+    }
+
+    /**
+     * Resets a {@link Script} as if it was just compiled, unbinding its {@link Line}s and clearing its run count, so a reload that keeps it can bind it again
+     *
+     * @param script the script
+     */
+    public void reset(Script script) {
+        for (Line line : script.getLines()) {
+            line.getContent().unbind();
+        }
+
+        script.resetBinding();
+    }
+
+    /**
+     * Compiles the expressions of a {@link DataContainer}, returning the container itself if it's not an expression
+     *
+     * @param container the container
+     * @return the compiled container
+     */
+    public DataContainer compile(DataContainer container) {
+        if (!isEnabled() || container == null) {
+            return container;
+        }
+
+        if (container instanceof UnresolvableContainer) { // Eg loop conditions, resolved by their statement every iteration
+            DataContainer inner = ((UnresolvableContainer) container).getDataContainer();
+            DataContainer compiled = compileExpression(inner);
+            return compiled == inner ? container : new UnresolvableContainer(compiled);
+        }
+
+        return compileExpression(container);
+    }
+
+    private DataContainer compileExpression(DataContainer container) {
+        if (container instanceof ArithmeticContainer) {
+            return compile((ArithmeticContainer) container);
+        } else if (container instanceof ConditionalExpressionContainer) {
+            return compile((ConditionalExpressionContainer) container);
+        } else if (container instanceof ConditionContainer) {
+            return compile((ConditionContainer) container);
+        }
+
+        return container; // Literals, and containers that statements read as themselves
+    }
+
+    private DataContainer compile(ArithmeticContainer container) {
+        DataContainer first = compileExpression(container.getFirstTerm()), second = compileExpression(container.getSecondTerm());
+
+        switch (container.getOperator()) {
+            case ADDITION:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.isNumber() && b.isNumber() ? Literal.fromObject(a.getNumber() + b.getNumber()) : a.add(b), a, b, container);
+                };
+            case SUBTRACTION:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.isNumber() && b.isNumber() ? Literal.fromObject(a.getNumber() - b.getNumber()) : a.sub(b), a, b, container);
+                };
+            case MULTIPLICATION:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.isNumber() && b.isNumber() ? Literal.fromObject(a.getNumber() * b.getNumber()) : a.mult(b), a, b, container);
+                };
+            case DIVISION:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.isNumber() && b.isNumber() ? Literal.fromObject(a.getNumber() / b.getNumber()) : a.div(b), a, b, container);
+                };
+            case MODULUS:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.isNumber() && b.isNumber() ? Literal.fromObject(a.getNumber() % b.getNumber()) : a.mod(b), a, b, container);
+                };
+            case EXPONENTIAL:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.pow(b), a, b, container);
+                };
+            case ROOT:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return resolved(a.root(b), a, b, container);
+                };
+            default:
+                return container; // Fails when it's run, as it did before
+        }
+    }
+
+    private DataContainer compile(ConditionalExpressionContainer container) {
+        DataContainer first = compileExpression(container.getFirstTerm()), second = compileExpression(container.getSecondTerm());
+        ConditionalExpressionContainer.ComparativeOperator operator = container.getOperator();
+
+        switch (operator) {
+            case LESS_THAN:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return a.isNumber() && b.isNumber() ? bool(a.getNumber() < b.getNumber()) : ConditionalExpressionContainer.compare(a, b, operator);
+                };
+            case MORE_THAN:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return a.isNumber() && b.isNumber() ? bool(a.getNumber() > b.getNumber()) : ConditionalExpressionContainer.compare(a, b, operator);
+                };
+            case LESS_THAN_EQUAL_TO:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return a.isNumber() && b.isNumber() ? bool(a.getNumber() <= b.getNumber()) : ConditionalExpressionContainer.compare(a, b, operator);
+                };
+            case MORE_THAN_EQUAL_TO:
+                return (ctx) -> {
+                    Literal a = first.resolve(ctx), b = second.resolve(ctx);
+                    return a.isNumber() && b.isNumber() ? bool(a.getNumber() >= b.getNumber()) : ConditionalExpressionContainer.compare(a, b, operator);
+                };
+            default:
+                return (ctx) -> ConditionalExpressionContainer.compare(first.resolve(ctx), second.resolve(ctx), operator);
+        }
+    }
+
+    private DataContainer compile(ConditionContainer container) {
+        ConditionalExpressionContainer[][] rows = container.getConditionExpressions();
+        DataContainer[][] compiled = new DataContainer[rows.length][];
+
+        for (int i = 0; i < rows.length; i++) {
+            compiled[i] = new DataContainer[rows[i].length];
+            for (int j = 0; j < rows[i].length; j++) {
+                compiled[i][j] = compile(rows[i][j]);
+            }
+        }
+
+        if (compiled.length == 1 && compiled[0].length == 1) { // A single comparison, eg most loop conditions
+            return compiled[0][0];
+        }
+
+        return (ctx) -> {
+            rowLoop:
+            for (DataContainer[] row : compiled) {
+                if (row.length == 0) {
+                    continue; // Empty rows don't make it true, they make it false
+                }
+
+                for (DataContainer expression : row) {
+                    if (!expression.resolve(ctx).getBoolean()) {
+                        continue rowLoop;
+                    }
+                }
+
+                return Literal.Literals.TRUE;
+            }
+
+            return Literal.Literals.FALSE;
+        };
+    }
+
+    private static Literal resolved(Literal result, Literal first, Literal second, ArithmeticContainer container) {
+        if (first.getResolvedFrom().isPresent() || second.getResolvedFrom().isPresent()) {
+            return Literal.Resolved.fromObject(result, container); // Still serializes as its expression
+        }
+
+        return result;
+    }
+
+    private static Literal<Boolean> bool(boolean value) {
+        return value ? Literal.Literals.TRUE : Literal.Literals.FALSE;
+    }
+}
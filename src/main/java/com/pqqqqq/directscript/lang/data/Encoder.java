@@ -0,0 +1,236 @@
+package com.pqqqqq.directscript.lang.data;
+
+import com.pqqqqq.directscript.lang.data.container.*;
+import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ConditionalExpressionContainer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Writes {@link DataContainer} trees, as the {@link Sequencer} makes them, to a binary stream and reads them back, so precompiled scripts skip the sequencer.</p>
+ * <p>Only the containers the sequencer makes, and literals of strings, numbers and booleans, can be written. Anything else is left to be parsed from source.</p>
+ */
+public class Encoder {
+    private static final Encoder INSTANCE = new Encoder();
+
+    private static final byte EMPTY = 0, STRING = 1, NUMBER = 2, TRUE = 3, FALSE = 4;
+    private static final byte ARITHMETIC = 10, COMPARISON = 11, CONDITION = 12, TERNARY = 13, NEGATE = 14, NEGATIVE = 15;
+    private static final byte VARIABLE = 20, INDEX = 21, EVENT_VARIABLE = 22, STATEMENT = 23, AMNESIAC = 24, UNRESOLVABLE = 25;
+    private static final byte ARRAY = 30, MAP = 31;
+
+    private Encoder() {
+    }
+
+    /**
+     * Gets the {@link Encoder} instance
+     *
+     * @return the encoder instance
+     */
+    public static Encoder instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Writes a {@link DataContainer} tree
+     *
+     * @param out       the output to write to
+     * @param container the container
+     * @throws IOException                   if the output can't be written to
+     * @throws UnsupportedOperationException if the tree has a container that can't be written
+     */
+    public void encode(DataOutput out, DataContainer container) throws IOException {
+        if (container instanceof Literal) {
+            encodeLiteral(out, (Literal) container);
+        } else if (container instanceof ArithmeticContainer) {
+            ArithmeticContainer arithmeticContainer = (ArithmeticContainer) container;
+            out.writeByte(ARITHMETIC);
+            out.writeUTF(arithmeticContainer.getOperator().name());
+            out.writeUTF((String) arithmeticContainer.serialize());
+            encode(out, arithmeticContainer.getFirstTerm());
+            encode(out, arithmeticContainer.getSecondTerm());
+        } else if (container instanceof ConditionalExpressionContainer) {
+            ConditionalExpressionContainer expressionContainer = (ConditionalExpressionContainer) container;
+            out.writeByte(COMPARISON);
+            out.writeUTF(expressionContainer.getOperator().name());
+            encode(out, expressionContainer.getFirstTerm());
+            encode(out, expressionContainer.getSecondTerm());
+        } else if (container instanceof ConditionContainer) {
+            ConditionalExpressionContainer[][] rows = ((ConditionContainer) container).getConditionExpressions();
+            out.writeByte(CONDITION);
+            out.writeInt(rows.length);
+            for (ConditionalExpressionContainer[] row : rows) {
+                out.writeInt(row.length);
+                for (ConditionalExpressionContainer expression : row) {
+                    encode(out, expression);
+                }
+            }
+        } else if (container instanceof TernaryOperatorContainer) {
+            TernaryOperatorContainer ternaryContainer = (TernaryOperatorContainer) container;
+            out.writeByte(TERNARY);
+            encode(out, ternaryContainer.getConditionContainer());
+            encode(out, ternaryContainer.getTrueContainer());
+            encode(out, ternaryContainer.getFalseContainer());
+        } else if (container instanceof NegateContainer) {
+            out.writeByte(NEGATE);
+            encode(out, ((NegateContainer) container).getContainer());
+        } else if (container instanceof NegativeContainer) {
+            out.writeByte(NEGATIVE);
+            encode(out, ((NegativeContainer) container).getContainer());
+        } else if (container instanceof VariableContainer) {
+            VariableContainer variableContainer = (VariableContainer) container;
+            out.writeByte(VARIABLE);
+            out.writeBoolean(variableContainer.doCreateNew());
+            encode(out, variableContainer.getVariableName());
+        } else if (container instanceof IndexContainer) {
+            IndexContainer indexContainer = (IndexContainer) container;
+            out.writeByte(INDEX);
+            encode(out, indexContainer.getArray());
+            encode(out, indexContainer.getIndex());
+        } else if (container instanceof EventVariableContainer) {
+            out.writeByte(EVENT_VARIABLE);
+            encode(out, ((EventVariableContainer) container).getEventVar());
+        } else if (container instanceof StatementContainer) { // Its content is still parsed on the first resolve
+            out.writeByte(STATEMENT);
+            encode(out, ((StatementContainer) container).getStatement());
+        } else if (container instanceof AmnesiacContainer) {
+            AmnesiacContainer amnesiacContainer = (AmnesiacContainer) container;
+            out.writeByte(AMNESIAC);
+            out.writeUTF(amnesiacContainer.getStringSequence());
+            encode(out, amnesiacContainer.getSequence());
+        } else if (container instanceof UnresolvableContainer) {
+            out.writeByte(UNRESOLVABLE);
+            encode(out, ((UnresolvableContainer) container).getDataContainer());
+        } else if (container instanceof ArrayContainer) {
+            ArrayContainer arrayContainer = (ArrayContainer) container;
+            out.writeByte(ARRAY);
+            out.writeBoolean(arrayContainer.isConcatenate());
+            out.writeInt(arrayContainer.getList().size());
+            for (DataContainer element : arrayContainer.getList()) {
+                encode(out, element);
+            }
+        } else if (container instanceof MapContainer) {
+            Map<DataContainer, DataContainer> map = ((MapContainer) container).getMap();
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<DataContainer, DataContainer> entry : map.entrySet()) {
+                encode(out, entry.getKey());
+                encode(out, entry.getValue());
+            }
+        } else {
+            throw new UnsupportedOperationException((container == null ? "null" : container.getClass().getName()) + " cannot be precompiled");
+        }
+    }
+
+    /**
+     * Reads a {@link DataContainer} tree written by {@link #encode(DataOutput, DataContainer)}
+     *
+     * @param in the input to read from
+     * @return the container
+     * @throws IOException if the input can't be read, or isn't a container tree
+     */
+    public DataContainer decode(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case EMPTY:
+                return Literal.Literals.empty();
+            case STRING:
+                String string = in.readUTF();
+                return string.isEmpty() ? Literal.Literals.EMPTY_STRING : new Literal<>(string); // Its colours were already formatted
+            case NUMBER:
+                return Literal.fromObject(in.readDouble());
+            case TRUE:
+                return Literal.Literals.TRUE;
+            case FALSE:
+                return Literal.Literals.FALSE;
+            case ARITHMETIC: {
+                ArithmeticContainer.ArithmeticOperator operator = ArithmeticContainer.ArithmeticOperator.valueOf(in.readUTF());
+                String stringSequence = in.readUTF();
+                return new ArithmeticContainer(decode(in), decode(in), operator, stringSequence);
+            }
+            case COMPARISON: {
+                ConditionalExpressionContainer.ComparativeOperator operator = ConditionalExpressionContainer.ComparativeOperator.valueOf(in.readUTF());
+                return new ConditionalExpressionContainer(decode(in), decode(in), operator);
+            }
+            case CONDITION: {
+                ConditionalExpressionContainer[][] rows = new ConditionalExpressionContainer[in.readInt()][];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = new ConditionalExpressionContainer[in.readInt()];
+                    for (int j = 0; j < rows[i].length; j++) {
+                        DataContainer expression = decode(in);
+                        if (!(expression instanceof ConditionalExpressionContainer)) {
+                            throw new IOException("Condition rows can only hold comparisons");
+                        }
+
+                        rows[i][j] = (ConditionalExpressionContainer) expression;
+                    }
+                }
+                return new ConditionContainer(rows);
+            }
+            case TERNARY:
+                return new TernaryOperatorContainer(decode(in), decode(in), decode(in));
+            case NEGATE:
+                return new NegateContainer(decode(in));
+            case NEGATIVE:
+                return new NegativeContainer(decode(in));
+            case VARIABLE: {
+                boolean createNew = in.readBoolean();
+                return new VariableContainer(decode(in), createNew);
+            }
+            case INDEX:
+                return new IndexContainer(decode(in), decode(in));
+            case EVENT_VARIABLE:
+                return new EventVariableContainer(decode(in));
+            case STATEMENT:
+                return new StatementContainer(decode(in));
+            case AMNESIAC: {
+                String stringSequence = in.readUTF();
+                return new AmnesiacContainer(decode(in), stringSequence);
+            }
+            case UNRESOLVABLE:
+                return new UnresolvableContainer(decode(in));
+            case ARRAY: {
+                boolean concatenate = in.readBoolean();
+                List<DataContainer> list = new ArrayList<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    list.add(decode(in));
+                }
+                return new ArrayContainer(list, concatenate);
+            }
+            case MAP: {
+                Map<DataContainer, DataContainer> map = new HashMap<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    map.put(decode(in), decode(in));
+                }
+                return new MapContainer(map);
+            }
+            default:
+                throw new IOException("Unknown container type " + type);
+        }
+    }
+
+    private void encodeLiteral(DataOutput out, Literal literal) throws IOException {
+        if (literal.getClass() != Literal.class) { // Objective or resolved literals, which the sequencer doesn't make
+            throw new UnsupportedOperationException(literal.getClass().getName() + " cannot be precompiled");
+        }
+
+        if (literal.isEmpty()) {
+            out.writeByte(EMPTY);
+        } else if (literal.isString()) {
+            out.writeByte(STRING);
+            out.writeUTF(literal.getString());
+        } else if (literal.isNumber()) {
+            out.writeByte(NUMBER);
+            out.writeDouble(literal.getNumber());
+        } else if (literal.isBoolean()) {
+            out.writeByte(literal.getBoolean() ? TRUE : FALSE);
+        } else {
+            throw new UnsupportedOperationException("Literals of " + literal.getValue().get().getClass().getName() + " cannot be precompiled");
+        }
+    }
+}
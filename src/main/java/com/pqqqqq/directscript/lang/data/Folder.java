@@ -0,0 +1,386 @@
+package com.pqqqqq.directscript.lang.data;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.data.container.*;
+import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ConditionalExpressionContainer;
+import com.pqqqqq.directscript.lang.reader.Block;
+import com.pqqqqq.directscript.lang.reader.Line;
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.statement.generic.setters.ElseStatement;
+import com.pqqqqq.directscript.lang.statement.generic.setters.IfStatement;
+
+import java.util.*;
+
+/**
+ * A compile-time optimizer that folds {@link DataContainer} trees made only of {@link Literal}s into one shared literal,
+ * and prunes if branches whose conditions are known before the script ever runs
+ */
+public class Folder {
+    private static final Folder INSTANCE = new Folder();
+
+    private volatile boolean enabled = true;
+
+    private Folder() {
+    }
+
+    /**
+     * Gets the {@link Folder} instance
+     *
+     * @return the folder instance
+     */
+    public static Folder instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets whether constant folding is enabled
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether constant folding is enabled
+     *
+     * @param enabled the new value
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates a new folding {@link Pass}, which counts the nodes it folds
+     *
+     * @return the new pass
+     */
+    public Pass pass() {
+        return new Pass();
+    }
+
+    /**
+     * Prunes the branches of the {@link Script}'s if statements with constant conditions, and reports how many nodes were folded and lines pruned
+     *
+     * @param script the script
+     */
+    public void optimize(Script script) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        int folded = 0;
+        for (Line line : script.getLines()) {
+            folded += line.getContent().getFoldedNodes();
+        }
+
+        int pruned = prune(script);
+        if (folded > 0 || pruned > 0) {
+            DirectScript.instance().getLogger().info(String.format("Folded %d constant node(s) and pruned %d line(s) in script '%s' -> '%s'", folded, pruned, script.getScriptsFile().getStringRepresentation(), script.getName()));
+        }
+    }
+
+    int prune(Script script) { // Without optimize's log line, for tests
+        int pruned = 0, prunedUntil = -1;
+
+        for (Line line : script.getLines()) {
+            if (line.getScriptNumber() < prunedUntil || !(line.getStatement() instanceof IfStatement)) {
+                continue; // Already pruned, or not a branch
+            }
+
+            Boolean condition = getConstantCondition(line);
+            if (condition == null) {
+                continue;
+            }
+
+            Optional<Line> closingBrace = line.getClosingBrace();
+            if (!condition) { // The if block itself can never run
+                pruned += prune(line);
+                prunedUntil = closingBrace.isPresent() ? closingBrace.get().getScriptNumber() : prunedUntil;
+            } else { // None of the elses can ever run
+                while (closingBrace.isPresent() && closingBrace.get().getStatement() instanceof ElseStatement) {
+                    Line elseLine = closingBrace.get();
+                    pruned += prune(elseLine);
+
+                    closingBrace = elseLine.getClosingBrace();
+                    prunedUntil = closingBrace.isPresent() ? closingBrace.get().getScriptNumber() : prunedUntil;
+                }
+            }
+        }
+
+        return pruned;
+    }
+
+    private int prune(Line line) {
+        Optional<Block> internalBlock = line.getInternalBlock();
+        Optional<Line> closingBrace = line.getClosingBrace();
+        if (!internalBlock.isPresent() || !closingBrace.isPresent() || internalBlock.get().getLines().isEmpty()) {
+            return 0;
+        }
+
+        internalBlock.get().getLines().clear(); // Nested blocks are only reachable through these lines
+        return closingBrace.get().getScriptNumber() - line.getScriptNumber() - 1;
+    }
+
+    private Boolean getConstantCondition(Line line) {
+        List<DataContainer> containers = line.getContent().getContainers();
+        if (containers.size() != 1 || !(containers.get(0) instanceof Literal)) {
+            return null;
+        }
+
+        Literal condition = (Literal) containers.get(0);
+        try {
+            return condition.getBoolean();
+        } catch (RuntimeException e) {
+            return null; // Leave it to fail at runtime
+        }
+    }
+
+    /**
+     * A single folding pass, counting how many {@link DataContainer} nodes it folds
+     */
+    public class Pass {
+        private int folded = 0;
+
+        Pass() {
+        }
+
+        /**
+         * Gets the number of nodes folded by this pass
+         *
+         * @return the number of folded nodes
+         */
+        public int getFolded() {
+            return folded;
+        }
+
+        /**
+         * Folds the constant subtrees of a {@link DataContainer}, returning the container itself if nothing could be folded
+         *
+         * @param container the container
+         * @return the folded container
+         */
+        public DataContainer fold(DataContainer container) {
+            if (!isEnabled() || container == null || container instanceof Literal) {
+                return container;
+            }
+
+            if (container instanceof UnresolvableContainer) {
+                DataContainer inner = fold(((UnresolvableContainer) container).getDataContainer());
+                return inner == ((UnresolvableContainer) container).getDataContainer() ? container : new UnresolvableContainer(inner);
+            }
+
+            if (container instanceof AmnesiacContainer) { // Never constant, since its first run is empty
+                AmnesiacContainer amnesiacContainer = (AmnesiacContainer) container;
+                DataContainer sequence = fold(amnesiacContainer.getSequence());
+                return sequence == amnesiacContainer.getSequence() ? container : new AmnesiacContainer(sequence, amnesiacContainer.getStringSequence());
+            }
+
+            if (container instanceof EventVariableContainer) {
+                DataContainer eventVar = fold(((EventVariableContainer) container).getEventVar());
+                return eventVar == ((EventVariableContainer) container).getEventVar() ? container : new EventVariableContainer(eventVar);
+            }
+
+            if (container instanceof ArithmeticContainer) {
+                ArithmeticContainer arithmeticContainer = (ArithmeticContainer) container;
+                DataContainer firstTerm = fold(arithmeticContainer.getFirstTerm()), secondTerm = fold(arithmeticContainer.getSecondTerm());
+                if (firstTerm != arithmeticContainer.getFirstTerm() || secondTerm != arithmeticContainer.getSecondTerm()) {
+                    container = new ArithmeticContainer(firstTerm, secondTerm, arithmeticContainer.getOperator(), (String) arithmeticContainer.serialize());
+                }
+
+                return isConstant(firstTerm, secondTerm) ? constant(container) : container;
+            }
+
+            if (container instanceof ConditionalExpressionContainer) {
+                ConditionalExpressionContainer expression = foldTerms((ConditionalExpressionContainer) container);
+                return isConstant(expression.getFirstTerm(), expression.getSecondTerm()) ? constant(expression) : expression;
+            }
+
+            if (container instanceof ConditionContainer) {
+                return fold((ConditionContainer) container);
+            }
+
+            if (container instanceof NegateContainer) {
+                DataContainer inner = fold(((NegateContainer) container).getContainer());
+                if (inner != ((NegateContainer) container).getContainer()) {
+                    container = new NegateContainer(inner);
+                }
+
+                return isConstant(inner) ? constant(container) : container;
+            }
+
+            if (container instanceof NegativeContainer) {
+                DataContainer inner = fold(((NegativeContainer) container).getContainer());
+                if (inner != ((NegativeContainer) container).getContainer()) {
+                    container = new NegativeContainer(inner);
+                }
+
+                return isConstant(inner) ? constant(container) : container;
+            }
+
+            if (container instanceof TernaryOperatorContainer) {
+                TernaryOperatorContainer ternary = (TernaryOperatorContainer) container;
+                DataContainer condition = fold(ternary.getConditionContainer());
+
+                if (isConstant(condition)) {
+                    try {
+                        DataContainer branch = ((Literal) condition).getBoolean() ? ternary.getTrueContainer() : ternary.getFalseContainer();
+                        folded++;
+                        return fold(branch);
+                    } catch (RuntimeException e) { // Leave it to fail at runtime
+                    }
+                }
+
+                DataContainer trueContainer = fold(ternary.getTrueContainer()), falseContainer = fold(ternary.getFalseContainer());
+                if (condition != ternary.getConditionContainer() || trueContainer != ternary.getTrueContainer() || falseContainer != ternary.getFalseContainer()) {
+                    return new TernaryOperatorContainer(condition, trueContainer, falseContainer);
+                }
+
+                return container;
+            }
+
+            if (container instanceof IndexContainer) {
+                IndexContainer indexContainer = (IndexContainer) container;
+                DataContainer array = fold(indexContainer.getArray()), index = fold(indexContainer.getIndex());
+                if (array != indexContainer.getArray() || index != indexContainer.getIndex()) {
+                    container = new IndexContainer(array, index);
+                }
+
+                return isConstant(array, index) ? constant(container) : container;
+            }
+
+            if (container instanceof ArrayContainer) {
+                ArrayContainer arrayContainer = (ArrayContainer) container;
+                List<DataContainer> list = new ArrayList<>();
+                boolean changed = false;
+
+                for (DataContainer element : arrayContainer.getList()) {
+                    DataContainer foldedElement = fold(element);
+                    changed |= foldedElement != element;
+                    list.add(foldedElement);
+                }
+
+                if (changed) {
+                    container = new ArrayContainer(list, arrayContainer.isConcatenate());
+                }
+
+                return isConstant(list.toArray(new DataContainer[list.size()])) ? constant(container) : container;
+            }
+
+            if (container instanceof MapContainer) {
+                Map<DataContainer, DataContainer> map = new HashMap<>();
+                boolean changed = false, constant = true;
+
+                for (Map.Entry<DataContainer, DataContainer> entry : ((MapContainer) container).getMap().entrySet()) {
+                    DataContainer key = fold(entry.getKey()), value = fold(entry.getValue());
+                    changed |= key != entry.getKey() || value != entry.getValue();
+                    constant &= isConstant(key, value);
+                    map.put(key, value);
+                }
+
+                if (changed) {
+                    container = new MapContainer(map);
+                }
+
+                return constant ? constant(container) : container;
+            }
+
+            return container; // Variables, statements and the like can only be known at runtime
+        }
+
+        private DataContainer fold(ConditionContainer container) {
+            List<List<ConditionalExpressionContainer>> rows = new ArrayList<>();
+            boolean changed = false;
+
+            rowLoop:
+            for (ConditionalExpressionContainer[] row : container.getConditionExpressions()) {
+                List<ConditionalExpressionContainer> kept = new ArrayList<>();
+                ConditionalExpressionContainer lastTrue = null;
+
+                for (ConditionalExpressionContainer expression : row) {
+                    ConditionalExpressionContainer foldedExpression = foldTerms(expression);
+                    changed |= foldedExpression != expression;
+
+                    if (isConstant(foldedExpression.getFirstTerm(), foldedExpression.getSecondTerm())) {
+                        DataContainer result = constant(foldedExpression);
+                        if (result instanceof Literal) {
+                            changed = true;
+                            if (((Literal) result).getBoolean()) {
+                                lastTrue = foldedExpression; // Always true, so it can be skipped
+                                continue;
+                            }
+
+                            if (!kept.isEmpty()) { // The expressions before this one still need to run
+                                kept.add(foldedExpression);
+                                rows.add(kept);
+                            }
+                            continue rowLoop; // Always false, so the rest of the row can never pass
+                        }
+                    }
+
+                    kept.add(foldedExpression);
+                }
+
+                if (row.length == 0) {
+                    changed = true;
+                    continue; // Empty rows are always false
+                }
+
+                if (kept.isEmpty()) { // Always true, so no row after this one is ever reached
+                    if (rows.isEmpty()) {
+                        folded++;
+                        return Literal.Literals.TRUE;
+                    }
+
+                    kept.add(lastTrue);
+                    rows.add(kept);
+                    break;
+                }
+
+                rows.add(kept);
+            }
+
+            if (rows.isEmpty()) {
+                folded++;
+                return Literal.Literals.FALSE;
+            }
+
+            if (!changed) {
+                return container;
+            }
+
+            folded++;
+            return new ConditionContainer(rows);
+        }
+
+        private ConditionalExpressionContainer foldTerms(ConditionalExpressionContainer expression) {
+            DataContainer firstTerm = fold(expression.getFirstTerm()), secondTerm = fold(expression.getSecondTerm());
+            if (firstTerm == expression.getFirstTerm() && secondTerm == expression.getSecondTerm()) {
+                return expression;
+            }
+
+            return new ConditionalExpressionContainer(firstTerm, secondTerm, expression.getOperator());
+        }
+
+        private boolean isConstant(DataContainer... containers) {
+            for (DataContainer container : containers) {
+                if (!(container instanceof Literal) || ((Literal) container).getResolvedFrom().isPresent()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private DataContainer constant(DataContainer container) { // Resolves a container whose operands are all literals, without a context
+            try {
+                Literal literal = container.resolve(null);
+                folded++;
+                return literal;
+            } catch (RuntimeException e) {
+                return container; // Leave it to fail at runtime, where the line is reported
+            }
+        }
+    }
+}
@@ -5,11 +5,12 @@ import com.pqqqqq.directscript.lang.data.container.*;
 import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
 import com.pqqqqq.directscript.lang.data.container.expression.ConditionalExpressionContainer;
 import com.pqqqqq.directscript.lang.statement.Statements;
-import com.pqqqqq.directscript.lang.util.StringParser;
+import com.pqqqqq.directscript.lang.util.Lexer;
 
 import java.util.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Created by Kevin on 2015-06-02.
@@ -17,10 +18,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * may also parse a combination of literals. They are parsed to {@link Literal}s
  */
 public class Sequencer {
+    private static final String[] TERNARY_DELIMITERS = {"?", ":"};
     private static final String[][] LITERAL_DELIMITER_GROUPS = {{" + ", " - "}, {"*", "/", "%"}, {"^", "`"}}; // The +/- group is first since we want these split first, not last
     private static final String[][] CONDITION_DELIMITER_GROUPS = {{"==", "!=", "~", "!~", "<=", ">="}, {" < ", " > "}}; // Each in the same split group because equal priority. < and > in separate because <= and >= check first
+    private static final int TERNARY_LEVEL = 0, OR_LEVEL = 1, AND_LEVEL = 2, CONDITION_LEVEL = 3, LITERAL_LEVEL = CONDITION_LEVEL + CONDITION_DELIMITER_GROUPS.length; // Precedence levels, loosest first
     private static final Sequencer INSTANCE = new Sequencer();
     private final Condition conditionInstance = new Condition();
+    private final Precedence precedenceInstance = new Precedence();
+
+    private volatile Mode mode = Mode.PRECEDENCE;
 
     private Sequencer() {
     }
@@ -34,6 +40,24 @@ public class Sequencer {
         return INSTANCE;
     }
 
+    /**
+     * Gets the parsing {@link Mode} currently in use
+     *
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the parsing {@link Mode}
+     *
+     * @param mode the new mode
+     */
+    public void setMode(Mode mode) {
+        this.mode = checkNotNull(mode, "Mode cannot be null");
+    }
+
     /**
      * Parses a sequence into a {@link DataContainer}
      *
@@ -41,150 +65,493 @@ public class Sequencer {
      * @return the new data container
      */
     public DataContainer parse(String sequence) {
-        sequence = checkNotNull(sequence, "Sequence cannot be null").trim();
-        if (sequence.isEmpty()) {
+        Lexer.Tokens tokens = Lang.instance().lexer().tokenize(checkNotNull(sequence, "Sequence cannot be null"));
+        return parse(tokens, 0, tokens.length());
+    }
+
+    /**
+     * Parses a range of a {@link Lexer.Tokens tokenized} sequence into a {@link DataContainer}
+     *
+     * @param tokens the tokens
+     * @param from   the start index of the sequence
+     * @param to     the end index of the sequence
+     * @return the new data container
+     */
+    public DataContainer parse(Lexer.Tokens tokens, int from, int to) {
+        return (mode == Mode.LEGACY ? parseLegacy(tokens, from, to) : precedenceInstance.parse(tokens, from, to));
+    }
+
+    private DataContainer parseLegacy(Lexer.Tokens tokens, int from, int to) { // Finds the structure by trial splitting, tier by tier
+        from = tokens.trimStart(from, to);
+        to = tokens.trimEnd(from, to);
+        if (from >= to) {
             return Literal.Literals.empty();
         }
 
         // Get rid of brackets if they're still there
-        if (sequence.startsWith("(") && sequence.endsWith(")")) {
-            sequence = sequence.substring(1, sequence.length() - 1);
+        if (tokens.charAt(from) == '(' && tokens.matchingBracket(from) == to - 1) {
+            return parse(tokens, from + 1, to - 1);
         }
 
         // Check if it's a ternary operator
-        int questionMark = Lang.instance().stringParser().indexOf(sequence, "?");
-        int colon = Lang.instance().stringParser().indexOf(sequence, ":");
+        int questionMark = tokens.indexOf(from, to, TERNARY_DELIMITERS[0]);
+        int colon = (questionMark > -1 ? tokens.indexOf(questionMark, to, TERNARY_DELIMITERS[1]) : -1);
         if (questionMark > -1 && colon > -1) {
-            DataContainer conditionContainer = parse(sequence.substring(0, questionMark).trim());
-            DataContainer trueContainer = parse(sequence.substring(questionMark + 1, colon).trim());
-            DataContainer falseContainer = parse(sequence.substring(colon + 1).trim());
+            DataContainer conditionContainer = parse(tokens, from, questionMark);
+            DataContainer trueContainer = parse(tokens, questionMark + 1, colon);
+            DataContainer falseContainer = parse(tokens, colon + 1, to);
 
             return new TernaryOperatorContainer(conditionContainer, trueContainer, falseContainer);
         }
 
         // Check if it's a condition
-        Optional<DataContainer<Boolean>> conditionLiteral = conditionInstance.parse(sequence);
+        Optional<DataContainer<Boolean>> conditionLiteral = conditionInstance.parse(tokens, from, to);
         if (conditionLiteral.isPresent()) {
             return conditionLiteral.get();
         }
 
-        StringParser.SplitSequence triple = Lang.instance().stringParser().parseNextSequence(sequence, LITERAL_DELIMITER_GROUPS); // Split into ordered triple segments
-        if (triple == null || triple.getDelimiter() == null) { // Check if there's no split string
-            // Check trailing array/map index values
-            if (sequence.endsWith("]")) {
-                int index = Lang.instance().stringParser().lastIndexOf(sequence, "[");
-                if (index > -1) {
-                    return new IndexContainer(parse(sequence.substring(0, index)), parse(sequence.substring(index + 1, sequence.length() - 1)));
+        Lexer.Split split = tokens.nextSequence(from, to, LITERAL_DELIMITER_GROUPS); // Split into ordered segments
+        if (split == null) { // Check if there's no split string
+            return parseOperand(tokens, from, to);
+        }
+
+        return new ArithmeticContainer(parse(tokens, from, split.getBeforeEnd()), parse(tokens, split.getAfterStart(), to), split.getDelimiter(), tokens.substring(from, to));
+    }
+
+    // Parses a sequence with no top level operators, such as a variable, a literal or an index
+    private DataContainer parseOperand(Lexer.Tokens tokens, int from, int to) {
+        from = tokens.trimStart(from, to);
+        to = tokens.trimEnd(from, to);
+        if (from >= to) {
+            return Literal.Literals.empty();
+        }
+
+        // Brackets contain a whole new sequence
+        if (tokens.charAt(from) == '(' && tokens.matchingBracket(from) == to - 1) {
+            return parse(tokens, from + 1, to - 1);
+        }
+
+        // Check trailing array/map index values
+        if (tokens.charAt(to - 1) == ']') {
+            int index = tokens.matchingBracket(to - 1);
+            if (index >= from) {
+                return new IndexContainer(parseOperand(tokens, from, index), parse(tokens, index + 1, to - 1));
+            }
+        }
+
+        // Check if it's an array or map
+        if (tokens.charAt(from) == '{' && tokens.matchingBracket(from) == to - 1) {
+            int braceStart = from + 1, braceEnd = to - 1;
+
+            if (tokens.indexOf(braceStart, braceEnd, ":") > -1) { // Map
+                Map<DataContainer, DataContainer> map = new HashMap<>();
+                for (int[] mapEntry : tokens.split(braceStart, braceEnd, ",")) {
+                    int mapColon = tokens.indexOf(mapEntry[0], mapEntry[1], ":");
+                    checkState(mapColon > -1, "Map entries must have a key and a value");
+
+                    map.put(parse(tokens, mapEntry[0], mapColon), parse(tokens, mapColon + 1, mapEntry[1]));
                 }
+
+                return new MapContainer(map);
+            } else { // Array
+                List<DataContainer> array = new ArrayList<>();
+                for (int[] arrayValue : tokens.split(braceStart, braceEnd, ",")) {
+                    array.add(parse(tokens, arrayValue[0], arrayValue[1]));
+                }
+
+                return new ArrayContainer(array);
             }
+        }
 
-            // Check if it's an array or map
-            if (sequence.startsWith("{") && sequence.endsWith("}")) {
-                String trimBraces = sequence.substring(1, sequence.length() - 1);
+        // Check for <> (which means eventvar)
+        if (tokens.charAt(from) == '<' && tokens.charAt(to - 1) == '>') {
+            return new EventVariableContainer(parseOperand(tokens, from + 1, to - 1));
+        }
 
-                if (Lang.instance().stringParser().indexOf(trimBraces, ":") > -1) { // Map
-                    Map<DataContainer, DataContainer> map = new HashMap<>();
-                    for (String mapEntry : Lang.instance().stringParser().parseSplit(trimBraces, ",")) {
-                        int mapColon = Lang.instance().stringParser().indexOf(mapEntry, ":");
-                        map.put(parse(mapEntry.substring(0, mapColon)), parse(mapEntry.substring(mapColon + 1)));
-                    }
+        // Check leading exclamation points (negation)
+        boolean negate = false;
+        while (from < to && tokens.charAt(from) == '!') {
+            from++;
+            negate = !negate;
+        }
 
-                    return new MapContainer(map);
-                } else { // Array
-                    List<DataContainer> array = new ArrayList<>();
-                    for (String arrayValue : Lang.instance().stringParser().parseSplit(trimBraces, ",")) {
-                        array.add(parse(arrayValue));
+        if (negate) {
+            return new NegateContainer(parseOperand(tokens, from, to));
+        }
+
+        // Check leading subtraction signs (negatives)
+        boolean negative = false;
+        while (from < to && tokens.charAt(from) == '-') {
+            from++;
+            negative = !negative;
+        }
+
+        if (negative) {
+            return new NegativeContainer(parseOperand(tokens, from, to));
+        }
+
+        // Check for $ (which means the value of the variable)
+        if (tokens.charAt(from) == '$') {
+            return new VariableContainer(parseOperand(tokens, from + 1, to));
+        }
+
+        String sequence = tokens.substring(from, to);
+
+        // Check for # (which is a pointer, and reparse what's inside
+        if (tokens.charAt(from) == '#') {
+            return new AmnesiacContainer(parseOperand(tokens, from + 1, to), sequence);
+        }
+
+        // Check if it's a statement
+        if (Statements.getStatement(sequence).isPresent()) {
+            return new StatementContainer(Literal.fromObject(sequence));
+        }
+
+        // Check plain data
+        Optional<Literal<Object>> literal = Literal.fromSequence(sequence);
+        if (literal.isPresent()) {
+            return literal.get();
+        }
+
+        return new VariableContainer(Literal.fromObject(sequence)); // Worst comes to worst, assume its a variable container
+    }
+
+    /**
+     * An enumeration of the ways a {@link Sequencer} can work out the structure of a sequence
+     */
+    public enum Mode {
+        /**
+         * Finds all top level operators in one pass, then builds the same tree as {@link #LEGACY} from them, climbing
+         * precedence wherever a range only has arithmetic operators
+         */
+        PRECEDENCE,
+
+        /**
+         * Finds the structure by trial splitting each precedence tier and reparsing the segments
+         */
+        LEGACY;
+
+        /**
+         * Gets the {@link Mode} with the given name, ignoring case
+         *
+         * @param name the name
+         * @return the mode, or {@link Optional#empty()}
+         */
+        public static Optional<Mode> fromName(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return Optional.of(mode);
+                }
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    class Condition {
+        private Condition() {
+        }
+
+        Optional<DataContainer<Boolean>> parse(Lexer.Tokens tokens, int from, int to) {
+            List<int[]> splitOr = tokens.split(from, to, " or "); // 'Or' takes precedence over 'and'
+            List<List<ConditionalExpressionContainer>> mainExpressionList = new ArrayList<>();
+
+            for (int[] orCondition : splitOr) {
+                List<int[]> splitAnd = tokens.split(orCondition[0], orCondition[1], " and ");
+                List<ConditionalExpressionContainer> andExpressionList = new ArrayList<>();
+
+                for (int[] condition : splitAnd) {
+                    Lexer.Split split = tokens.nextSequence(condition[0], condition[1], CONDITION_DELIMITER_GROUPS);
+
+                    if (split == null) {
+                        return Optional.empty(); // Need exactly a left side and a right side
                     }
 
-                    return new ArrayContainer(array);
+                    // Get literals for these values
+                    DataContainer leftSideLiteral = Sequencer.this.parse(tokens, condition[0], split.getBeforeEnd());
+                    DataContainer rightSideLiteral = Sequencer.this.parse(tokens, split.getAfterStart(), condition[1]);
+                    String comparator = split.getDelimiter();
+
+                    andExpressionList.add(new ConditionalExpressionContainer(leftSideLiteral, rightSideLiteral, comparator));
                 }
+
+                mainExpressionList.add(andExpressionList);
+            }
+
+            return Optional.of(new ConditionContainer(mainExpressionList));
+        }
+    }
+
+    class Precedence {
+        private final String[] operators;
+        private final int[] levels;
+
+        private Precedence() {
+            List<String> operators = new ArrayList<>();
+            List<Integer> levels = new ArrayList<>();
+
+            addLevel(operators, levels, TERNARY_DELIMITERS, TERNARY_LEVEL);
+            addLevel(operators, levels, new String[]{" or "}, OR_LEVEL);
+            addLevel(operators, levels, new String[]{" and "}, AND_LEVEL);
+            for (int i = 0; i < CONDITION_DELIMITER_GROUPS.length; i++) {
+                addLevel(operators, levels, CONDITION_DELIMITER_GROUPS[i], CONDITION_LEVEL + i);
+            }
+            for (int i = 0; i < LITERAL_DELIMITER_GROUPS.length; i++) {
+                addLevel(operators, levels, LITERAL_DELIMITER_GROUPS[i], LITERAL_LEVEL + i);
             }
 
-            // Check for <> (which means eventvar)
-            if (sequence.startsWith("<") && sequence.endsWith(">")) {
-                return new EventVariableContainer(parse(sequence.substring(1, sequence.length() - 1)));
+            this.operators = operators.toArray(new String[operators.size()]);
+            this.levels = new int[levels.size()];
+            for (int i = 0; i < this.levels.length; i++) {
+                this.levels[i] = levels.get(i);
             }
+        }
 
-            // Check leading exclamation points (negation)
-            boolean negate = false;
-            while (sequence.startsWith("!")) {
-                sequence = sequence.substring(1);
-                negate = !negate;
+        private void addLevel(List<String> operators, List<Integer> levels, String[] group, int level) {
+            for (String operator : group) {
+                operators.add(operator);
+                levels.add(level);
             }
+        }
 
-            if (negate) {
-                return new NegateContainer(parse(sequence));
+        DataContainer parse(Lexer.Tokens tokens, int from, int to) {
+            from = tokens.trimStart(from, to);
+            to = tokens.trimEnd(from, to);
+            if (from >= to) {
+                return Literal.Literals.empty();
             }
 
-            // Check leading subtraction signs (negatives)
-            boolean negative = false;
-            while (sequence.startsWith("-")) {
-                sequence = sequence.substring(1);
-                negative = !negative;
+            // Get rid of brackets if they're still there
+            if (tokens.charAt(from) == '(' && tokens.matchingBracket(from) == to - 1) {
+                return parse(tokens, from + 1, to - 1);
             }
 
-            if (negative) {
-                return new NegativeContainer(parse(sequence));
+            Scan scan = scan(tokens, from, to);
+            return parseRange(tokens, scan, from, to, 0, scan.size());
+        }
+
+        // Finds every top level operator in the range in one pass, matching the longest operator at each index
+        private Scan scan(Lexer.Tokens tokens, int from, int to) {
+            List<Operator> list = new ArrayList<>();
+
+            int count = from;
+            while (count < to) {
+                int match = -1;
+                for (int i = 0; i < operators.length; i++) {
+                    if ((match < 0 || operators[i].length() > operators[match].length()) && tokens.matches(count, to, operators[i])) {
+                        match = i;
+                    }
+                }
+
+                if (match < 0) {
+                    count = tokens.next(count);
+                } else {
+                    list.add(new Operator(operators[match], levels[match], count));
+                    count += operators[match].length();
+                }
+            }
+
+            return new Scan(list);
+        }
+
+        // Parses a range whose top level operators are the scanned operators [first, last), making the same choices as the trial splitter
+        private DataContainer parseRange(Lexer.Tokens tokens, Scan scan, int from, int to, int first, int last) {
+            from = tokens.trimStart(from, to);
+            to = tokens.trimEnd(from, to);
+            if (from >= to) {
+                return Literal.Literals.empty();
             }
 
-            // Check for $ (which means the value of the variable)
-            if (sequence.startsWith("$")) {
-                return new VariableContainer(parse(sequence.substring(1)));
+            if (first >= last) {
+                return parseOperand(tokens, from, to); // Brackets are taken care of here too
             }
 
-            // Check for # (which is a pointer, and reparse what's inside
-            if (sequence.startsWith("#")) {
-                return new AmnesiacContainer(parse(sequence.substring(1)), sequence);
+            if (scan.isArithmetic(first, last)) {
+                return climb(tokens, scan, from, to, first, last, new int[]{first}, LITERAL_LEVEL);
             }
 
-            // Check if it's a statement
-            if (Statements.getStatement(sequence).isPresent()) {
-                return new StatementContainer(Literal.fromObject(sequence));
+            DataContainer ternary = parseTernary(tokens, scan, from, to, first, last);
+            if (ternary != null) {
+                return ternary;
             }
 
-            // Check plain data
-            Optional<Literal<Object>> literal = Literal.fromSequence(sequence);
-            if (literal.isPresent()) {
-                return literal.get();
+            DataContainer condition = parseCondition(tokens, scan, from, to, first, last);
+            if (condition != null) {
+                return condition;
             }
 
-            return new VariableContainer(Literal.fromObject(sequence)); // Worst comes to worst, assume its a variable container
+            return parseArithmetic(tokens, scan, from, to, first, last);
         }
 
-        return new ArithmeticContainer(parse(triple.getBeforeSegment()), parse(triple.getAfterSegment()), triple.getDelimiter(), sequence);
-    }
+        // The first question mark and the first colon after it, like the trial splitter, so a nested ternary operator in the true segment still needs brackets
+        private DataContainer parseTernary(Lexer.Tokens tokens, Scan scan, int from, int to, int first, int last) {
+            int questionMark = -1, colon = -1;
+            for (int i = first; i < last && colon < 0; i++) {
+                Operator operator = scan.get(i);
+                if (operator.getLevel() != TERNARY_LEVEL) {
+                    continue;
+                }
 
-    class Condition {
-        private Condition() {
+                if (questionMark < 0) {
+                    if (operator.getOperator().equals(TERNARY_DELIMITERS[0])) {
+                        questionMark = i;
+                    }
+                } else if (operator.getOperator().equals(TERNARY_DELIMITERS[1])) {
+                    colon = i;
+                }
+            }
+
+            if (colon < 0) {
+                return null;
+            }
+
+            Operator questionOperator = scan.get(questionMark), colonOperator = scan.get(colon);
+            DataContainer conditionContainer = parseRange(tokens, scan, from, questionOperator.getStart(), first, questionMark);
+            DataContainer trueContainer = parseRange(tokens, scan, questionOperator.getEnd(), colonOperator.getStart(), questionMark + 1, colon);
+            DataContainer falseContainer = parseRange(tokens, scan, colonOperator.getEnd(), to, colon + 1, last);
+
+            return new TernaryOperatorContainer(conditionContainer, trueContainer, falseContainer);
         }
 
-        Optional<DataContainer<Boolean>> parse(String sequence) {
-            String[] splitOr = Lang.instance().stringParser().parseSplit(sequence, " or "); // 'Or' takes precedence over 'and'
+        private DataContainer parseCondition(Lexer.Tokens tokens, Scan scan, int from, int to, int first, int last) {
+            // Find every segment's comparator, the last of the loosest condition level, before parsing any of them
+            List<Integer> comparators = new ArrayList<>();
+            int comparator = -1;
+            for (int i = first; i <= last; i++) {
+                int level = (i < last ? scan.get(i).getLevel() : OR_LEVEL);
+                if (level == OR_LEVEL || level == AND_LEVEL) {
+                    if (comparator < 0) {
+                        return null; // Every segment needs a left side and a right side
+                    }
+
+                    comparators.add(comparator);
+                    comparator = -1;
+                } else if (level >= CONDITION_LEVEL && level < LITERAL_LEVEL && (comparator < 0 || level <= scan.get(comparator).getLevel())) {
+                    comparator = i;
+                }
+            }
+
             List<List<ConditionalExpressionContainer>> mainExpressionList = new ArrayList<>();
+            List<ConditionalExpressionContainer> andExpressionList = new ArrayList<>();
+            int segmentStart = from, segmentOperator = first, segment = 0;
 
-            for (String orCondition : splitOr) {
-                String[] splitAnd = Lang.instance().stringParser().parseSplit(orCondition, " and ");
-                List<ConditionalExpressionContainer> andExpressionList = new ArrayList<>();
+            for (int i = first; i <= last; i++) {
+                Operator operator = (i < last ? scan.get(i) : null);
+                if (operator != null && operator.getLevel() != OR_LEVEL && operator.getLevel() != AND_LEVEL) {
+                    continue;
+                }
 
-                for (String condition : splitAnd) {
-                    StringParser.SplitSequence triple = Lang.instance().stringParser().parseNextSequence(condition, CONDITION_DELIMITER_GROUPS);
+                int segmentEnd = (operator == null ? to : operator.getStart());
+                int comparatorIndex = comparators.get(segment++);
+                Operator comparatorOperator = scan.get(comparatorIndex);
+                DataContainer leftSideLiteral = parseRange(tokens, scan, segmentStart, comparatorOperator.getStart(), segmentOperator, comparatorIndex);
+                DataContainer rightSideLiteral = parseRange(tokens, scan, comparatorOperator.getEnd(), segmentEnd, comparatorIndex + 1, i);
+                andExpressionList.add(new ConditionalExpressionContainer(leftSideLiteral, rightSideLiteral, comparatorOperator.getOperator()));
 
-                    if (triple == null || triple.getDelimiter() == null) {
-                        return Optional.empty(); // Need exactly a left side and a right side
-                    }
+                if (operator == null || operator.getLevel() == OR_LEVEL) {
+                    mainExpressionList.add(andExpressionList);
+                    andExpressionList = new ArrayList<>();
+                }
 
-                    // Get literals for these values
-                    DataContainer leftSideLiteral = Sequencer.this.parse(triple.getBeforeSegment());
-                    DataContainer rightSideLiteral = Sequencer.this.parse(triple.getAfterSegment());
-                    String comparator = triple.getDelimiter();
+                if (operator != null) {
+                    segmentStart = operator.getEnd();
+                    segmentOperator = i + 1;
+                }
+            }
 
-                    andExpressionList.add(new ConditionalExpressionContainer(leftSideLiteral, rightSideLiteral, comparator));
+            return new ConditionContainer(mainExpressionList);
+        }
+
+        // Splits at the last of the loosest arithmetic operators, and parses each side in full like the trial splitter does
+        private DataContainer parseArithmetic(Lexer.Tokens tokens, Scan scan, int from, int to, int first, int last) {
+            int split = -1;
+            for (int i = first; i < last; i++) {
+                int level = scan.get(i).getLevel();
+                if (level >= LITERAL_LEVEL && (split < 0 || level <= scan.get(split).getLevel())) {
+                    split = i;
                 }
+            }
 
-                mainExpressionList.add(andExpressionList);
+            if (split < 0) {
+                return parseOperand(tokens, from, to); // Any other operator is just part of an operand now
             }
 
-            return Optional.of(new ConditionContainer(mainExpressionList));
+            Operator operator = scan.get(split);
+            DataContainer firstTerm = parseRange(tokens, scan, from, operator.getStart(), first, split);
+            DataContainer secondTerm = parseRange(tokens, scan, operator.getEnd(), to, split + 1, last);
+            return new ArithmeticContainer(firstTerm, secondTerm, operator.getOperator(), tokens.substring(from, to));
+        }
+
+        // Climbs a range that only has arithmetic operators, so every term is a plain operand
+        private DataContainer climb(Lexer.Tokens tokens, Scan scan, int from, int to, int first, int last, int[] cursor, int minimumLevel) {
+            int termStart = (cursor[0] == first ? from : scan.get(cursor[0] - 1).getEnd());
+            int termEnd = (cursor[0] < last ? scan.get(cursor[0]).getStart() : to);
+            DataContainer term = parseOperand(tokens, termStart, termEnd);
+
+            while (cursor[0] < last && scan.get(cursor[0]).getLevel() >= minimumLevel) {
+                Operator operator = scan.get(cursor[0]++);
+                DataContainer secondTerm = climb(tokens, scan, from, to, first, last, cursor, operator.getLevel() + 1); // Left associative, like the trial splitter
+
+                termEnd = (cursor[0] < last ? scan.get(cursor[0]).getStart() : to);
+                int sequenceStart = tokens.trimStart(termStart, termEnd);
+                term = new ArithmeticContainer(term, secondTerm, operator.getOperator(), tokens.substring(sequenceStart, tokens.trimEnd(sequenceStart, termEnd)));
+            }
+
+            return term;
+        }
+    }
+
+    // The top level operators of a range, in order
+    private static class Scan {
+        private final Operator[] operators;
+        private final int[] nonArithmetic; // How many of the first i operators aren't arithmetic
+
+        Scan(List<Operator> operators) {
+            this.operators = operators.toArray(new Operator[operators.size()]);
+            this.nonArithmetic = new int[this.operators.length + 1];
+            for (int i = 0; i < this.operators.length; i++) {
+                this.nonArithmetic[i + 1] = this.nonArithmetic[i] + (this.operators[i].getLevel() < LITERAL_LEVEL ? 1 : 0);
+            }
+        }
+
+        int size() {
+            return operators.length;
+        }
+
+        Operator get(int index) {
+            return operators[index];
+        }
+
+        boolean isArithmetic(int first, int last) {
+            return nonArithmetic[last] == nonArithmetic[first];
+        }
+    }
+
+    private static class Operator {
+        private final String operator;
+        private final int level;
+        private final int start;
+
+        Operator(String operator, int level, int start) {
+            this.operator = operator;
+            this.level = level;
+            this.start = start;
+        }
+
+        String getOperator() {
+            return operator;
+        }
+
+        int getLevel() {
+            return level;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getEnd() {
+            return start + operator.length();
         }
     }
 }
@@ -51,6 +51,15 @@ public class ArrayContainer implements DataContainer<List<Literal>> {
         return list;
     }
 
+    /**
+     * Gets whether resolved arrays in this {@link ArrayContainer} are concatenated into it
+     *
+     * @return true if concatenated
+     */
+    public boolean isConcatenate() {
+        return concatenate;
+    }
+
     @Override
     public Literal<List<Literal>> resolve(Context ctx) {
         List<Literal> list = new ArrayList<>();
@@ -1,10 +1,12 @@
 package com.pqqqqq.directscript.lang.data.container;
 
+import com.pqqqqq.directscript.lang.Lang;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
 import com.pqqqqq.directscript.lang.reader.Line;
 import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.util.Lexer;
 
 import java.util.Optional;
 
@@ -14,6 +16,7 @@ import java.util.Optional;
  */
 public class StatementContainer implements DataContainer {
     private final DataContainer statement;
+    private volatile Line.Content content = null; // Parsed on the first resolve
 
     /**
      * Creates a new {@link StatementContainer} instance with the given statement in string form
@@ -38,10 +41,27 @@ public class StatementContainer implements DataContainer {
         Optional<Block.BlockRunnable> blockRunnable = ctx.getScriptInstance().getCurrentRunnable();
         Line currentLine = (blockRunnable.isPresent() ? blockRunnable.get().getCurrentLine() : ctx.getLine());
 
-        Line line = Line.fromLine(currentLine, getStatement().resolve(ctx).getString());
+        Line line = Line.fromLine(currentLine, getContent(ctx));
 
         Statement.Result result = line.toContext(ctx.getScriptInstance()).run();
         Optional<Literal> datumOptional = result.getLiteralResult();
         return datumOptional.orElse(Literal.Literals.empty());
     }
+
+    private Line.Content getContent(Context ctx) {
+        Line.Content content = this.content;
+        if (content != null) {
+            return content;
+        }
+
+        String text = getStatement().resolve(ctx).getString();
+        content = Line.compile(text);
+
+        Lexer.Tokens tokens = Lang.instance().lexer().tokenize(text);
+        if (getStatement() instanceof Literal && tokens.indexOf(0, tokens.length(), "#", true) == -1) { // Pointers are parsed again on each run, so they stay amnesiac
+            this.content = content;
+        }
+
+        return content;
+    }
 }
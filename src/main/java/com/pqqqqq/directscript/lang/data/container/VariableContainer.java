@@ -2,7 +2,9 @@ package com.pqqqqq.directscript.lang.data.container;
 
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.env.Variable;
+import com.pqqqqq.directscript.lang.data.env.VariableSlots;
 import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
 
 /**
  * Created by Kevin on 2015-06-17.
@@ -10,8 +12,11 @@ import com.pqqqqq.directscript.lang.reader.Context;
  */
 public class VariableContainer implements ValueContainer {
     private final DataContainer variableName;
+    private final String literalName; // Resolved once, if the name is a literal
     private final boolean createNew;
 
+    private volatile Slot slot = null; // The slot of a literal name, assigned when its script compiles
+
     /**
      * Creates a new {@link VariableContainer} with the given {@link Variable}'s name that errors when no variable is given
      *
@@ -28,6 +33,7 @@ public class VariableContainer implements ValueContainer {
      */
     public VariableContainer(DataContainer variableName, boolean createNew) {
         this.variableName = variableName;
+        this.literalName = variableName instanceof Literal ? ((Literal<?>) variableName).getString() : null;
         this.createNew = createNew;
     }
 
@@ -49,6 +55,18 @@ public class VariableContainer implements ValueContainer {
         return createNew;
     }
 
+    /**
+     * Assigns the name of this container its slot in the given {@link VariableSlots}, so it's read with a single index into the slots of an environment rather than by name
+     *
+     * @param variableSlots the variable slots of the script this container is in
+     * @see com.pqqqqq.directscript.lang.script.Script#compile()
+     */
+    public void assignSlot(VariableSlots variableSlots) {
+        if (literalName != null) {
+            this.slot = new Slot(variableSlots, variableSlots.assign(literalName));
+        }
+    }
+
     @Override
     public Literal resolve(Context ctx) {
         Variable dataHolder = resolveValue(ctx);
@@ -57,12 +75,32 @@ public class VariableContainer implements ValueContainer {
 
     @Override
     public Variable resolveValue(Context ctx) {
-        String name = getVariableName().resolve(ctx).getString();
+        String name = literalName != null ? literalName : getVariableName().resolve(ctx).getString();
+        ScriptInstance scriptInstance = ctx.getScriptInstance();
+        Slot slot = this.slot; // Read once, so the index always belongs to the slots it's checked against
+
+        if (slot == null || slot.variableSlots != scriptInstance.getVariableSlots()) { // Names that aren't known until now, or lines that weren't compiled with the script
+            if (doCreateNew()) {
+                return scriptInstance.getOrCreate(name);
+            } else {
+                return scriptInstance.getVariable(name).orElse(null);
+            }
+        }
 
         if (doCreateNew()) {
-            return ctx.getScriptInstance().getOrCreate(name);
+            return scriptInstance.getOrCreate(slot.variableSlots, slot.index, name);
         } else {
-            return ctx.getScriptInstance().getVariable(name).orElse(null);
+            return scriptInstance.getVariable(slot.variableSlots, slot.index, name).orElse(null);
+        }
+    }
+
+    private static final class Slot { // Published whole, through the one volatile field
+        private final VariableSlots variableSlots;
+        private final int index;
+
+        Slot(VariableSlots variableSlots, int index) {
+            this.variableSlots = variableSlots;
+            this.index = index;
         }
     }
 }
@@ -41,10 +41,18 @@ public class ConditionalExpressionContainer extends ExpressionContainer<Boolean>
 
     @Override
     public Literal<Boolean> resolve(Context ctx) {
-        Literal firstTerm = getFirstTerm().resolve(ctx);
-        Literal secondTerm = getSecondTerm().resolve(ctx);
-        ComparativeOperator comparator = getOperator();
+        return compare(getFirstTerm().resolve(ctx), getSecondTerm().resolve(ctx), getOperator());
+    }
 
+    /**
+     * Compares two resolved {@link Literal} terms with a {@link ComparativeOperator}
+     *
+     * @param firstTerm  the first term (left)
+     * @param secondTerm the second term (right)
+     * @param comparator the operator
+     * @return the boolean literal result
+     */
+    public static Literal<Boolean> compare(Literal firstTerm, Literal secondTerm, ComparativeOperator comparator) {
         if (firstTerm.isEmpty() && secondTerm.isEmpty()) {
             return comparator.isNegative() ? Literal.Literals.FALSE : Literal.Literals.TRUE;
         } else if (firstTerm.isEmpty() && !secondTerm.isEmpty() || secondTerm.isEmpty() && !firstTerm.isEmpty()) {
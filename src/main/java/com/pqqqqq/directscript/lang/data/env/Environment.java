@@ -1,9 +1,7 @@
 package com.pqqqqq.directscript.lang.data.env;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -13,20 +11,23 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public abstract class Environment implements Iterable<Variable> {
     private final Environment parent;
-    private final Set<Variable> variables = new HashSet<>();
-    boolean suppressNotifications = false;
-    private Environment daughter = null;
+    private final VariableSlots variableSlots;
+    private final Map<String, Variable> variables = new ConcurrentHashMap<>(); // Reads never lock, since globals are read by every running script
+    volatile boolean suppressNotifications = false;
+    private volatile Variable[] slots; // The variable each slot resolves to from here, inherited from the parent when this environment was made
 
     protected Environment() {
         this(null);
     }
 
     protected Environment(Environment parent) {
-        this.parent = parent;
+        this(parent, null);
+    }
 
-        if (this.parent != null) {
-            this.parent.setDaughter(this);
-        }
+    protected Environment(Environment parent, VariableSlots variableSlots) {
+        this.parent = parent;
+        this.variableSlots = variableSlots;
+        this.slots = inheritSlots();
     }
 
     /**
@@ -39,47 +40,42 @@ public abstract class Environment implements Iterable<Variable> {
     }
 
     /**
-     * Gets this {@link Environment}'s daughter
-     * @return the daughter
+     * Gets the {@link VariableSlots} that index this environment's {@link Variable}s, if it runs a script
+     *
+     * @return the variable slots, or null if none
      */
-    public Environment getDaughter() {
-        return daughter;
-    }
-
-    void setDaughter(Environment daughter) {
-        this.daughter = daughter;
+    public VariableSlots getVariableSlots() {
+        return variableSlots;
     }
 
     /**
-     * Safely adds a new {@link Variable} to the variable {@link Set}
+     * Safely adds a new {@link Variable} to this environment, replacing any with the same name
      *
      * @param variable the new variable to add
      * @return the variable
      */
     public Variable addVariable(Variable variable) {
-        synchronized (variables) {
-            checkState(Variable.namePattern().matcher(variable.getName()).matches(), "This variable name (" + variable.getName() + ") has illegal characters (only alphanumeric/period and must start with alphabetic).");
-            checkState(!Variable.illegalNames().matcher(variable.getName()).matches(), variable.getName() + " is an illegal name.");
+        checkState(Variable.namePattern().matcher(variable.getName()).matches(), "This variable name (" + variable.getName() + ") has illegal characters (only alphanumeric/period and must start with alphabetic).");
+        checkState(!Variable.illegalNames().matcher(variable.getName()).matches(), variable.getName() + " is an illegal name.");
 
-            //if (getVariableHere(variable.getName()).isPresent()) {
-            //    return null;
-            //}
-
-            suppressNotifications = true;
-            removeVariableHere(variable.getName()); // Remove the variable if it exists
-            suppressNotifications = false; // Suppress, because we'll be saving again in one second
+        Variable replaced = this.variables.put(variable.getName(), variable); // Replaces the variable if it exists
+        if (replaced != null) {
+            replaced.remove();
+        }
 
-            this.variables.add(variable);
-            if (!suppressNotifications) {
-                notifyChange();
-            }
+        if (variableSlots != null) {
+            setSlot(variableSlots.getSlot(variable.getName()), variable);
+        }
 
-            return variable;
+        if (!suppressNotifications) {
+            notifyChange(variable.getName());
         }
+
+        return variable;
     }
 
     /**
-     * Gets a {@link Optional} {@link Variable} by its corresponding name, or checks its parent and daughters
+     * Gets a {@link Optional} {@link Variable} by its corresponding name, or checks the parents of the {@link #getTop() top}
      *
      * @param name the name of the variable
      * @return the optional variable
@@ -88,6 +84,20 @@ public abstract class Environment implements Iterable<Variable> {
         return getTop().getVariableLoad(name);
     }
 
+    /**
+     * <p>Gets a {@link Optional} {@link Variable} by its slot in the given {@link VariableSlots}, or checks the parents of the {@link #getTop() top}.</p>
+     * <p>If the top is indexed by the same slots, this is a single read of its slot array, which holds the variables of its parents as well as its own.
+     * Names it has no variable for there, such as public variables or those declared after it was made, are looked up by name.</p>
+     *
+     * @param variableSlots the variable slots the slot belongs to
+     * @param slot          the slot of the variable
+     * @param name          the name of the variable
+     * @return the optional variable
+     */
+    public Optional<Variable> getVariable(VariableSlots variableSlots, int slot, String name) {
+        return getTop().getVariableLoad(variableSlots, slot, name);
+    }
+
     /**
      * Gets a {@link Variable}, or creates a new one if none exist
      *
@@ -95,12 +105,27 @@ public abstract class Environment implements Iterable<Variable> {
      * @return the variable
      */
     public Variable getOrCreate(String name) {
-        return getVariable(name).orElseGet(() -> {
-            // Supply new variable by default
-            Variable newVariable = new Variable(name, this);
-            addVariable(newVariable); // Add to environment
-            return newVariable;
-        });
+        return getVariable(name).orElseGet(() -> create(name));
+    }
+
+    /**
+     * Gets a {@link Variable} by its slot in the given {@link VariableSlots}, or creates a new one if none exist
+     *
+     * @param variableSlots the variable slots the slot belongs to
+     * @param slot          the slot of the variable
+     * @param name          the name of the variable
+     * @return the variable
+     * @see #getVariable(VariableSlots, int, String)
+     */
+    public Variable getOrCreate(VariableSlots variableSlots, int slot, String name) {
+        return getVariable(variableSlots, slot, name).orElseGet(() -> create(name));
+    }
+
+    private Variable create(String name) {
+        // Supply new variable by default
+        Variable newVariable = new Variable(name, this);
+        addVariable(newVariable); // Add to environment
+        return newVariable;
     }
 
     Optional<Variable> getVariableLoad(String name) {
@@ -113,16 +138,43 @@ public abstract class Environment implements Iterable<Variable> {
         return result;
     }
 
-    Optional<Variable> getVariableHere(String name) {
-        synchronized (variables) {
-            for (Variable variable : this) {
-                if (variable.getName().equals(name)) {
-                    return Optional.of(variable);
-                }
+    Optional<Variable> getVariableLoad(VariableSlots variableSlots, int slot, String name) {
+        if (variableSlots == this.variableSlots) {
+            Variable[] slots = this.slots;
+            Variable variable = slot < slots.length ? slots[slot] : null;
+            if (variable != null && !variable.isRemoved()) {
+                return Optional.of(variable);
             }
+        }
+
+        return getVariableLoad(name);
+    }
+
+    Optional<Variable> getVariableHere(String name) {
+        return Optional.ofNullable(variables.get(name));
+    }
+
+    private Variable[] inheritSlots() { // What the parent resolves each slot to, if it's indexed by the same slots
+        if (variableSlots == null) {
+            return new Variable[0];
+        }
+
+        Variable[] inherited = parent != null && parent.variableSlots == variableSlots ? parent.slots : new Variable[0];
+        return Arrays.copyOf(inherited, Math.max(inherited.length, variableSlots.size()));
+    }
+
+    private synchronized void setSlot(int slot, Variable variable) { // Only writes lock, reads see the new array through its volatile field
+        if (slot < 0) {
+            return; // Not a name the script reads by slot
+        }
 
-            return Optional.empty();
+        Variable[] slots = this.slots;
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slot + 1, slots.length * 2)); // Slots were assigned after this environment was made
         }
+
+        slots[slot] = variable;
+        this.slots = slots; // Publish
     }
 
     /**
@@ -148,13 +200,17 @@ public abstract class Environment implements Iterable<Variable> {
     }
 
     boolean removeVariableHere(String name) {
-        synchronized (variables) {
-            if (variables.removeIf((variable) -> variable.getName().equals(name))) {
-                if (!suppressNotifications) {
-                    notifyChange();
-                }
-                return true;
+        Variable removed = variables.remove(name);
+        if (removed != null) {
+            removed.remove(); // Environments made from this one may still hold it in their slots
+            if (variableSlots != null) {
+                setSlot(variableSlots.getSlot(name), parent == null ? null : parent.getVariableLoad(name).orElse(null));
+            }
+
+            if (!suppressNotifications) {
+                notifyChange(name);
             }
+            return true;
         }
 
         return false;
@@ -164,20 +220,24 @@ public abstract class Environment implements Iterable<Variable> {
      * Clears all {@link Variable}s in this environment
      */
     public void clear() {
-        synchronized (variables) {
+        synchronized (this) {
+            if (!suppressNotifications) {
+                variables.keySet().forEach(this::notifyChange);
+            }
+
+            this.variables.values().forEach(Variable::remove);
             this.variables.clear();
+            this.slots = inheritSlots();
         }
     }
 
     /**
-     * Gets the top of the {@link Environment} chain
+     * <p>Gets the top of the {@link Environment} chain, where lookups through this environment start.</p>
+     * <p>Environments are only linked to their parents, so this is the environment itself unless overridden (eg by an executing frame).</p>
      *
      * @return the top
      */
     public Environment getTop() {
-        if (daughter != null) {
-            return daughter.getTop();
-        }
         return this;
     }
 
@@ -193,7 +253,12 @@ public abstract class Environment implements Iterable<Variable> {
         return this;
     }
 
-    protected void notifyChange() {
+    /**
+     * Notifies this environment that a {@link Variable} in it was added, changed or removed
+     *
+     * @param name the name of the variable
+     */
+    protected void notifyChange(String name) {
     }
 
     protected void suppressNotifications(boolean suppressNotifications) {
@@ -202,6 +267,6 @@ public abstract class Environment implements Iterable<Variable> {
 
     @Override
     public Iterator<Variable> iterator() {
-        return this.variables.iterator();
+        return this.variables.values().iterator();
     }
 }
@@ -24,6 +24,7 @@ public class Variable<T, H extends Datum<T>> extends DataHolder<T, H> {
     private final Environment environment;
 
     private Optional<Literal.Types> typesOptional;
+    private volatile boolean removed = false; // Environments copy their parents' slots, so a removed variable is only dropped from its own
 
     /**
      * Creates a new variable with the corresponding name that has a value of {@link Literal.Literals#empty()}
@@ -107,6 +108,14 @@ public class Variable<T, H extends Datum<T>> extends DataHolder<T, H> {
         return environment;
     }
 
+    boolean isRemoved() {
+        return removed;
+    }
+
+    void remove() {
+        this.removed = true;
+    }
+
     /**
      * <p>Gets the explicit {@link Literal.Types type} of this variable.</p>
      * <p>Types in variables are used for explicit type casting, and are therefore not necessary ({@link Optional})</p>
@@ -127,7 +136,7 @@ public class Variable<T, H extends Datum<T>> extends DataHolder<T, H> {
             forceData(datum);
         } finally {
             if (unequal && !this.environment.suppressNotifications) {
-                this.environment.notifyChange();
+                this.environment.notifyChange(getName());
             }
         }
     }
@@ -0,0 +1,44 @@
+package com.pqqqqq.directscript.lang.data.env;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A table of the {@link Variable} names in a script, each with a slot index into the {@link Environment}s that run it.</p>
+ * <p>Slots are assigned when the script compiles, to the names its lines read and write. Names only known once it runs have none, and are looked up by name.</p>
+ */
+public class VariableSlots {
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Assigns the given {@link Variable} name the next slot index, if it has none yet
+     *
+     * @param name the name
+     * @return the slot index
+     */
+    public int assign(String name) {
+        return slots.computeIfAbsent(name, (key) -> size.getAndIncrement());
+    }
+
+    /**
+     * Gets the slot index for the given {@link Variable} name
+     *
+     * @param name the name
+     * @return the slot index, or -1 if the name wasn't assigned one
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the number of slots assigned so far
+     *
+     * @return the size
+     */
+    public int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,21 @@
+package com.pqqqqq.directscript.lang.exception;
+
+import com.pqqqqq.directscript.lang.exception.state.ExecutionException;
+
+/**
+ * An exception that aborts a running script, and every script that called it, once it's exceeded one of its limits
+ *
+ * @see com.pqqqqq.directscript.lang.script.Limits
+ */
+public class ScriptAbortedException extends ExecutionException {
+
+    /**
+     * Creates a script aborted exception using {@link String#format(String, Object...)}
+     *
+     * @param message the message
+     * @param args    the formatting arguments
+     */
+    public ScriptAbortedException(String message, Object... args) {
+        super(message, args);
+    }
+}
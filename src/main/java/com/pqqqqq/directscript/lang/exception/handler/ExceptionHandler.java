@@ -71,8 +71,10 @@ public class ExceptionHandler {
      * @param e the error
      */
     public void log(Throwable e) {
-        writer.print(timestamp() + ": ");
-        e.printStackTrace(writer);
+        synchronized (writer) { // Keep the timestamp with its trace, errors can be logged while files are parsed in parallel
+            writer.print(timestamp() + ": ");
+            e.printStackTrace(writer);
+        }
     }
 
     /**
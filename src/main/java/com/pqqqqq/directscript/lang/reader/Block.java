@@ -1,8 +1,11 @@
 package com.pqqqqq.directscript.lang.reader;
 
+import com.google.common.base.Predicate;
 import com.pqqqqq.directscript.lang.Lang;
 import com.pqqqqq.directscript.lang.data.env.Environment;
+import com.pqqqqq.directscript.lang.exception.ScriptAbortedException;
 import com.pqqqqq.directscript.lang.exception.state.ExecutionException;
+import com.pqqqqq.directscript.lang.script.Script;
 import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.statement.Statement;
 import com.pqqqqq.directscript.lang.statement.generic.setters.BreakStatement;
@@ -20,6 +23,10 @@ public class Block implements Iterable<Line> {
     private final int depthOffset;
     private final List<Line> lines = new ArrayList<>();
 
+    // Fixed by compile
+    private Instruction[] runtimeInstructions = null;
+    private Instruction[] compileTimeInstructions = null;
+
     /**
      * Creates an empty {@link Block} with the given depth offset
      *
@@ -59,7 +66,53 @@ public class Block implements Iterable<Line> {
     }
 
     /**
-     * Converts this {@link Block} into a executable {@link Block.BlockRunnable} with the given {@link ScriptInstance}
+     * <p>Compiles the lines this {@link Block} runs directly into {@link Instruction}s, for both the runtime and compile time predicates.</p>
+     * <p>Nested lines are left out, and each break and continue jumps out of this block only.</p>
+     */
+    public void compile() {
+        this.runtimeInstructions = compile(Script.runtimePredicate());
+        this.compileTimeInstructions = compile(Script.compileTimePredicate());
+    }
+
+    private Instruction[] compile(Predicate<Line> predicate) {
+        List<Instruction> instructions = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.getDepthOffset() == getDepthOffset() && predicate.apply(line)) {
+                Statement<?> statement = line.getStatement();
+
+                // Break and continue get special treatment
+                if (statement instanceof BreakStatement) {
+                    instructions.add(new Instruction(line, ScriptInstance.Result.FAILURE_BREAK));
+                } else if (statement instanceof ContinueStatement) {
+                    instructions.add(new Instruction(line, ScriptInstance.Result.FAILURE_CONTINUE));
+                } else {
+                    instructions.add(new Instruction(line, null));
+                }
+            }
+        }
+
+        return instructions.toArray(new Instruction[instructions.size()]);
+    }
+
+    /**
+     * Gets the {@link Instruction}s this {@link Block} runs for the given predicate, which are fixed by {@link #compile()} for the runtime and compile time predicates
+     *
+     * @param predicate the line predicate
+     * @return the instructions
+     */
+    public Instruction[] getInstructions(Predicate<Line> predicate) {
+        if (predicate == Script.runtimePredicate() && runtimeInstructions != null) {
+            return runtimeInstructions;
+        } else if (predicate == Script.compileTimePredicate() && compileTimeInstructions != null) {
+            return compileTimeInstructions;
+        }
+
+        return compile(predicate);
+    }
+
+    /**
+     * <p>Converts this {@link Block} into a executable {@link Block.BlockRunnable} with the given {@link ScriptInstance}.</p>
+     * <p>The runnable's parent is the block running on this thread when it is created, so it can later run on any thread.</p>
      *
      * @param scriptInstance the script instance
      * @return the block runnable
@@ -76,13 +129,17 @@ public class Block implements Iterable<Line> {
     /**
      * The main {@link Runnable} {@link Environment} class for Blocks
      */
-    public class BlockRunnable extends Environment implements Runnable {
+    public class BlockRunnable extends Environment implements Runnable, ScriptInstance.Resumable {
         private final ScriptInstance scriptInstance;
 
         private Line currentLine = null;
 
+        // Where a time sliced run suspended this runnable
+        private int resumeIndex = 0;
+        private boolean resumeLine = false;
+
         BlockRunnable(ScriptInstance scriptInstance) {
-            super((scriptInstance.getCurrentRunnable().isPresent() ? scriptInstance.getCurrentRunnable().get() : scriptInstance));
+            super((scriptInstance.getCurrentRunnable().isPresent() ? scriptInstance.getCurrentRunnable().get() : scriptInstance), scriptInstance.getVariableSlots());
             this.scriptInstance = scriptInstance;
         }
 
@@ -100,34 +157,63 @@ public class Block implements Iterable<Line> {
          * @return the {@link ScriptInstance.Result Result}
          */
         public ScriptInstance.Result execute() {
-            Optional<BlockRunnable> oldBlockRunnable = checkNotNull(scriptInstance, "Script instance cannot be null").getCurrentRunnable();
+            return execute(0, false);
+        }
+
+        /**
+         * Carries on executing the {@link Block} from the instruction a time sliced run suspended it at
+         *
+         * @return the {@link ScriptInstance.Result Result}
+         */
+        @Override
+        public ScriptInstance.Result resume() {
+            return execute(resumeIndex, resumeLine);
+        }
+
+        private ScriptInstance.Result execute(int start, boolean resumeLine) {
+            checkNotNull(scriptInstance, "Script instance cannot be null").pushFrame(this);
 
             try {
-                scriptInstance.setCurrentRunnable(Optional.of(this));
-                for (Line line : Block.this) {
+                if (!resumeLine && start == 0 && scriptInstance.step()) { // Once per loop iteration, even for empty bodies
+                    return suspend(0, false);
+                }
+
+                Instruction[] instructions = getInstructions(scriptInstance.getLinePredicate());
+                for (int i = start; i < instructions.length; i++) {
+                    Instruction instruction = instructions[i];
+                    Line line = instruction.getLine();
                     currentLine = line;
                     try {
-                        if (scriptInstance.getReturnValue().isPresent()) {
-                            return ScriptInstance.Result.SUCCESS; // Return if execution is halted
-                        }
-
-                        if (line.getDepthOffset() == getDepthOffset() && scriptInstance.getLinePredicate().apply(line)) {
-                            Statement<?> statement = line.getStatement();
+                        if (resumeLine && i == start) {
+                            scriptInstance.resumeNext(); // The block the line was running when it suspended
+                        } else {
+                            if (scriptInstance.step()) {
+                                return suspend(i, false);
+                            }
 
-                            // Break and continue get special treatment
-                            if (statement instanceof BreakStatement) {
-                                return ScriptInstance.Result.FAILURE_BREAK;
+                            if (scriptInstance.getReturnValue().isPresent()) {
+                                return ScriptInstance.Result.SUCCESS; // Return if execution is halted
                             }
 
-                            if (statement instanceof ContinueStatement) {
-                                return ScriptInstance.Result.FAILURE_CONTINUE;
+                            if (instruction.getJump().isPresent()) {
+                                return instruction.getJump().get();
                             }
 
                             Context ctx = line.toContext(scriptInstance);
                             ctx.run();
-                            scriptInstance.getContextSet().add(ctx); // Add to context set
+                            scriptInstance.putResult(ctx); // Keep the line's latest result
+                        }
+
+                        if (scriptInstance.isSuspending()) { // Suspended in a block the line runs
+                            return suspend(i, true);
                         }
+                    } catch (ScriptAbortedException e) {
+                        throw e; // Not just this line, but the whole run
                     } catch (Throwable e) {
+                        if (scriptInstance.getScript().isBound()) { // Make its contexts as before from now on
+                            Lang.instance().compiler().unbind(scriptInstance.getScript());
+                        }
+
                         Lang.instance().exceptionHandler().log(new ExecutionException(e, "Error in script '%s' -> '%s' at line #%d (script line #%d): ", scriptInstance.getScript().getScriptsFile().getStringRepresentation(), scriptInstance.getScript().getName(), line.getAbsoluteNumber(), line.getScriptNumber()));
                         Lang.instance().exceptionHandler().flush();
                         return ScriptInstance.Result.FAILURE_ERROR; // Stop running of script
@@ -136,13 +222,56 @@ public class Block implements Iterable<Line> {
 
                 return ScriptInstance.Result.SUCCESS;
             } finally {
-                scriptInstance.setCurrentRunnable(oldBlockRunnable);
+                scriptInstance.popFrame();
             }
         }
 
+        private ScriptInstance.Result suspend(int index, boolean line) { // Saves where it is, and returns through the blocks above
+            this.resumeIndex = index;
+            this.resumeLine = line;
+            scriptInstance.suspend(this);
+            return ScriptInstance.Result.SUSPENDED;
+        }
+
         @Override
         public void run() {
-            execute();
+            try {
+                execute();
+            } catch (ScriptAbortedException e) { // A scheduled block of a run that was aborted
+                Lang.instance().exceptionHandler().log(e);
+                Lang.instance().exceptionHandler().flush();
+            }
+        }
+    }
+
+    /**
+     * A {@link Line} compiled into a {@link Block}, which either runs the line or jumps out of the block
+     */
+    public static class Instruction {
+        private final Line line;
+        private final Optional<ScriptInstance.Result> jump;
+
+        Instruction(Line line, ScriptInstance.Result jump) {
+            this.line = line;
+            this.jump = Optional.ofNullable(jump);
+        }
+
+        /**
+         * Gets the {@link Line} for this instruction
+         *
+         * @return the line
+         */
+        public Line getLine() {
+            return line;
+        }
+
+        /**
+         * Gets the {@link Optional} {@link ScriptInstance.Result} this instruction jumps with, {@link ScriptInstance.Result#FAILURE_BREAK} or {@link ScriptInstance.Result#FAILURE_CONTINUE}
+         *
+         * @return the jump result, or empty if the line is run
+         */
+        public Optional<ScriptInstance.Result> getJump() {
+            return jump;
         }
     }
 }
@@ -44,6 +44,35 @@ public class Context {
 
         mainLoop:
         for (Line.ContextPossibility contextPossibility : contextPossibilities) {
+            Line.Binding binding = contextPossibility.getBinding();
+            if (binding != null) { // Same checks, without building the maps
+                Statement.Argument[] arguments = binding.getArguments();
+                DataContainer[] containers = binding.getContainers();
+                Literal[] literals = new Literal[arguments.length];
+
+                for (int i = 0; i < arguments.length; i++) {
+                    Literal literal = (containers[i] == null ? Literal.Literals.empty() : containers[i].resolve(this));
+
+                    Optional<Literal.Types> requiredType = arguments[i].getRequiredType();
+                    if (requiredType.isPresent() && !requiredType.get().isCompatible(literal, false)) {
+                        continue mainLoop;
+                    }
+
+                    if (arguments[i].isMainGetter() && !contextPossibility.getCompartment().containsGetter(literal.getString())) {
+                        continue mainLoop;
+                    }
+
+                    literals[i] = literal;
+                }
+
+                this.stringArguments = contextPossibility.getStrargs();
+                this.argumentsSet = contextPossibility.getArgumentSet();
+                this.containers = binding.getContainerMap();
+                this.literals = binding.getLiterals(literals);
+                this.compartment = contextPossibility.getCompartment();
+                return;
+            }
+
             String[] stringArguments = contextPossibility.getStrargs();
             Statement.Arguments argumentSet = contextPossibility.getArgumentSet();
             Compartment compartment = contextPossibility.getCompartment();
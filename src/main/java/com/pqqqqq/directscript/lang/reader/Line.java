@@ -2,19 +2,18 @@ package com.pqqqqq.directscript.lang.reader;
 
 import com.google.common.base.Objects;
 import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Compiler;
+import com.pqqqqq.directscript.lang.data.Folder;
 import com.pqqqqq.directscript.lang.data.Literal;
-import com.pqqqqq.directscript.lang.data.container.ArrayContainer;
-import com.pqqqqq.directscript.lang.data.container.DataContainer;
-import com.pqqqqq.directscript.lang.data.container.UnresolvableContainer;
-import com.pqqqqq.directscript.lang.data.container.VariableContainer;
+import com.pqqqqq.directscript.lang.data.container.*;
+import com.pqqqqq.directscript.lang.data.container.expression.ExpressionContainer;
 import com.pqqqqq.directscript.lang.exception.UnknownLineException;
 import com.pqqqqq.directscript.lang.script.Script;
 import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.statement.Compartment;
 import com.pqqqqq.directscript.lang.statement.Statement;
 import com.pqqqqq.directscript.lang.statement.Statements;
-import com.pqqqqq.directscript.lang.util.StringParser;
-import org.apache.commons.lang3.StringUtils;
+import com.pqqqqq.directscript.lang.util.Lexer;
 
 import java.util.*;
 import java.util.function.Consumer;
@@ -37,6 +36,8 @@ public class Line {
     private final Optional<Integer> closingBraceLine;
     private final Optional<Block> internalBlock;
 
+    private List<Line> elseBranches = Collections.emptyList(); // Compiled by the reader for if statements
+
     private Line(int absoluteNumber, int scriptNumber, Content content, Script script, Block blockContainer, Integer openingBraceLine, Integer closingBraceLine, Block internalBlock) {
         this.absoluteNumber = absoluteNumber;
         this.scriptNumber = scriptNumber;
@@ -55,10 +56,10 @@ public class Line {
         }
     }
 
-    private Line(Line template, String line) {
+    private Line(Line template, Content content) {
         this.absoluteNumber = template.getAbsoluteNumber();
         this.scriptNumber = template.getScriptNumber();
-        this.content = new Content(line); // New content
+        this.content = content;
         this.script = template.getScript();
         this.blockContainer = template.getBlockContainer();
 
@@ -82,7 +83,26 @@ public class Line {
      * @return the new line instance
      */
     public static Line fromLine(Line template, String line) {
-        return new Line(template, line);
+        return new Line(template, new Content(line)); // New content
+    }
+
+    /**
+     * Creates a new {@link Line} segment from the template and with already parsed {@link Content}
+     * @param template the template
+     * @param content the content, as given by {@link #compile(String)}
+     * @return the new line instance
+     */
+    public static Line fromLine(Line template, Content content) {
+        return new Line(template, content);
+    }
+
+    /**
+     * Parses the {@link Content} of a line segment, so it can be reused by {@link #fromLine(Line, Content)} without parsing again
+     * @param line the line segment
+     * @return the new content
+     */
+    public static Content compile(String line) {
+        return new Content(line);
     }
 
     /**
@@ -201,6 +221,20 @@ public class Line {
         return internalBlock;
     }
 
+    /**
+     * <p>Gets the else if and else branches that follow this if statement, in order.</p>
+     * <p>An else if branch is a segment of its else line whose statement is the if statement, and whose internal block is the else line's. An else branch is the else line itself.</p>
+     *
+     * @return the else branches, or an empty list if there are none
+     */
+    public List<Line> getElseBranches() {
+        return elseBranches;
+    }
+
+    void setElseBranches(List<Line> elseBranches) {
+        this.elseBranches = elseBranches;
+    }
+
     /**
      * Converts this line into a {@link Context} with the given {@link ScriptInstance}
      *
@@ -241,76 +275,112 @@ public class Line {
         private final String line;
         private final Statement statement;
         private final List<ContextPossibility> contextPossibilities;
+        private final int foldedNodes;
+        private final List<VariableContainer> variables = new ArrayList<>();
 
         Content(String line) {
+            this(line, Statements.getStatement(line).orElseThrow(() -> new UnknownLineException("'%s' cannot be identified.", line)), null);
+        }
+
+        Content(String line, Statement statement, List<ContextPossibility> parsed) { // Possibilities already parsed are those of a precompiled script, as they were before folding
             this.line = line;
-            this.statement = Statements.getStatement(this.line).orElseThrow(() -> new UnknownLineException("'%s' cannot be identified.", this.line));
+            this.statement = statement;
+
+            List<ContextPossibility> persist = parsed == null ? parse(line, statement) : parsed;
+            Folder.Pass pass = Lang.instance().folder().pass();
+            Compiler compiler = Lang.instance().compiler();
+            for (ContextPossibility contextPossibility : persist) {
+                contextPossibility.getContainers().replaceAll((argument, dataContainer) -> {
+                    DataContainer folded = pass.fold(dataContainer); // Collapse constant subtrees once, rather than every run
+                    addVariables(folded, variables); // Before the expressions are compiled into closures, which hide them
+                    return compiler.compile(folded); // Then compile what's left
+                });
+            }
+
+            this.contextPossibilities = checkNotNull(persist, "There are no context possibilities for this");
+            this.foldedNodes = pass.getFolded();
+        }
 
+        /**
+         * Parses the {@link ContextPossibility ContextPossibilities} of a line for its {@link Statement}, with their containers as the {@link com.pqqqqq.directscript.lang.data.Sequencer Sequencer} made them
+         *
+         * @param line      the line
+         * @param statement the statement of the line
+         * @return the possibilities
+         */
+        static List<ContextPossibility> parse(String line, Statement statement) {
             // PARSING
             List<ContextPossibility> contextPossibilities = new ArrayList<>();
-            Statement.Syntax syntax = getStatement().getSyntax();
+            Statement.Syntax syntax = statement.getSyntax();
+
+            Lexer.Tokens tokens = Lang.instance().lexer().tokenize(line);
+            int from = 0, to = tokens.length();
 
-            String trimmedLine;
-            if (syntax.getCustomPredicate().isPresent()) {
-                trimmedLine = getLine();
-            } else {
+            if (!syntax.getCustomPredicate().isPresent()) {
                 if (syntax.doesUseBrackets()) {
-                    trimmedLine = getLine().substring(getLine().indexOf('(') + 1, getLine().lastIndexOf(')')); // Trim to what's inside brackets
+                    from = line.indexOf('(') + 1; // Trim to what's inside brackets
+                    to = line.lastIndexOf(')');
                 } else {
-                    trimmedLine = StringUtils.removeStart(getLine(), syntax.getPrefix()); // Trim prefix
+                    if (tokens.startsWith(from, to, syntax.getPrefix())) {
+                        from += syntax.getPrefix().length(); // Trim prefix
+                    }
 
                     if (syntax.getIdentifiers() != null && syntax.getIdentifiers().length > 0) {
                         for (String identifier : syntax.getIdentifiers()) {
-                            if (trimmedLine.startsWith(identifier)) {
-                                trimmedLine = StringUtils.removeStart(trimmedLine, identifier); // Trim identifier
+                            if (tokens.startsWith(from, to, identifier)) {
+                                from += identifier.length(); // Trim identifier
                                 break;
                             }
                         }
                     }
 
-                    trimmedLine = StringUtils.removeEnd(trimmedLine, syntax.getSuffix()); // Trim suffix
+                    if (tokens.endsWith(from, to, syntax.getSuffix())) {
+                        to -= syntax.getSuffix().length(); // Trim suffix
+                    }
                 }
             }
 
-            final String trimmedLineFinal = trimmedLine;
+            final int trimmedFrom = from, trimmedTo = to;
             Consumer<Compartment> consumer = (compartment) -> {
                 argumentLoop:
                 for (Statement.Arguments args : compartment.getArgumentsArray()) {
-                    String trimmedLineClone = trimmedLineFinal;
+                    int cursor = trimmedFrom;
                     String[] delimiters = args.getDelimiters();
                     List<String> strargs = new ArrayList<>();
+                    List<int[]> ranges = new ArrayList<>();
 
                     for (String delimiter : delimiters) {
-                        int index = Lang.instance().stringParser().indexOf(trimmedLineClone, delimiter);
+                        int index = tokens.indexOf(cursor, trimmedTo, delimiter);
                         if (index == -1) {
                             continue argumentLoop;
                         } else {
-                            strargs.add(trimmedLineClone.substring(0, index).trim());
-                            trimmedLineClone = trimmedLineClone.substring(index + delimiter.length());
+                            strargs.add(tokens.substring(cursor, index).trim());
+                            ranges.add(new int[]{cursor, index});
+                            cursor = index + delimiter.length();
                         }
                     }
 
-                    if (!trimmedLineClone.trim().isEmpty()) {
-                        String[] split = Lang.instance().stringParser().parseSplit(trimmedLineClone.trim(), ","); // Account for conjugated lists
-                        if (split != null) {
-                            strargs.addAll(Arrays.asList(split));
-                        }
+                    int restFrom = tokens.trimStart(cursor, trimmedTo), restTo = tokens.trimEnd(restFrom, trimmedTo);
+                    for (int[] range : tokens.split(restFrom, restTo, ",")) { // Account for conjugated lists
+                        strargs.add(tokens.substring(range[0], range[1]));
+                        ranges.add(range);
                     }
 
                     if (strargs.size() >= args.getArguments().length) {
-                        contextPossibilities.add(new ContextPossibility().setArgumentSet(args).setStrargs(strargs).setCompartment(compartment));
+                        contextPossibilities.add(new ContextPossibility().setArgumentSet(args).setStrargs(strargs).setRanges(ranges).setCompartment(compartment));
                     }
                 }
             };
 
-            consumer.accept(this.statement);
-            for (Object obj : this.statement.getCompartments()) { // TODO Why the hell do I need to use object here?!
+            consumer.accept(statement);
+            for (Object obj : statement.getCompartments()) { // TODO Why the hell do I need to use object here?!
                 consumer.accept((Compartment) obj);
             }
 
             List<ContextPossibility> persist = new ArrayList<>();
             for (ContextPossibility contextPossibility : contextPossibilities) {
                 String[] strargs = contextPossibility.getStrargs();
+                int[][] ranges = contextPossibility.getRanges();
 
                 checkState(contextPossibility.getArgumentSet() != null && strargs != null, "Invalid argument syntax");
                 Map<Statement.Argument, DataContainer> containers = new HashMap<>();
@@ -319,13 +389,13 @@ public class Line {
                 for (Statement.Argument argument : contextPossibility.getArgumentSet().getArguments()) {
                     int currentIndex = containers.size();
                     if (!argument.doConjugateToList()/* || currentIndex == (strargs.length - 1)*/) { // Conjugation is irrelevant if there's only one argument left
-                        containers.put(argument, getDataContainer(argument, strargs[currentIndex]));
+                        containers.put(argument, getDataContainer(argument, strargs[currentIndex], tokens, ranges[currentIndex]));
                     } else {
                         conjugation = true;
 
                         List<DataContainer> dataContainerList = new ArrayList<>();
                         for (int i = currentIndex; i < strargs.length; i++) { // From current position to the end
-                            dataContainerList.add(getDataContainer(argument, strargs[i]));
+                            dataContainerList.add(getDataContainer(argument, strargs[i], tokens, ranges[i]));
                         }
 
                         containers.put(argument, new ArrayContainer(dataContainerList, true)); // Put an array container (concatenated)
@@ -339,7 +409,7 @@ public class Line {
                 }
             }
 
-            this.contextPossibilities = checkNotNull(persist, "There are no context possibilities for this");
+            return persist;
         }
 
         /**
@@ -360,6 +430,71 @@ public class Line {
             return statement;
         }
 
+        /**
+         * Gets every argument {@link DataContainer} parsed for this content, in the order of each possible argument syntax
+         *
+         * @return the data containers
+         */
+        public List<DataContainer> getContainers() {
+            List<DataContainer> list = new ArrayList<>();
+            for (ContextPossibility contextPossibility : contextPossibilities) {
+                for (Statement.Argument argument : contextPossibility.getArgumentSet().getArguments()) {
+                    DataContainer dataContainer = contextPossibility.getContainers().get(argument);
+                    if (dataContainer != null) {
+                        list.add(dataContainer);
+                    }
+                }
+            }
+
+            return list;
+        }
+
+        /**
+         * Gets the {@link VariableContainer}s in this content's argument {@link DataContainer}s, whose slots are assigned when their script compiles
+         *
+         * @return the variable containers
+         * @see VariableContainer#assignSlot(com.pqqqqq.directscript.lang.data.env.VariableSlots)
+         */
+        public List<VariableContainer> getVariables() {
+            return variables;
+        }
+
+        /**
+         * Gets the number of {@link DataContainer} nodes folded into constants while parsing this content
+         *
+         * @return the number of folded nodes
+         * @see Folder
+         */
+        public int getFoldedNodes() {
+            return foldedNodes;
+        }
+
+        /**
+         * Binds each of this content's argument syntaxes, so the {@link Context}s made for it skip building their argument maps
+         *
+         * @return the number of syntaxes bound
+         * @see Binding
+         */
+        public int bind() {
+            int bound = 0;
+            for (ContextPossibility contextPossibility : contextPossibilities) {
+                if (contextPossibility.bind()) {
+                    bound++;
+                }
+            }
+
+            return bound;
+        }
+
+        /**
+         * Unbinds each of this content's argument syntaxes, so its {@link Context}s are made as they were before {@link #bind()}
+         */
+        public void unbind() {
+            for (ContextPossibility contextPossibility : contextPossibilities) {
+                contextPossibility.binding = null;
+            }
+        }
+
         protected Context toContext(ScriptInstance scriptInstance) {
             return new Context(scriptInstance, null, this, getContextPossibilities());
         }
@@ -368,8 +503,51 @@ public class Line {
             return contextPossibilities;
         }
 
-        private DataContainer getDataContainer(Statement.Argument argument, String strarg) { // Method to avoid duplicate code
-            DataContainer dataContainer = (argument.doParse() ? Lang.instance().sequencer().parse(strarg) : Literal.fromObject(strarg)); // Use doParse boolean
+        private static void addVariables(DataContainer container, List<VariableContainer> variables) {
+            if (container instanceof VariableContainer) {
+                variables.add((VariableContainer) container);
+                addVariables(((VariableContainer) container).getVariableName(), variables);
+            } else if (container instanceof ExpressionContainer) {
+                addVariables(((ExpressionContainer<?>) container).getFirstTerm(), variables);
+                addVariables(((ExpressionContainer<?>) container).getSecondTerm(), variables);
+            } else if (container instanceof ConditionContainer) {
+                for (DataContainer[] row : ((ConditionContainer) container).getConditionExpressions()) {
+                    for (DataContainer expression : row) {
+                        addVariables(expression, variables);
+                    }
+                }
+            } else if (container instanceof TernaryOperatorContainer) {
+                TernaryOperatorContainer ternaryContainer = (TernaryOperatorContainer) container;
+                addVariables(ternaryContainer.getConditionContainer(), variables);
+                addVariables(ternaryContainer.getTrueContainer(), variables);
+                addVariables(ternaryContainer.getFalseContainer(), variables);
+            } else if (container instanceof NegateContainer) {
+                addVariables(((NegateContainer) container).getContainer(), variables);
+            } else if (container instanceof NegativeContainer) {
+                addVariables(((NegativeContainer) container).getContainer(), variables);
+            } else if (container instanceof IndexContainer) {
+                addVariables(((IndexContainer) container).getArray(), variables);
+                addVariables(((IndexContainer) container).getIndex(), variables);
+            } else if (container instanceof EventVariableContainer) {
+                addVariables(((EventVariableContainer) container).getEventVar(), variables);
+            } else if (container instanceof AmnesiacContainer) {
+                addVariables(((AmnesiacContainer) container).getSequence(), variables);
+            } else if (container instanceof UnresolvableContainer) {
+                addVariables(((UnresolvableContainer) container).getDataContainer(), variables);
+            } else if (container instanceof ArrayContainer) {
+                for (DataContainer element : ((ArrayContainer) container).getList()) {
+                    addVariables(element, variables);
+                }
+            } else if (container instanceof MapContainer) {
+                for (Map.Entry<DataContainer, DataContainer> entry : ((MapContainer) container).getMap().entrySet()) {
+                    addVariables(entry.getKey(), variables);
+                    addVariables(entry.getValue(), variables);
+                }
+            } // Statement containers parse their lines when they're run, so theirs are looked up by name
+        }
+
+        private static DataContainer getDataContainer(Statement.Argument argument, String strarg, Lexer.Tokens tokens, int[] range) { // Method to avoid duplicate code
+            DataContainer dataContainer = (argument.doParse() ? Lang.instance().sequencer().parse(tokens, range[0], range[1]) : Literal.fromObject(strarg)); // Use doParse boolean
             if (argument.doCreateVariable() && dataContainer instanceof VariableContainer) { // Create default variable
                 dataContainer = new VariableContainer(((VariableContainer) dataContainer).getVariableName(), true);
             }
@@ -455,12 +633,12 @@ public class Line {
          * @see Line#getLine()
          */
         public Builder line(String line) {
-            this.line = StringParser.instance().trim(line);
+            this.line = Lang.instance().lexer().trim(line);
             return this;
         }
 
         /**
-         * Gets the line string present in this builder, as affected by {@link StringParser#trim(String)} during {@link #line(String)}
+         * Gets the line string present in this builder, as affected by {@link Lexer#trim(String)} during {@link #line(String)}
          *
          * @return the trimmed line
          */
@@ -564,17 +742,29 @@ public class Line {
             return this;
         }
 
+        /**
+         * Sets the {@link Content} of the line, such as that of a precompiled script, so it's not parsed from the line string
+         *
+         * @param content the content, or null to parse it
+         * @return this builder, for chaining
+         * @see ScriptCache
+         */
+        public Builder content(Content content) {
+            this.content = content;
+            return this;
+        }
+
         /**
          * Gets the {@link Content} of this line
          *
          * @return the content
          */
         public Content getContent() {
-            if (content != null) {
-                return content;
+            if (content == null) {
+                content = new Content(line); // Only parse once
             }
 
-            return new Content(line);
+            return content;
         }
 
         /**
@@ -609,13 +799,27 @@ public class Line {
     protected static class ContextPossibility { // This class is hidden completely
         private Statement.Arguments argumentSet = null;
         private String[] strargs = null;
+        private int[][] ranges = null;
         private Map<Statement.Argument, DataContainer> containers = null;
 
         private Compartment compartment = null;
+        private volatile Binding binding = null;
 
         protected ContextPossibility() {
         }
 
+        protected Binding getBinding() {
+            return binding;
+        }
+
+        protected boolean bind() {
+            if (binding == null && containers != null) {
+                binding = Binding.of(containers);
+            }
+
+            return binding != null;
+        }
+
         protected Statement.Arguments getArgumentSet() {
             return argumentSet;
         }
@@ -639,6 +843,15 @@ public class Line {
             return this;
         }
 
+        protected int[][] getRanges() {
+            return ranges;
+        }
+
+        protected ContextPossibility setRanges(Collection<int[]> ranges) {
+            this.ranges = ranges.toArray(new int[ranges.size()][]);
+            return this;
+        }
+
         protected Map<Statement.Argument, DataContainer> getContainers() {
             return containers;
         }
@@ -657,4 +870,80 @@ public class Line {
             return this;
         }
     }
+
+    /**
+     * The arguments of a {@link ContextPossibility} laid out once, in the order a {@link Context} resolves them.
+     * The name to container map is shared by every context, and each gets its literals as an array viewed as a map.
+     */
+    protected static class Binding { // This class is hidden completely
+        private final Statement.Argument[] arguments;
+        private final DataContainer[] containers;
+        private final Map<String, DataContainer> containerMap;
+        private final Map<String, Integer> indices;
+
+        private Binding(Statement.Argument[] arguments, DataContainer[] containers, Map<String, DataContainer> containerMap, Map<String, Integer> indices) {
+            this.arguments = arguments;
+            this.containers = containers;
+            this.containerMap = containerMap;
+            this.indices = indices;
+        }
+
+        static Binding of(Map<Statement.Argument, DataContainer> containers) {
+            Statement.Argument[] arguments = new Statement.Argument[containers.size()];
+            DataContainer[] dataContainers = new DataContainer[containers.size()];
+            Map<String, DataContainer> containerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            Map<String, Integer> indices = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+            int i = 0;
+            for (Map.Entry<Statement.Argument, DataContainer> entry : containers.entrySet()) {
+                if (indices.put(entry.getKey().getName(), i) != null) {
+                    return null; // Names that clash are left to the unbound context
+                }
+
+                containerMap.put(entry.getKey().getName(), entry.getValue());
+                arguments[i] = entry.getKey();
+                dataContainers[i++] = entry.getValue();
+            }
+
+            return new Binding(arguments, dataContainers, Collections.unmodifiableMap(containerMap), indices);
+        }
+
+        protected Statement.Argument[] getArguments() {
+            return arguments;
+        }
+
+        protected DataContainer[] getContainers() {
+            return containers;
+        }
+
+        protected Map<String, DataContainer> getContainerMap() {
+            return containerMap;
+        }
+
+        protected Map<String, Literal> getLiterals(Literal[] values) {
+            return new AbstractMap<String, Literal>() {
+
+                @Override
+                public Literal get(Object key) {
+                    Integer index = indices.get(key);
+                    return index == null ? null : values[index];
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+
+                @Override
+                public Set<Entry<String, Literal>> entrySet() {
+                    Map<String, Literal> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                    for (Map.Entry<String, Integer> entry : indices.entrySet()) {
+                        map.put(entry.getKey(), values[entry.getValue()]);
+                    }
+
+                    return map.entrySet();
+                }
+            };
+        }
+    }
 }
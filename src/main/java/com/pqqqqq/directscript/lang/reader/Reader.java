@@ -1,22 +1,30 @@
 package com.pqqqqq.directscript.lang.reader;
 
+import com.google.common.hash.Hashing;
+import com.pqqqqq.directscript.DirectScript;
 import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Compiler;
+import com.pqqqqq.directscript.lang.exception.UnknownLineException;
 import com.pqqqqq.directscript.lang.exception.state.CompilationException;
 import com.pqqqqq.directscript.lang.script.Script;
 import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.script.ScriptsFile;
 import com.pqqqqq.directscript.lang.statement.Statement;
 import com.pqqqqq.directscript.lang.statement.generic.setters.ElseStatement;
+import com.pqqqqq.directscript.lang.statement.generic.setters.IfStatement;
 import com.pqqqqq.directscript.lang.statement.internal.setters.ScriptDeclaration;
 import com.pqqqqq.directscript.lang.statement.internal.setters.Termination;
+import com.pqqqqq.directscript.lang.trigger.Trigger;
 import com.pqqqqq.directscript.lang.trigger.cause.Cause;
 import com.pqqqqq.directscript.lang.trigger.cause.Causes;
-import org.apache.commons.lang3.tuple.Pair;
+import com.pqqqqq.directscript.lang.util.Utilities;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -29,6 +37,8 @@ public class Reader {
     private static final Reader INSTANCE = new Reader();
     private static final File SCRIPTS = new File("scripts/");
 
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
     private Reader() {
     }
 
@@ -59,12 +69,30 @@ public class Reader {
      */
     public Set<ScriptsFile> load() {
         for (Cause cause : Causes.getRegistry()) {
-            cause.getTriggers().clear(); // Clear all the triggers
+            cause.clearTriggers(); // Clear all the triggers
         }
 
         return readInDir();
     }
 
+    /**
+     * <p>Reloads the /scripts directory, reading only the files that are new or have changed since the given {@link ScriptsFile}s were read.</p>
+     * <p>Unchanged files are kept with their compiled {@link Script}s and triggers. The {@link Trigger}s of the scripts of changed and deleted files are removed from their {@link Cause}s.</p>
+     *
+     * @param previous the scripts files of the last load
+     * @return the reloaded set
+     * @see ScriptsFile#setFingerprint(long, long, String)
+     */
+    public Set<ScriptsFile> reload(Set<ScriptsFile> previous) {
+        Map<String, ScriptsFile> previousFiles = new HashMap<>();
+        for (ScriptsFile scriptsFile : previous) {
+            previousFiles.put(scriptsFile.getStringRepresentation(), scriptsFile);
+        }
+
+        SCRIPTS.mkdir(); // Make /scripts if it doesn't exist
+        return readInDir(SCRIPTS, SCRIPTS, previousFiles);
+    }
+
     /**
      * Reads and retrieves a {@link Set} of {@link ScriptsFile}s in the /scripts directory
      *
@@ -78,31 +106,131 @@ public class Reader {
     }
 
     /**
-     * Reads and retrieves a {@link Set} of {@link ScriptsFile}s in the given directory
+     * <p>Reads and retrieves a {@link Set} of {@link ScriptsFile}s in the given directory</p>
+     * <p>The files are parsed in parallel, one per task, while their compile time statements are run on the calling thread in the order of their paths.</p>
      *
      * @return the set of scripts files
+     * @see #setParallelism(int)
      */
     public Set<ScriptsFile> readInDir(File dir) {
-        return readInDir(dir, dir);
+        return readInDir(dir, dir, new HashMap<>());
     }
 
-    private Set<ScriptsFile> readInDir(File root, File dir) {
+    private Set<ScriptsFile> readInDir(File root, File dir, Map<String, ScriptsFile> previous) {
         checkNotNull(dir, "Directory cannot be null");
         checkState(dir.exists(), "The directory must exist");
         checkState(dir.isDirectory(), "Directory must actually be a directory");
 
+        List<File> files = new ArrayList<>();
+        listScriptFiles(dir, files);
+        files.sort(Comparator.comparing((file) -> Utilities.getFileDiff(root, file))); // Compile in the same order every reload
+
         Set<ScriptsFile> scriptsFiles = new HashSet<>();
-        for (File file : dir.listFiles()) {
-            if (file.isDirectory()) {
-                scriptsFiles.addAll(readInDir(root, file)); // I <3 recursion
-            } else if (file.getName().endsWith(".ds") || file.getName().endsWith(".dsc")) {
-                scriptsFiles.add(readScriptsFile(root, file));
+        if (!previous.isEmpty()) {
+            int total = files.size(), changed = 0;
+            for (Iterator<File> iterator = files.iterator(); iterator.hasNext(); ) {
+                ScriptsFile previousFile = previous.remove(Utilities.getFileDiff(root, iterator.next()));
+                if (previousFile == null) { // New
+                    continue;
+                }
+
+                if (isChanged(previousFile)) {
+                    removeTriggers(previousFile);
+                    changed++;
+                } else { // Keep it as it's compiled, but back in the interpreter
+                    previousFile.getScripts().forEach(Compiler.instance()::reset);
+                    scriptsFiles.add(previousFile);
+                    iterator.remove();
+                }
+            }
+
+            previous.values().forEach(this::removeTriggers); // Deleted
+            DirectScript.instance().getLogger().info(String.format("Reloading %d of %d script files (%d new, %d changed, %d deleted)", files.size(), total, files.size() - changed, changed, previous.size()));
+        }
+
+        if (parallelism <= 1 || files.size() <= 1) {
+            for (File file : files) {
+                try {
+                    scriptsFiles.add(readScriptsFile(root, file));
+                } catch (Throwable e) { // Skip this file, not the rest
+                    Lang.instance().exceptionHandler().log(new CompilationException(e, "Error in compilation of %s", Utilities.getFileDiff(root, file)));
+                    Lang.instance().exceptionHandler().flush();
+                }
             }
+            return scriptsFiles;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, files.size()));
+        try {
+            List<ForkJoinTask<ScriptsFile>> parsed = new ArrayList<>();
+            for (File file : files) { // One file per task
+                parsed.add(pool.submit(() -> parseScriptsFile(root, file)));
+            }
+
+            for (int i = 0; i < parsed.size(); i++) { // Compile phase on this thread, in order, while later files still parse
+                try {
+                    scriptsFiles.add(compileScriptsFile(parsed.get(i).join()));
+                } catch (Throwable e) {
+                    Lang.instance().exceptionHandler().log(new CompilationException(e, "Error in compilation of %s", Utilities.getFileDiff(root, files.get(i))));
+                    Lang.instance().exceptionHandler().flush();
+                }
+            }
+        } finally {
+            pool.shutdown();
         }
 
         return scriptsFiles;
     }
 
+    private boolean isChanged(ScriptsFile scriptsFile) {
+        File file = scriptsFile.getFile();
+        if (!file.isFile()) {
+            return true;
+        }
+
+        long lastModified = file.lastModified(), length = file.length();
+        if (lastModified == scriptsFile.getLastModified() && length == scriptsFile.getLength()) {
+            return false;
+        }
+
+        try { // Only touched, or saved without changes
+            String hash = hash(file);
+            if (hash.equals(scriptsFile.getHash())) {
+                scriptsFile.setFingerprint(lastModified, length, hash);
+                return false;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return true;
+    }
+
+    private void removeTriggers(ScriptsFile scriptsFile) {
+        for (Script script : scriptsFile.getScripts()) {
+            if (script.getTrigger().isPresent()) {
+                Trigger trigger = script.getTrigger().get();
+                for (Cause cause : trigger.getCauses()) {
+                    cause.removeTrigger(trigger);
+                }
+            }
+        }
+    }
+
+    static String hash(File file) throws IOException {
+        return Hashing.murmur3_128().hashBytes(Files.readAllBytes(file.toPath())).toString();
+    }
+
+    private void listScriptFiles(File dir, List<File> files) {
+        for (File file : dir.listFiles()) {
+            if (file.isDirectory()) {
+                listScriptFiles(file, files); // I <3 recursion
+            } else if (file.getName().endsWith(".ds") || (file.getName().endsWith(".dsc") && !ScriptCache.isCache(file))) { // Precompiled .dsc files are read with their source
+                files.add(file);
+            }
+        }
+    }
+
     /**
      * Reads and returns a {@link ScriptsFile} for the given {@link File} directory
      *
@@ -111,20 +239,51 @@ public class Reader {
      * @return the new scripts file
      */
     public ScriptsFile readScriptsFile(File root, File file) {
+        return compileScriptsFile(parseScriptsFile(root, file));
+    }
+
+    /**
+     * Gets how many script files are parsed at the same time when reading a directory
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets how many script files are parsed at the same time when reading a directory
+     *
+     * @param parallelism the new parallelism, or 1 to parse them one by one on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    private ScriptsFile parseScriptsFile(File root, File file) { // Touches nothing but the file's own scripts, so files can be parsed at the same time
         checkNotNull(file, "File cannot be null");
         checkState(file.exists(), "The file must exist");
         checkState(!file.isDirectory(), "The file cannot be a directory");
         checkState(file.getName().endsWith(".ds") || file.getName().endsWith(".dsc"), "File must have .ds or .dsc extension");
+        checkState(!ScriptCache.isCache(file), "Precompiled files are read with their .ds source");
 
         ScriptsFile scriptsFile = new ScriptsFile(root, file);
+        String hash = null;
+        try { // Before it's read, so a change made while it's read is seen by the next reload
+            hash = hash(file);
+            scriptsFile.setFingerprint(file.lastModified(), file.length(), hash);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
         // Read and separate scripts
         try {
-            FileReader fileReader = new FileReader(file);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
+            ScriptCache cache = ScriptCache.instance();
+            Optional<List<ScriptCache.Entry>> precompiled = cache.read(file, hash); // Lines as they were parsed, while the source hasn't changed
+            List<ScriptCache.Entry> entries = precompiled.isPresent() ? precompiled.get() : cache.readSource(file);
+            Map<Integer, ScriptCache.Entry> elseEntries = new HashMap<>();
 
             int absoluteLine = 0, scriptLine = 0;
-            boolean blockComment = false;
             Script currentScript = null;
             Block currentBlock = null;
             String line;
@@ -133,12 +292,9 @@ public class Reader {
             List<Line.Builder> cumulativeLines = new ArrayList<>();
 
             try {
-                while ((line = bufferedReader.readLine()) != null) {
-                    Pair<Boolean, String> comments = Lang.instance().stringParser().removeComments(blockComment, line);
-                    blockComment = comments.getLeft();
-                    line = comments.getRight();
-
-                    Line.Builder lineBuilder = Line.builder().absoluteLine(++absoluteLine).line(line); // Up absolute line
+                for (ScriptCache.Entry entry : entries) {
+                    absoluteLine = entry.getAbsoluteLine();
+                    Line.Builder lineBuilder = Line.builder().absoluteLine(absoluteLine).line(entry.getLine()).content(entry.getContent());
                     line = lineBuilder.getLine(); // Use the trimmed line
                     if (line.isEmpty()) { // Empty lines don't matter past this
                         continue;
@@ -146,6 +302,9 @@ public class Reader {
 
                     Line.Content content = lineBuilder.getContent();
                     Statement statement = content.getStatement();
+                    if (statement instanceof ElseStatement) {
+                        elseEntries.put(absoluteLine, entry);
+                    }
 
                     if (currentScript != null) {
                         lineBuilder.scriptLine(scriptLine); // Up script line (after to preserve base-0)
@@ -203,13 +362,61 @@ public class Reader {
             }
 
             cumulativeLines.forEach(Line.Builder::build); // Build everything
-            scriptsFile.getScripts().forEach((script) -> ScriptInstance.compile(script).execute()); // Compile scripts
+            for (Line.Builder lineBuilder : cumulativeLines) {
+                Line builtLine = lineBuilder.getCreated();
+                try {
+                    compileElseBranches(builtLine, elseEntries);
+                } catch (Throwable e) {
+                    Lang.instance().exceptionHandler().log(new CompilationException(e, "Error in compilation of %s at line %d", scriptsFile.getStringRepresentationNoExt() + " -> " + builtLine.getScript().getName(), builtLine.getAbsoluteNumber()));
+                    Lang.instance().exceptionHandler().flush();
+                }
+            }
 
-            bufferedReader.close();
+            scriptsFile.getScripts().forEach(Lang.instance().folder()::optimize); // Prune constant branches
+            scriptsFile.getScripts().forEach(Script::compile); // Fix the lines each block runs
         } catch (Exception e) {
             e.printStackTrace();
         }
 
         return scriptsFile;
     }
+
+    private ScriptsFile compileScriptsFile(ScriptsFile scriptsFile) { // Registers triggers and the like, so always on the calling thread
+        scriptsFile.getScripts().forEach((script) -> ScriptInstance.compile(script).execute()); // Compile scripts
+        return scriptsFile;
+    }
+
+    private void compileElseBranches(Line line, Map<Integer, ScriptCache.Entry> elseEntries) { // Parses an if statement's else ifs once, so they don't need to be looked up or parsed when run
+        if (!(line.getStatement() instanceof IfStatement)) {
+            return;
+        }
+
+        List<Line> branches = new ArrayList<>();
+        Optional<Line> closingBrace = line.getClosingBrace();
+
+        while (closingBrace.isPresent() && closingBrace.get().getStatement() instanceof ElseStatement) {
+            Line elseLine = closingBrace.get();
+            ScriptCache.Entry entry = elseEntries.get(elseLine.getAbsoluteNumber());
+            Line branch;
+            if (entry != null && entry.isPlainElse()) { // Precompiled
+                branch = elseLine;
+            } else if (entry != null && entry.getBranch() != null) {
+                branch = Line.fromLine(elseLine, entry.getBranch());
+            } else {
+                try { // Else if
+                    branch = Line.fromLine(elseLine, elseLine.getLine().substring(6).trim()); // This line is a complete copy of its parent, except its trimmed line
+                    checkState(branch.getStatement() instanceof IfStatement, "Else statements can only be followed by an if statement");
+                } catch (UnknownLineException e) { // Else
+                    branch = elseLine;
+                }
+            }
+
+            branches.add(branch);
+            closingBrace = elseLine.getClosingBrace();
+        }
+
+        if (!branches.isEmpty()) {
+            line.setElseBranches(branches);
+        }
+    }
 }
@@ -0,0 +1,379 @@
+package com.pqqqqq.directscript.lang.reader;
+
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.Encoder;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.exception.state.CompilationException;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.statement.Compartment;
+import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.statement.Statements;
+import com.pqqqqq.directscript.lang.statement.generic.setters.ElseStatement;
+import com.pqqqqq.directscript.lang.statement.generic.setters.IfStatement;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>The precompiled <code>.dsc</code> cache of a <code>.ds</code> script file, kept next to it.</p>
+ * <p>A cache holds each line of its source as the {@link Statements} registry and {@link com.pqqqqq.directscript.lang.data.Sequencer Sequencer} parsed it, that is
+ * its statement, the argument sets that fit it and their container trees, along with the hash of the source it was written from.
+ * While the hash matches, the reader takes the lines from the cache and only folds and compiles them. Otherwise, the source is read as if there was no cache.</p>
+ * <p>Lines that can't be written, such as those that don't parse, are left to be parsed from the source when the cache is read.</p>
+ */
+public class ScriptCache {
+    private static final ScriptCache INSTANCE = new ScriptCache();
+    private static final int MAGIC = 0x44534301; // DSC and the format
+    private static final int VERSION = 1;
+
+    private static final byte SOURCE = 0, PRECOMPILED = 1, PLAIN_ELSE = 2, NO_BRANCH = 3;
+
+    private ScriptCache() {
+    }
+
+    /**
+     * Gets the {@link ScriptCache} instance
+     *
+     * @return the instance
+     */
+    public static ScriptCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the cache {@link File} of a source file, which is the file with its <code>.ds</code> extension replaced by <code>.dsc</code>
+     *
+     * @param source the source file
+     * @return the cache file, or null if the source isn't a <code>.ds</code> file
+     */
+    public static File getCacheFile(File source) {
+        return source.getName().endsWith(".ds") ? new File(source.getParentFile(), source.getName() + "c") : null;
+    }
+
+    /**
+     * Gets whether a {@link File} is a precompiled cache, rather than a <code>.dsc</code> script written as source
+     *
+     * @param file the file
+     * @return true if it's a cache
+     */
+    public static boolean isCache(File file) {
+        if (!file.getName().endsWith(".dsc") || file.length() < 4) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the cache of a {@link ScriptsFile} from its source as it is now
+     *
+     * @param scriptsFile the scripts file
+     * @return the number of lines precompiled and the number of lines
+     * @throws IOException           if the source can't be read, or the cache can't be written
+     * @throws IllegalStateException if the cache's <code>.dsc</code> file is already taken by a script written as source
+     */
+    public Pair<Integer, Integer> write(ScriptsFile scriptsFile) throws IOException {
+        File source = scriptsFile.getFile();
+        File cache = getCacheFile(source);
+        checkState(cache != null, "Only .ds files can be precompiled");
+        checkState(!cache.exists() || isCache(cache), "%s is a script written as source, so %s is not precompiled over it", cache.getName(), source.getName());
+
+        String hash = Reader.hash(source);
+        List<Entry> entries = readSource(source);
+        int precompiled = 0;
+
+        File temp = new File(cache.getParentFile(), cache.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            writeHeader(out, hash);
+            out.writeInt(entries.size());
+
+            for (Entry entry : entries) {
+                String line = Lang.instance().lexer().trim(entry.line);
+                Optional<Statement> statement = Statements.getStatement(line);
+                out.writeInt(entry.absoluteLine);
+                out.writeUTF(entry.line);
+
+                if (writeContent(out, line, statement)) {
+                    precompiled++;
+                }
+
+                if (!statement.isPresent() || !(statement.get() instanceof ElseStatement)) {
+                    out.writeByte(NO_BRANCH);
+                } else { // As the reader compiles else branches
+                    Optional<Statement> branch;
+                    try {
+                        line = line.substring(6).trim();
+                        branch = Statements.getStatement(line);
+                    } catch (Throwable e) {
+                        out.writeByte(SOURCE);
+                        continue;
+                    }
+
+                    if (!branch.isPresent()) { // Else
+                        out.writeByte(PLAIN_ELSE);
+                    } else if (!(branch.get() instanceof IfStatement)) { // Errors when it's read from source
+                        out.writeByte(SOURCE);
+                    } else {
+                        writeContent(out, line, branch);
+                    }
+                }
+            }
+        }
+
+        Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return Pair.of(precompiled, entries.size());
+    }
+
+    /**
+     * Reads the lines of a source file, without its comments
+     *
+     * @param source the source file
+     * @return the lines, with no content
+     * @throws IOException if the source can't be read
+     */
+    List<Entry> readSource(File source) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(source))) {
+            int absoluteLine = 0;
+            boolean blockComment = false;
+            String line;
+
+            while ((line = bufferedReader.readLine()) != null) {
+                absoluteLine++;
+                Pair<Boolean, String> comments = Lang.instance().lexer().removeComments(blockComment, line);
+                blockComment = comments.getLeft();
+
+                if (!comments.getRight().trim().isEmpty()) { // Empty lines don't matter
+                    entries.add(new Entry(absoluteLine, comments.getRight()));
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads the cache of a source file, if it has one that was written from the source as it is now
+     *
+     * @param source the source file
+     * @param hash   the hash of the source
+     * @return the lines, or absent if there's no cache or it's stale
+     */
+    Optional<List<Entry>> read(File source, String hash) {
+        File cache = getCacheFile(source);
+        if (cache == null || hash == null || !isCache(cache)) { // Not a .dsc script written as source either
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+            if (!readHeader(in, hash)) { // Stale, read the source instead
+                return Optional.empty();
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Entry entry = new Entry(in.readInt(), in.readUTF());
+                entry.content = readContent(in, Lang.instance().lexer().trim(entry.line));
+
+                byte branch = in.readByte();
+                if (branch == PLAIN_ELSE) {
+                    entry.plainElse = true;
+                } else if (branch == PRECOMPILED) {
+                    entry.branch = readContent(in, Lang.instance().lexer().trim(entry.line).substring(6).trim()); // As the reader cuts it
+                }
+
+                entries.add(entry);
+            }
+
+            return Optional.of(entries);
+        } catch (Throwable e) {
+            Lang.instance().exceptionHandler().log(new CompilationException(e, "Error in precompiled %s, its source is read instead", cache.getName()));
+            Lang.instance().exceptionHandler().flush();
+            return Optional.empty();
+        }
+    }
+
+    private void writeHeader(DataOutput out, String hash) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(hash);
+        out.writeUTF(Lang.instance().sequencer().getMode().name()); // The parsers make different trees
+        out.writeInt(Statements.getRegistry().size());
+    }
+
+    private boolean readHeader(DataInput in, String hash) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(hash)
+                && in.readUTF().equals(Lang.instance().sequencer().getMode().name()) && in.readInt() == Statements.getRegistry().size();
+    }
+
+    private boolean writeContent(DataOutput out, String line, Optional<Statement> statement) throws IOException {
+        if (statement.isPresent()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try { // Into its own buffer, so a line that can't be written leaves nothing behind
+                encodeContent(new DataOutputStream(bytes), line, statement.get());
+
+                out.writeByte(PRECOMPILED);
+                out.write(bytes.toByteArray());
+                return true;
+            } catch (Throwable ignored) { // Eg a line that doesn't parse, which errors as it did when it's read from source
+            }
+        }
+
+        out.writeByte(SOURCE);
+        return false;
+    }
+
+    private void encodeContent(DataOutputStream out, String line, Statement statement) throws IOException {
+        List<Line.ContextPossibility> contextPossibilities = Line.Content.parse(line, statement);
+        List<Statement> registry = Statements.getRegistry();
+
+        out.writeInt(registry.indexOf(statement));
+        out.writeUTF(statement.getClass().getName());
+        out.writeInt(contextPossibilities.size());
+
+        for (Line.ContextPossibility contextPossibility : contextPossibilities) {
+            Compartment compartment = contextPossibility.getCompartment();
+            Statement.Arguments argumentSet = contextPossibility.getArgumentSet();
+
+            if (compartment == statement) {
+                out.writeBoolean(false);
+            } else {
+                String key = getKey(compartment);
+                checkState(getCompartment(statement, key) == compartment, "Compartments without unique getters cannot be precompiled");
+                out.writeBoolean(true);
+                out.writeUTF(key);
+            }
+
+            out.writeInt(indexOf(compartment.getArgumentsArray(), argumentSet));
+
+            String[] strargs = contextPossibility.getStrargs();
+            out.writeInt(strargs.length);
+            for (String strarg : strargs) {
+                out.writeUTF(strarg);
+            }
+
+            Map<Statement.Argument, DataContainer> containers = contextPossibility.getContainers();
+            out.writeInt(containers.size());
+            for (Map.Entry<Statement.Argument, DataContainer> container : containers.entrySet()) {
+                out.writeInt(indexOf(argumentSet.getArguments(), container.getKey()));
+                Encoder.instance().encode(out, container.getValue());
+            }
+        }
+    }
+
+    private Line.Content readContent(DataInput in, String line) throws IOException {
+        if (in.readByte() != PRECOMPILED) {
+            return null;
+        }
+
+        int index = in.readInt();
+        String className = in.readUTF();
+        List<Statement> registry = Statements.getRegistry();
+        if (index < 0 || index >= registry.size() || !registry.get(index).getClass().getName().equals(className)) {
+            throw new IOException("The statements have changed since this was precompiled");
+        }
+
+        Statement statement = registry.get(index);
+        List<Line.ContextPossibility> contextPossibilities = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            Compartment compartment = in.readBoolean() ? getCompartment(statement, in.readUTF()) : statement;
+            if (compartment == null) {
+                throw new IOException("The compartments of " + className + " have changed since this was precompiled");
+            }
+
+            Statement.Arguments argumentSet = compartment.getArgumentsArray()[in.readInt()];
+            String[] strargs = new String[in.readInt()];
+            for (int j = 0; j < strargs.length; j++) {
+                strargs[j] = in.readUTF();
+            }
+
+            Map<Statement.Argument, DataContainer> containers = new HashMap<>();
+            for (int j = in.readInt(); j > 0; j--) {
+                Statement.Argument argument = argumentSet.getArguments()[in.readInt()];
+                containers.put(argument, Encoder.instance().decode(in));
+            }
+
+            contextPossibilities.add(new Line.ContextPossibility().setArgumentSet(argumentSet).setStrargs(strargs).setContainers(containers).setCompartment(compartment));
+        }
+
+        return new Line.Content(line, statement, contextPossibilities);
+    }
+
+    private static String getKey(Compartment compartment) {
+        String[] getters = compartment.getGetters();
+        checkState(getters != null && getters.length > 0, "Compartments without getters cannot be precompiled");
+        return String.join("|", getters);
+    }
+
+    private static Compartment getCompartment(Statement statement, String key) { // Compartments are kept in a hash set, so they're found by their getters rather than their position
+        Compartment found = null;
+        for (Object obj : statement.getCompartments()) {
+            Compartment compartment = (Compartment) obj;
+            if (compartment.getGetters() != null && String.join("|", compartment.getGetters()).equals(key)) {
+                if (found != null) {
+                    return null; // Ambiguous
+                }
+
+                found = compartment;
+            }
+        }
+
+        return found;
+    }
+
+    private static int indexOf(Object[] array, Object element) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == element) {
+                return i;
+            }
+        }
+
+        throw new IllegalStateException("Not found");
+    }
+
+    /**
+     * A line of a script file without its comments, and its {@link Line.Content} if it was precompiled
+     */
+    static class Entry {
+        private final int absoluteLine;
+        private final String line;
+
+        private Line.Content content = null;
+        private Line.Content branch = null; // Of an else if
+        private boolean plainElse = false;
+
+        Entry(int absoluteLine, String line) {
+            this.absoluteLine = absoluteLine;
+            this.line = line;
+        }
+
+        int getAbsoluteLine() {
+            return absoluteLine;
+        }
+
+        String getLine() {
+            return line;
+        }
+
+        Line.Content getContent() {
+            return content;
+        }
+
+        Line.Content getBranch() {
+            return branch;
+        }
+
+        boolean isPlainElse() {
+            return plainElse;
+        }
+    }
+}
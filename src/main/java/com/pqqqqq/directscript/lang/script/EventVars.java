@@ -0,0 +1,117 @@
+package com.pqqqqq.directscript.lang.script;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * <p>The case insensitive, immutable event var {@link Map} of a {@link ScriptInstance}.</p>
+ * <p>Values given as {@link Supplier}s are only computed the first time they're read, and are then shared by every instance the event triggered.</p>
+ */
+public class EventVars extends AbstractMap<String, Object> {
+    private static final String CAUSE = "Cause";
+
+    private final Map<String, Object> values;
+    private final String cause;
+    private Set<Entry<String, Object>> entrySet = null;
+
+    EventVars(Map<String, Object> values, String cause) {
+        this.values = values;
+        this.cause = cause;
+    }
+
+    /**
+     * Creates a new case insensitive {@link Map} for a {@link ScriptInstance.Builder}'s event vars
+     *
+     * @return the new map
+     */
+    static Map<String, Object> newMap() {
+        return new TreeMap<>(String.CASE_INSENSITIVE_ORDER); // Ignore cases with #get
+    }
+
+    /**
+     * Wraps a {@link Supplier} so it can be put into an event var map, and is only computed once
+     *
+     * @param supplier the supplier
+     * @return the lazy value
+     */
+    static Object lazy(Supplier<?> supplier) {
+        return new Lazy(supplier);
+    }
+
+    /**
+     * Resolves a value of an event var map, computing it if it's lazy
+     *
+     * @param value the value
+     * @return the resolved value
+     */
+    static Object resolve(Object value) {
+        return value instanceof Lazy ? ((Lazy) value).get() : value;
+    }
+
+    /**
+     * Gets the event vars as they were given, with their {@link Supplier}s not yet computed
+     *
+     * @return the unresolved map
+     */
+    Map<String, Object> getUnresolved() {
+        return values;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (CAUSE.equalsIgnoreCase(String.valueOf(key))) {
+            return cause;
+        }
+
+        return resolve(values.get(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() { // Iterating computes every value
+        if (entrySet == null) {
+            Map<String, Object> resolved = newMap();
+            for (String key : values.keySet()) {
+                Object value = get(key);
+                if (value != null) {
+                    resolved.put(key, value);
+                }
+            }
+
+            if (cause != null) {
+                resolved.put(CAUSE, cause);
+            }
+
+            entrySet = Collections.unmodifiableMap(resolved).entrySet();
+        }
+
+        return entrySet;
+    }
+
+    private static class Lazy {
+        private final Supplier<?> supplier;
+        private volatile boolean computed = false;
+        private Object value = null;
+
+        Lazy(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        Object get() {
+            if (!computed) {
+                synchronized (this) {
+                    if (!computed) {
+                        value = supplier.get();
+                        computed = true;
+                    }
+                }
+            }
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pqqqqq.directscript.lang.script;
+
+import com.pqqqqq.directscript.lang.trigger.cause.Cause;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.spongepowered.api.event.Event;
+
+import java.util.Optional;
+
+/**
+ * <p>A reusable {@link ScriptInstance} that reads the event data of the {@link ScriptInstance.Builder} bound to it.</p>
+ * <p>This lets a {@link com.pqqqqq.directscript.lang.trigger.Trigger Trigger}'s guard be evaluated before an instance is built for the event.</p>
+ */
+public class GuardInstance extends ScriptInstance {
+    private ScriptInstance.Builder builder = null;
+    private EventVars eventVars = null;
+
+    /**
+     * Creates a new {@link GuardInstance} for the given {@link Script}
+     *
+     * @param script the script
+     */
+    public GuardInstance(Script script) {
+        super(script, Causes.CALL, Script.runtimePredicate(), null, null, null);
+    }
+
+    /**
+     * Binds a {@link ScriptInstance.Builder}, whose event data this instance reads until it's unbound
+     *
+     * @param builder the builder, or null to unbind
+     */
+    public void bind(ScriptInstance.Builder builder) {
+        this.builder = builder;
+        this.eventVars = builder == null ? null : builder.toEventVars();
+    }
+
+    @Override
+    public Cause getCause() {
+        return builder == null ? super.getCause() : builder.getCause();
+    }
+
+    @Override
+    public Optional<Event> getEvent() {
+        return builder == null ? Optional.empty() : Optional.ofNullable(builder.getEvent());
+    }
+
+    @Override
+    public Optional<org.spongepowered.api.event.cause.Cause> getEventCause() {
+        return builder == null ? Optional.empty() : Optional.ofNullable(builder.getEventCause());
+    }
+
+    @Override
+    public EventVars getEventVars() {
+        return eventVars;
+    }
+}
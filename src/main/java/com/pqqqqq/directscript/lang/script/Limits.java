@@ -0,0 +1,88 @@
+package com.pqqqqq.directscript.lang.script;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The limits a run of a {@link Script} is aborted at: how many statements it runs, how long it runs for, and how deep its calls go.</p>
+ * <p>A limit of 0 falls back to the global limit, and is unlimited if that's 0 too.</p>
+ */
+public class Limits {
+    private static final Limits GLOBAL = new Limits();
+
+    private volatile long statements = 0L;
+    private volatile long time = 0L; // Nanoseconds
+    private volatile int callDepth = 0;
+
+    /**
+     * Gets the global {@link Limits}, which apply to every script that doesn't set its own
+     *
+     * @return the global limits
+     */
+    public static Limits global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Gets the maximum number of statements a run can execute
+     *
+     * @return the statement limit, or 0 if unlimited
+     */
+    public long getStatements() {
+        return statements > 0 || this == GLOBAL ? statements : GLOBAL.statements;
+    }
+
+    /**
+     * Sets the maximum number of statements a run can execute
+     *
+     * @param statements the new statement limit, or 0 for none
+     */
+    public void setStatements(long statements) {
+        this.statements = Math.max(0L, statements);
+    }
+
+    /**
+     * Gets the maximum time a run can take, in nanoseconds, not counting the ticks it's suspended for
+     *
+     * @return the time limit, or 0 if unlimited
+     */
+    public long getTime() {
+        return time > 0 || this == GLOBAL ? time : GLOBAL.time;
+    }
+
+    /**
+     * Sets the maximum time a run can take
+     *
+     * @param time the new time limit, or 0 for none
+     * @param unit the unit of the time
+     */
+    public void setTime(long time, TimeUnit unit) {
+        this.time = Math.max(0L, unit.toNanos(time));
+    }
+
+    /**
+     * Gets the maximum number of script calls a run can be nested in on its thread, including itself
+     *
+     * @return the call depth limit, or 0 if unlimited
+     */
+    public int getCallDepth() {
+        return callDepth > 0 || this == GLOBAL ? callDepth : GLOBAL.callDepth;
+    }
+
+    /**
+     * Sets the maximum number of script calls a run can be nested in on its thread
+     *
+     * @param callDepth the new call depth limit, or 0 for none
+     */
+    public void setCallDepth(int callDepth) {
+        this.callDepth = Math.max(0, callDepth);
+    }
+
+    /**
+     * Gets whether a run is limited by statements or time, and so needs a {@link Watchdog}
+     *
+     * @return true if watched
+     */
+    boolean isWatched() {
+        return getStatements() > 0 || getTime() > 0;
+    }
+}
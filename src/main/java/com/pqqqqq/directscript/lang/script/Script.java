@@ -2,11 +2,16 @@ package com.pqqqqq.directscript.lang.script;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.pqqqqq.directscript.lang.data.Compiler;
+import com.pqqqqq.directscript.lang.data.container.VariableContainer;
+import com.pqqqqq.directscript.lang.data.env.VariableSlots;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Line;
 import com.pqqqqq.directscript.lang.statement.Statement;
 import com.pqqqqq.directscript.lang.trigger.Trigger;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -34,8 +39,16 @@ public class Script extends Block {
     private final ScriptsFile scriptsFile;
     private final String name;
     private final CauseData causeData = new CauseData();
+    private final VariableSlots variableSlots = new VariableSlots();
+    private final Limits limits = new Limits();
 
     private Optional<Trigger> trigger;
+    private long timeSlice = 0L;
+
+    // Binding
+    private final AtomicLong executions = new AtomicLong();
+    private volatile boolean bound = false;
+    private volatile boolean unbound = false;
 
     /**
      * Creates a new {@link Script} contained in a {@link ScriptsFile} and with a given name
@@ -103,6 +116,127 @@ public class Script extends Block {
         this.trigger = trigger;
     }
 
+    /**
+     * Gets the {@link Limits} this script's runs are aborted at, which fall back to the global limits
+     *
+     * @return the limits
+     */
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * <p>Gets the time this script can run for in a tick, in microseconds, before it's suspended until the next one.</p>
+     * <p>Only runs started on the server thread, and not called by another script, are sliced. A time of 0 runs the script to completion.</p>
+     * <p>The first slice runs within the event that triggered the run, so only it can still cancel the event.</p>
+     *
+     * @return the time slice
+     */
+    public long getTimeSlice() {
+        return timeSlice;
+    }
+
+    /**
+     * Sets the time this script can run for in a tick, in microseconds
+     *
+     * @param timeSlice the new time slice, or 0 to run to completion
+     * @see #getTimeSlice()
+     */
+    public void setTimeSlice(long timeSlice) {
+        this.timeSlice = Math.max(0L, timeSlice);
+    }
+
+    /**
+     * Gets the number of times this script has run
+     *
+     * @return the execution count
+     */
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    /**
+     * Gets whether the lines of this script have been bound
+     *
+     * @return true if bound
+     * @see Compiler#bind(Script)
+     */
+    public boolean isBound() {
+        return bound;
+    }
+
+    /**
+     * Sets whether the lines of this script are bound. Once they're unbound, they're never bound again
+     *
+     * @param bound the new value
+     */
+    public void setBound(boolean bound) {
+        this.unbound |= this.bound && !bound;
+        this.bound = bound;
+    }
+
+    /**
+     * Gets whether this script failed while it was bound, and so stays unbound until it's reloaded
+     *
+     * @return true if unbound
+     */
+    public boolean isUnbound() {
+        return unbound;
+    }
+
+    /**
+     * Clears this script's run count and bindings, so it starts as it was compiled
+     *
+     * @see Compiler#reset(Script)
+     */
+    public void resetBinding() {
+        this.bound = false;
+        this.unbound = false;
+        this.executions.set(0L);
+    }
+
+    /**
+     * Counts a run of this script, binding its lines once it passes the {@link Compiler}'s bind threshold
+     */
+    void countExecution() {
+        long threshold = Compiler.instance().getBindThreshold();
+        if (executions.incrementAndGet() == threshold && !unbound) {
+            Compiler.instance().bind(this);
+        }
+    }
+
+    /**
+     * Gets the {@link VariableSlots} for the variables of this script
+     *
+     * @return the variable slots
+     */
+    public VariableSlots getVariableSlots() {
+        return variableSlots;
+    }
+
+    /**
+     * <p>Compiles this script and every nested {@link Block} into their {@link Block.Instruction}s.</p>
+     * <p>This also assigns the {@link VariableSlots} of each variable name its lines read and write, including the variables of loops.</p>
+     */
+    @Override
+    public void compile() {
+        super.compile();
+        for (Line line : getLines()) {
+            assignSlots(line);
+            line.getElseBranches().forEach(this::assignSlots);
+
+            if (line.getInternalBlock().isPresent()) {
+                line.getInternalBlock().get().compile();
+            }
+        }
+    }
+
+    private void assignSlots(Line line) {
+        for (VariableContainer variable : line.getContent().getVariables()) {
+            variable.assignSlot(variableSlots);
+        }
+    }
+
     /**
      * Gets this {@link Script}'s {@link CauseData}
      *
@@ -1,11 +1,13 @@
 package com.pqqqqq.directscript.lang.script;
 
 import com.google.common.base.Predicate;
+import com.pqqqqq.directscript.DirectScript;
 import com.pqqqqq.directscript.lang.Lang;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.converter.Converter;
 import com.pqqqqq.directscript.lang.data.converter.Converters;
 import com.pqqqqq.directscript.lang.data.env.Environment;
+import com.pqqqqq.directscript.lang.exception.ScriptAbortedException;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
 import com.pqqqqq.directscript.lang.reader.Line;
@@ -16,6 +18,9 @@ import com.pqqqqq.directscript.lang.util.ICopyable;
 import org.spongepowered.api.event.Event;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -26,21 +31,24 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public class ScriptInstance extends Environment {
     private static final Builder COMPILE = builder().cause(Causes.COMPILE).predicate(Script.compileTimePredicate());
+    private static final ThreadLocal<int[]> CALL_DEPTH = ThreadLocal.withInitial(() -> new int[1]); // Script runs nested on this thread
 
     private final Script script;
     private final Cause cause;
     private final Predicate<Line> linePredicate;
     private final Optional<Event> event;
     private final Optional<org.spongepowered.api.event.cause.Cause> eventCause;
-    private final Map<String, Object> eventVars;
+    private final EventVars eventVars;
 
-    private final Set<Context> contextSet = new HashSet<Context>();
+    private final Map<Line, Statement.Result> results = new ConcurrentHashMap<>(); // Only the latest per line, so loops don't grow it
+    private final ThreadLocal<Frames> frames = new ThreadLocal<>(); // Scheduled blocks run alongside on other threads. Only set while a block runs on the thread
 
-    private Optional<Literal> returnValue = Optional.empty();
-    private Optional<Block.BlockRunnable> currentRunnable = Optional.empty();
+    private volatile Optional<Literal> returnValue = Optional.empty();
+    private volatile Slice slice = null;
+    private volatile Watchdog watchdog = null;
 
-    ScriptInstance(Script script, Cause cause, Predicate<Line> linePredicate, Event event, org.spongepowered.api.event.cause.Cause eventCause, Map<String, Object> eventVars) {
-        super(Lang.instance()); // The parent is the language's main
+    ScriptInstance(Script script, Cause cause, Predicate<Line> linePredicate, Event event, org.spongepowered.api.event.cause.Cause eventCause, EventVars eventVars) {
+        super(Lang.instance(), script == null ? null : script.getVariableSlots()); // The parent is the language's main
         this.script = script;
         this.cause = cause;
         this.linePredicate = linePredicate;
@@ -127,7 +135,7 @@ public class ScriptInstance extends Environment {
      * Gets the String-Object event var {@link Map} for this {@link ScriptInstance} as per its {@link com.pqqqqq.directscript.lang.trigger.Trigger Trigger}
      * @return the object map
      */
-    public Map<String, Object> getEventVars() {
+    public EventVars getEventVars() {
         return eventVars;
     }
 
@@ -186,44 +194,62 @@ public class ScriptInstance extends Environment {
     }
 
     /**
-     * Gets the current active {@link Block.BlockRunnable}
+     * Gets the current active {@link Block.BlockRunnable} on this thread
      * @return the block runnable
      */
     public Optional<Block.BlockRunnable> getCurrentRunnable() {
-        return currentRunnable;
+        Frames frames = this.frames.get();
+        return Optional.ofNullable(frames == null ? null : frames.stack.peek());
     }
 
     /**
-     * Sets the current active {@link Block.BlockRunnable}
+     * Pushes a {@link Block.BlockRunnable} onto this thread's frame stack, making it the current active runnable
      *
-     * @param currentRunnable the new block runnable
+     * @param blockRunnable the block runnable
      */
-    public void setCurrentRunnable(Optional<Block.BlockRunnable> currentRunnable) {
-        this.currentRunnable = currentRunnable;
+    public void pushFrame(Block.BlockRunnable blockRunnable) {
+        checkNotNull(blockRunnable, "Block runnable cannot be null");
+
+        Frames frames = this.frames.get();
+        if (frames == null) { // The outermost frame on this thread
+            frames = new Frames();
+            this.frames.set(frames);
+        }
+
+        frames.stack.push(blockRunnable);
+    }
+
+    /**
+     * Pops the current active {@link Block.BlockRunnable} off this thread's frame stack
+     */
+    public void popFrame() {
+        Frames frames = this.frames.get();
+        frames.stack.pop();
+
+        if (frames.stack.isEmpty()) {
+            this.frames.remove(); // Execution on this thread is over
+        }
     }
 
     /**
-     * Gets a {@link Set} of {@link Context}s for lines that have already been executed in this {@link ScriptInstance}
+     * Records the {@link Statement.Result} of a {@link Context} that was executed in this {@link ScriptInstance}, replacing its line's last result
      *
-     * @return the set
+     * @param context the executed context
      */
-    public Set<Context> getContextSet() {
-        return contextSet;
+    public void putResult(Context context) {
+        if (context.getLine() != null && context.getResult() != null) {
+            results.put(context.getLine(), context.getResult());
+        }
     }
 
     /**
-     * Gets the {@link Statement.Result} of a specific {@link Line}.
+     * Gets the latest {@link Statement.Result} of a specific {@link Line}.
      *
      * @param line the line to check
      * @return the result, or null if not run yet
      */
     public Statement.Result getResultOf(Line line) {
-        for (Context context : getContextSet()) {
-            if (context.getLine().equals(line)) {
-                return context.getResult();
-            }
-        }
-        return null;
+        return results.get(line);
     }
 
     /**
@@ -231,7 +257,78 @@ public class ScriptInstance extends Environment {
      * @return the {@link Result}
      */
     public Result execute() {
-        return execute(getScript());
+        long timeSlice = getScript().getTimeSlice();
+        if (timeSlice > 0 && slice == null && isRuntime() && CALL_DEPTH.get()[0] == 0 && DirectScript.instance().getGame().getServer().isMainThread()) { // Scripts it calls run within its slices
+            slice = new Slice(this, TimeUnit.MICROSECONDS.toNanos(timeSlice));
+            return slice.start(); // Continues on later ticks if it uses its budget
+        }
+
+        return run();
+    }
+
+    /**
+     * Runs the {@link Script} {@link Block} within its {@link Limits}, aborting it and the scripts that called it once it exceeds them
+     *
+     * @return the {@link Result}
+     */
+    Result run() {
+        return run(() -> {
+            if (isRuntime()) {
+                getScript().countExecution();
+            }
+
+            Limits limits = getScript().getLimits();
+            watchdog = isRuntime() && limits.isWatched() ? new Watchdog(this, limits) : null;
+            return execute(getScript());
+        });
+    }
+
+    /**
+     * Resumes a suspended time sliced run where it left off
+     *
+     * @param suspended the nanoseconds it was suspended for, which don't count towards its time limit
+     * @return the {@link Result}
+     */
+    Result resume(long suspended) {
+        Watchdog currentWatchdog = watchdog;
+        if (currentWatchdog != null) {
+            currentWatchdog.suspended(suspended);
+        }
+
+        return run(this::resumeNext);
+    }
+
+    private Result run(Supplier<Result> execution) {
+        Limits limits = getScript().getLimits();
+        int[] callDepth = CALL_DEPTH.get();
+
+        try {
+            if (limits.getCallDepth() > 0 && callDepth[0] >= limits.getCallDepth()) {
+                throw new ScriptAbortedException("Script '%s' -> '%s' was aborted at a call depth of %d", getScript().getScriptsFile().getStringRepresentation(), getScript().getName(), callDepth[0] + 1);
+            }
+
+            callDepth[0]++;
+            try {
+                return execution.get();
+            } finally {
+                if (!isSuspending()) { // A suspended run keeps counting when it resumes
+                    watchdog = null;
+                }
+                callDepth[0]--;
+            }
+        } catch (ScriptAbortedException e) {
+            if (callDepth[0] > 0) {
+                throw e; // Abort the calling scripts too, and log it once at the outermost
+            }
+
+            Lang.instance().exceptionHandler().log(e);
+            Lang.instance().exceptionHandler().flush();
+            return Result.FAILURE_ERROR;
+        } finally {
+            if (callDepth[0] == 0) {
+                CALL_DEPTH.remove();
+            }
+        }
     }
 
     /**
@@ -243,6 +340,73 @@ public class ScriptInstance extends Environment {
         return block.toRunnable(this).execute();
     }
 
+    /**
+     * <p>Runs a loop, executing the {@link Block.BlockRunnable} of each iteration until there are none left or one breaks.</p>
+     * <p>The iterator sets up each iteration as it's asked for it, so a time sliced run can suspend the loop and resume it on a later tick.</p>
+     *
+     * @param iterations the iterations, which give the block runnable to run for each
+     * @return the {@link Result}, which is {@link Result#SUSPENDED} if the run suspended in the loop
+     */
+    public Result loop(Iterator<Block.BlockRunnable> iterations) {
+        return new Loop(checkNotNull(iterations, "Iterations cannot be null")).run();
+    }
+
+    /**
+     * <p>Called before each block and statement this {@link ScriptInstance} runs.</p>
+     * <p>Counts it against the instance's {@link Limits}, and checks whether a time sliced run has used its budget for this tick.</p>
+     *
+     * @return true if the run should suspend until the next tick, with {@link #suspend(Resumable)}
+     * @throws ScriptAbortedException if the instance has exceeded its limits
+     * @see Script#getTimeSlice()
+     */
+    public boolean step() {
+        Watchdog currentWatchdog = watchdog;
+        if (currentWatchdog != null) {
+            currentWatchdog.step();
+        }
+
+        Slice currentSlice = slice;
+        return currentSlice != null && currentSlice.isSpent();
+    }
+
+    /**
+     * Suspends the time sliced run on this thread, saving a frame of it to resume on the next tick. Frames are saved innermost first, as the run returns through them
+     *
+     * @param frame the frame
+     */
+    public void suspend(Resumable frame) {
+        Slice currentSlice = slice;
+        checkState(currentSlice != null, "Only time sliced runs can suspend");
+        currentSlice.suspend(checkNotNull(frame, "Frame cannot be null"));
+    }
+
+    /**
+     * Gets whether the time sliced run on this thread is suspending, in which case each block it returns through saves where it is
+     *
+     * @return true if it's suspending
+     */
+    public boolean isSuspending() {
+        Slice currentSlice = slice;
+        return currentSlice != null && currentSlice.isSuspending();
+    }
+
+    /**
+     * Resumes the next frame a suspended run saved, which is the one the frame being resumed was running
+     *
+     * @return the {@link Result} of the frame
+     */
+    public Result resumeNext() {
+        Slice currentSlice = slice;
+        checkState(currentSlice != null, "Only time sliced runs can resume");
+        return currentSlice.resumeNext();
+    }
+
+    @Override
+    public Environment getTop() { // Lookups start at the innermost block running on this thread
+        Optional<Block.BlockRunnable> currentRunnable = getCurrentRunnable();
+        return currentRunnable.isPresent() ? currentRunnable.get() : this;
+    }
+
     /**
      * An enumeration of the result of a {@link Block} run
      */
@@ -265,7 +429,65 @@ public class ScriptInstance extends Environment {
         /**
          * Represents a run that was failed due to being continued
          */
-        FAILURE_CONTINUE
+        FAILURE_CONTINUE,
+
+        /**
+         * Represents a time sliced run that used its budget, and continues on a later tick
+         */
+        SUSPENDED
+    }
+
+    /**
+     * A frame of a time sliced run that suspended, such as a block or a loop, which can carry on where it was on a later tick
+     */
+    public interface Resumable {
+
+        /**
+         * Carries on where this frame was suspended, until it's done or suspends again
+         *
+         * @return the {@link Result}
+         */
+        Result resume();
+    }
+
+    private static class Frames { // The execution state of a script instance on one thread
+        private final Deque<Block.BlockRunnable> stack = new ArrayDeque<>();
+    }
+
+    private class Loop implements Resumable {
+        private final Iterator<Block.BlockRunnable> iterations;
+
+        Loop(Iterator<Block.BlockRunnable> iterations) {
+            this.iterations = iterations;
+        }
+
+        Result run() {
+            while (iterations.hasNext()) {
+                if (!proceed(iterations.next().execute())) {
+                    break;
+                }
+            }
+
+            return getResult();
+        }
+
+        @Override
+        public Result resume() {
+            return proceed(resumeNext()) ? run() : getResult(); // Finish the iteration it was suspended in first
+        }
+
+        private Result getResult() {
+            return isSuspending() ? Result.SUSPENDED : Result.SUCCESS;
+        }
+
+        private boolean proceed(Result result) { // Whether to run the next iteration
+            if (result == Result.SUSPENDED || isSuspending()) {
+                suspend(this); // The iteration's block was saved first
+                return false;
+            }
+
+            return result != Result.FAILURE_BREAK;
+        }
     }
 
     /**
@@ -277,7 +499,9 @@ public class ScriptInstance extends Environment {
         private Predicate<Line> linePredicate = Script.runtimePredicate();
         private Event event = null;
         private org.spongepowered.api.event.cause.Cause eventCause = null;
-        private Map<String, Object> eventVars = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER); // Ignore cases with #get
+        private Map<String, Object> eventVars = EventVars.newMap();
+        private boolean sharedEventVars = false; // Copied before it's changed, since copies and built instances share it
+        private List<String> keys = Collections.emptyList();
 
         Builder() { // Default view
         }
@@ -348,7 +572,13 @@ public class ScriptInstance extends Environment {
          * @see ScriptInstance#getEventVars()
          */
         public Builder eventVar(Map<String, Object> eventVars) {
-            this.eventVars.putAll(eventVars);
+            if (eventVars instanceof EventVars) { // Keep uncomputed values uncomputed
+                eventVars = ((EventVars) eventVars).getUnresolved();
+            }
+
+            if (!eventVars.isEmpty()) {
+                mutableEventVars().putAll(eventVars);
+            }
             return this;
         }
 
@@ -360,11 +590,110 @@ public class ScriptInstance extends Environment {
          */
         public Builder eventVar(String key, Object value) {
             if (key != null && value != null) {
-                this.eventVars.put(key, value);
+                mutableEventVars().put(key, value);
+            }
+            return this;
+        }
+
+        /**
+         * Puts a single entry to the object map of this Builder, whose value is only computed if a script reads it
+         * @param key the key
+         * @param supplier the value supplier, which may supply null
+         * @return this builder, for fluency
+         */
+        public Builder eventVar(String key, Supplier<?> supplier) {
+            if (key != null && supplier != null) {
+                mutableEventVars().put(key, EventVars.lazy(supplier));
+            }
+            return this;
+        }
+
+        /**
+         * <p>Adds keys to this Builder, which limit the {@link com.pqqqqq.directscript.lang.trigger.Trigger Trigger}s its {@link Cause} activates to those with a matching key.</p>
+         * <p>Namespaced keys (eg <code>minecraft:zombie</code>) also add the key without their namespace.</p>
+         *
+         * @param keys the keys, such as an entity or block type
+         * @return this builder, for fluency
+         * @see Cause#getTriggers(Collection)
+         */
+        public Builder key(String... keys) {
+            List<String> newKeys = new ArrayList<>(this.keys);
+            for (String key : keys) {
+                if (key != null) {
+                    key = key.toLowerCase(Locale.ROOT);
+                    newKeys.add(key);
+
+                    int namespace = key.indexOf(':');
+                    if (namespace > -1) {
+                        newKeys.add(key.substring(namespace + 1));
+                    }
+                }
             }
+
+            this.keys = newKeys;
             return this;
         }
 
+        /**
+         * Adds the <code>world=NAME</code> key of the given world name to this Builder
+         *
+         * @param worldName the world name
+         * @return this builder, for fluency
+         * @see #key(String...)
+         */
+        public Builder worldKey(String worldName) {
+            return worldName == null ? this : key("world=" + worldName);
+        }
+
+        /**
+         * Gets the keys of this Builder
+         *
+         * @return the keys
+         * @see #key(String...)
+         */
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        /**
+         * Gets the value of an event var of this Builder, computing it if it was given as a {@link Supplier}
+         *
+         * @param key the event var's key
+         * @return the value, or null if there is none
+         */
+        public Object getEventVar(String key) {
+            return EventVars.resolve(eventVars.get(key));
+        }
+
+        private Map<String, Object> mutableEventVars() {
+            if (sharedEventVars) {
+                Map<String, Object> copy = EventVars.newMap();
+                copy.putAll(eventVars);
+
+                this.eventVars = copy;
+                this.sharedEventVars = false;
+            }
+
+            return eventVars;
+        }
+
+        Cause getCause() {
+            return cause;
+        }
+
+        Event getEvent() {
+            return event;
+        }
+
+        org.spongepowered.api.event.cause.Cause getEventCause() {
+            return eventCause;
+        }
+
+        EventVars toEventVars() { // A view of the event vars as built now
+            sharedEventVars = true;
+            return new EventVars(eventVars, cause == null ? null : cause.getNames()[0]);
+        }
+
         /**
          * Copies the builder in its current state
          *
@@ -372,7 +701,11 @@ public class ScriptInstance extends Environment {
          */
         @Override
         public Builder copy() {
-            return new Builder().script(script).cause(cause).predicate(linePredicate).event(event).eventCause(eventCause).eventVar(eventVars);
+            Builder copy = new Builder().script(script).cause(cause).predicate(linePredicate).event(event).eventCause(eventCause);
+            copy.eventVars = eventVars; // Shared until either changes it
+            copy.keys = keys; // Never changed in place
+            copy.sharedEventVars = sharedEventVars = true;
+            return copy;
         }
 
         /**
@@ -382,8 +715,7 @@ public class ScriptInstance extends Environment {
          */
         public ScriptInstance build() {
             checkState(script != null || checkNotNull(cause, "Cause cannot be null").equals(Causes.COMPILE), "Script cannot be null");
-            this.eventVars.put("Cause", cause.getNames()[0]); // Add cause to eventvars
-            return new ScriptInstance(script, cause, checkNotNull(linePredicate, "Predicate cannot be null"), event, eventCause, eventVars);
+            return new ScriptInstance(script, cause, checkNotNull(linePredicate, "Predicate cannot be null"), event, eventCause, toEventVars()); // Add cause to eventvars
         }
     }
 }
@@ -18,6 +18,10 @@ public class ScriptsFile {
     private final File file;
     private final Set<Script> scripts = new HashSet<Script>();
 
+    private long lastModified = -1L;
+    private long length = -1L;
+    private String hash = null;
+
     /**
      * Creates a new script file with the given root script {@link File} and specific file
      *
@@ -47,6 +51,46 @@ public class ScriptsFile {
         return file;
     }
 
+    /**
+     * Gets the modification time the {@link File} had when it was read
+     *
+     * @return the modification time, or -1 if it's not been read
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the length the {@link File} had when it was read
+     *
+     * @return the length, or -1 if it's not been read
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the hash of the contents the {@link File} had when it was read
+     *
+     * @return the hash, or null if it's not been read
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Sets the fingerprint of the {@link File} as it was read, which a reload compares it against to tell if it's changed
+     *
+     * @param lastModified the modification time
+     * @param length       the length
+     * @param hash         the hash of the contents
+     */
+    public void setFingerprint(long lastModified, long length, String hash) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.hash = hash;
+    }
+
     /**
      * Gets a {@link Set} of {@link Script}s contained in this {@link ScriptsFile}
      *
@@ -0,0 +1,128 @@
+package com.pqqqqq.directscript.lang.script;
+
+import com.pqqqqq.directscript.DirectScript;
+import org.spongepowered.api.scheduler.Task;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>A time sliced run of a {@link ScriptInstance}, which suspends once it has used its budget for the tick and resumes on the next one.</p>
+ * <p>The run stays on the server thread. When it suspends, each block and loop it's in saves where it was as a {@link ScriptInstance.Resumable} frame
+ * and returns, and a task resumes the frames, outermost first, on the next tick.</p>
+ */
+class Slice {
+    private final ScriptInstance scriptInstance;
+    private final long budget; // Nanoseconds
+    private final Deque<ScriptInstance.Resumable> frames = new ArrayDeque<>(); // Outermost first, while suspended
+
+    private volatile Thread thread = null; // Only set while a slice runs
+    private long deadline = 0L;
+    private boolean stepped = false;
+    private boolean suspending = false;
+    private long suspendedAt = 0L;
+    private Task resumer = null;
+
+    Slice(ScriptInstance scriptInstance, long budget) {
+        this.scriptInstance = scriptInstance;
+        this.budget = budget;
+    }
+
+    /**
+     * Runs the first slice of the script
+     *
+     * @return the result if it finished, or {@link ScriptInstance.Result#SUSPENDED}
+     */
+    ScriptInstance.Result start() {
+        ScriptInstance.Result result = run(scriptInstance::run);
+        if (result == ScriptInstance.Result.SUSPENDED) {
+            DirectScript plugin = DirectScript.instance();
+            resumer = plugin.getGame().getScheduler().createTaskBuilder().delayTicks(1L).intervalTicks(1L).execute(this::resume).name("ScriptSlice").submit(plugin);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets whether the slice running on this thread has used its budget. The first check of each slice never has, so every slice gets somewhere
+     *
+     * @return true if it should suspend
+     */
+    boolean isSpent() {
+        if (Thread.currentThread() != thread) {
+            return false; // Scheduled blocks of the run aren't sliced
+        }
+
+        if (!stepped) {
+            stepped = true;
+            return false;
+        }
+
+        return System.nanoTime() >= deadline;
+    }
+
+    /**
+     * Gets whether the slice running on this thread is suspending, and its blocks should save where they are and return
+     *
+     * @return true if it's suspending
+     */
+    boolean isSuspending() {
+        return suspending && Thread.currentThread() == thread;
+    }
+
+    /**
+     * Saves a frame of the suspending run. Inner frames are saved first, as the run returns through them
+     *
+     * @param frame the frame
+     */
+    void suspend(ScriptInstance.Resumable frame) {
+        checkState(Thread.currentThread() == thread, "Only a running slice can suspend");
+        frames.push(frame);
+        suspending = true;
+    }
+
+    /**
+     * Resumes the outermost frame that's still suspended
+     *
+     * @return the frame's result
+     */
+    ScriptInstance.Result resumeNext() {
+        checkState(Thread.currentThread() == thread && !frames.isEmpty(), "There is no suspended frame to resume");
+        return frames.pop().resume();
+    }
+
+    private ScriptInstance.Result run(Supplier<ScriptInstance.Result> execution) {
+        thread = Thread.currentThread();
+        deadline = System.nanoTime() + budget;
+        stepped = false;
+        suspending = false;
+
+        try {
+            ScriptInstance.Result result = execution.get();
+            if (suspending) {
+                suspendedAt = System.nanoTime();
+                return ScriptInstance.Result.SUSPENDED;
+            }
+
+            frames.clear(); // Finished, or aborted part way through resuming
+            return result;
+        } finally {
+            thread = null;
+        }
+    }
+
+    private void resume() {
+        if (frames.isEmpty()) { // Already queued when it finished
+            resumer.cancel();
+            return;
+        }
+
+        long suspended = System.nanoTime() - suspendedAt;
+        if (run(() -> scriptInstance.resume(suspended)) != ScriptInstance.Result.SUSPENDED) {
+            resumer.cancel();
+        }
+    }
+}
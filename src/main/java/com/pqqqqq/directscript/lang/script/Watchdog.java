@@ -0,0 +1,81 @@
+package com.pqqqqq.directscript.lang.script;
+
+import com.pqqqqq.directscript.lang.exception.ScriptAbortedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the statements of a run of a {@link ScriptInstance} down, and only checks its {@link Limits} every so many of them
+ * <p>Its scheduled blocks step it from other threads, so the countdown and suspended time are atomic, and the checks are made one at a time.</p>
+ */
+class Watchdog {
+    private static final int CHECK_INTERVAL = 1024; // Statements between clock reads
+
+    private final ScriptInstance scriptInstance;
+    private final long maxStatements;
+    private final long maxTime;
+    private final long start = System.nanoTime();
+
+    private final AtomicLong suspended = new AtomicLong();
+    private final AtomicInteger countdown = new AtomicInteger();
+
+    private long statements = 0L; // Guarded by the checks
+    private int batch;
+
+    Watchdog(ScriptInstance scriptInstance, Limits limits) {
+        this.scriptInstance = scriptInstance;
+        this.maxStatements = limits.getStatements();
+        this.maxTime = limits.getTime();
+        this.batch = nextBatch();
+        this.countdown.set(batch);
+    }
+
+    /**
+     * Counts a statement, and aborts the run if it's exceeded its limits
+     *
+     * @throws ScriptAbortedException if it has
+     */
+    void step() {
+        if (countdown.decrementAndGet() <= 0) {
+            check();
+        }
+    }
+
+    /**
+     * Leaves time the run was suspended for out of its time limit
+     *
+     * @param nanos the suspended time
+     */
+    void suspended(long nanos) {
+        suspended.addAndGet(nanos);
+    }
+
+    private synchronized void check() {
+        if (countdown.get() > 0) {
+            return; // Another thread checked it meanwhile
+        }
+
+        statements += batch;
+        if (maxStatements > 0 && statements > maxStatements) {
+            throw new ScriptAbortedException("Script '%s' -> '%s' was aborted after running more than %d statements", getFile(), scriptInstance.getScript().getName(), maxStatements);
+        }
+
+        long elapsed = System.nanoTime() - start - suspended.get();
+        if (maxTime > 0 && elapsed > maxTime) {
+            throw new ScriptAbortedException("Script '%s' -> '%s' was aborted after running for more than %dms", getFile(), scriptInstance.getScript().getName(), TimeUnit.NANOSECONDS.toMillis(maxTime));
+        }
+
+        batch = nextBatch();
+        countdown.set(batch); // Left at zero once aborted, so every later step aborts too
+    }
+
+    private int nextBatch() { // Lands exactly on the statement limit
+        return maxStatements > 0 ? (int) Math.max(1L, Math.min(CHECK_INTERVAL, maxStatements - statements + 1)) : CHECK_INTERVAL;
+    }
+
+    private String getFile() {
+        return scriptInstance.getScript().getScriptsFile().getStringRepresentation();
+    }
+}
@@ -11,8 +11,7 @@ import com.pqqqqq.directscript.lang.trigger.Trigger;
 import com.pqqqqq.directscript.lang.util.RegistryUtil;
 import org.spongepowered.api.data.DataSerializable;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Created by Kevin on 2015-06-02.
@@ -29,6 +28,8 @@ public class Statements {
     public static final Statement TERMINATION = new Termination();
     public static final Statement TIMER = new TimerStatement();
     public static final Statement COMMAND = new CommandStatement();
+    public static final Statement TIME_SLICE = new TimeSliceStatement();
+    public static final Statement LIMIT = new LimitStatement();
 
     // Generic statements
     public static final Statement PRINT = new PrintStatement();
@@ -114,9 +115,11 @@ public class Statements {
     public static final Statement<Object> EVENT = new EventStatement();
 
     private static final List<Statement> REGISTRY;
+    private static final Index INDEX;
 
     static {
         REGISTRY = RegistryUtil.getAllOf(Statement.class, Statements.class);
+        INDEX = new Index(REGISTRY);
     }
 
     /**
@@ -135,6 +138,17 @@ public class Statements {
      * @return the statement
      */
     public static Optional<Statement> getStatement(String line) {
+        return INDEX.getStatement(line);
+    }
+
+    /**
+     * <p>Gets an {@link Optional} {@link Statement} for the {@link Line} by testing every statement in the registry, in order.</p>
+     * <p>This is always the same as {@link #getStatement(String)}, which only tests the statements whose prefix and identifiers fit the line.</p>
+     *
+     * @param line the line
+     * @return the statement
+     */
+    public static Optional<Statement> getStatementLinear(String line) {
         for (Statement statement : REGISTRY) {
             if (!statement.getClass().isAnnotationPresent(Statement.Concept.class) && statement.getSyntax().matches(line)) { // Concept statements are excluded
                 return Optional.of(statement);
@@ -143,4 +157,70 @@ public class Statements {
 
         return Optional.empty();
     }
+
+    private static class Index { // A case insensitive trie of each statement's prefix followed by its identifiers
+        private final Statement[] statements; // In registry order, which is also the priority order
+        private final Node root = new Node();
+
+        Index(List<Statement> registry) {
+            List<Statement> statements = new ArrayList<>();
+            for (Statement statement : registry) {
+                if (!statement.getClass().isAnnotationPresent(Statement.Concept.class)) { // Concept statements are excluded
+                    statements.add(statement);
+                }
+            }
+
+            this.statements = statements.toArray(new Statement[statements.size()]);
+            for (int i = 0; i < this.statements.length; i++) {
+                Statement.Syntax syntax = this.statements[i].getSyntax();
+                String[] identifiers = syntax.getIdentifiers();
+
+                if (syntax.getCustomPredicate().isPresent()) {
+                    root.statements.set(i); // Custom predicates could match anything, so they're always tested
+                } else if (identifiers == null || identifiers.length == 0) {
+                    add(syntax.getPrefix(), i);
+                } else {
+                    for (String identifier : identifiers) {
+                        add(syntax.getPrefix() + identifier, i);
+                    }
+                }
+            }
+        }
+
+        private void add(String key, int index) {
+            Node node = root;
+            for (char c : key.toCharArray()) {
+                node = node.children.computeIfAbsent(Character.toLowerCase(c), (character) -> new Node());
+            }
+
+            node.statements.set(index);
+        }
+
+        Optional<Statement> getStatement(String line) {
+            BitSet candidates = (BitSet) root.statements.clone();
+
+            int start = 0;
+            while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                start++; // Syntax patterns allow leading whitespace
+            }
+
+            Node node = root;
+            for (int i = start; i < line.length() && (node = node.children.get(Character.toLowerCase(line.charAt(i)))) != null; i++) {
+                candidates.or(node.statements); // Every key along the path is a prefix of the line
+            }
+
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (statements[i].getSyntax().matches(line)) {
+                    return Optional.of(statements[i]);
+                }
+            }
+
+            return Optional.empty();
+        }
+
+        private static class Node {
+            private final Map<Character, Node> children = new HashMap<>();
+            private final BitSet statements = new BitSet();
+        }
+    }
 }
@@ -1,11 +1,11 @@
 package com.pqqqqq.directscript.lang.statement.generic.setters;
 
+import com.google.common.collect.Iterators;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.env.Variable;
 import com.pqqqqq.directscript.lang.exception.MissingInternalBlockException;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
-import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.statement.Statement;
 
 import java.util.List;
@@ -35,18 +35,10 @@ public class ForEachStatement extends Statement {
         Block.BlockRunnable blockRunnable = internalBlock.toRunnable(ctx.getScriptInstance());
         Variable var = blockRunnable.addVariable(new Variable(varName, blockRunnable));
 
-        for (Literal arrayVar : array) {
+        ctx.getScriptInstance().loop(Iterators.transform(array.iterator(), (arrayVar) -> {
             var.setDatum(arrayVar);
-            ScriptInstance.Result result = blockRunnable.execute();
-
-            if (result == ScriptInstance.Result.FAILURE_BREAK) {
-                break;
-            }
-
-            if (result == ScriptInstance.Result.FAILURE_CONTINUE) {
-                continue;
-            }
-        }
+            return blockRunnable;
+        }));
 
         return Result.success();
     }
@@ -1,11 +1,11 @@
 package com.pqqqqq.directscript.lang.statement.generic.setters;
 
+import com.google.common.collect.Iterators;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.env.Variable;
 import com.pqqqqq.directscript.lang.exception.MissingInternalBlockException;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
-import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.statement.Statement;
 
 import java.util.Map;
@@ -38,19 +38,11 @@ public class ForKVStatement extends Statement {
         Variable key = blockRunnable.addVariable(new Variable(keyName, blockRunnable));
         Variable value = blockRunnable.addVariable(new Variable(valueName, blockRunnable));
 
-        for (Map.Entry<Literal, Literal> entry : map.entrySet()) {
+        ctx.getScriptInstance().loop(Iterators.transform(map.entrySet().iterator(), (entry) -> {
             key.setDatum(entry.getKey());
             value.setDatum(entry.getValue());
-
-            ScriptInstance.Result result = blockRunnable.execute();
-            if (result == ScriptInstance.Result.FAILURE_BREAK) {
-                break;
-            }
-
-            if (result == ScriptInstance.Result.FAILURE_CONTINUE) {
-                continue;
-            }
-        }
+            return blockRunnable;
+        }));
 
         return Result.success();
     }
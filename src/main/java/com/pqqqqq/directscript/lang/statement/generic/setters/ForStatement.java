@@ -1,11 +1,11 @@
 package com.pqqqqq.directscript.lang.statement.generic.setters;
 
+import com.google.common.collect.AbstractIterator;
 import com.pqqqqq.directscript.lang.data.Literal;
 import com.pqqqqq.directscript.lang.data.env.Variable;
 import com.pqqqqq.directscript.lang.exception.MissingInternalBlockException;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
-import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.statement.Statement;
 
 /**
@@ -37,18 +37,20 @@ public class ForStatement extends Statement {
         Block.BlockRunnable blockRunnable = internalBlock.toRunnable(ctx.getScriptInstance());
         Variable var = blockRunnable.addVariable(new Variable(varName, blockRunnable));
 
-        for (double x = startValue; (startValue <= endValue ? x <= endValue : x >= endValue); x += increment) {
-            var.setDatum(Literal.fromObject(x));
-            ScriptInstance.Result result = blockRunnable.execute();
+        ctx.getScriptInstance().loop(new AbstractIterator<Block.BlockRunnable>() {
+            private double x = startValue;
 
-            if (result == ScriptInstance.Result.FAILURE_BREAK) {
-                break;
-            }
+            @Override
+            protected Block.BlockRunnable computeNext() {
+                if (!(startValue <= endValue ? x <= endValue : x >= endValue)) {
+                    return endOfData();
+                }
 
-            if (result == ScriptInstance.Result.FAILURE_CONTINUE) {
-                continue;
+                var.setDatum(Literal.fromObject(x));
+                x += increment;
+                return blockRunnable;
             }
-        }
+        });
 
         return Result.success();
     }
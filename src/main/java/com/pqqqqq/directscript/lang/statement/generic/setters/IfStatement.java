@@ -3,6 +3,7 @@ package com.pqqqqq.directscript.lang.statement.generic.setters;
 import com.pqqqqq.directscript.lang.exception.MissingInternalBlockException;
 import com.pqqqqq.directscript.lang.reader.Block;
 import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.reader.Line;
 import com.pqqqqq.directscript.lang.statement.Statement;
 
 /**
@@ -28,6 +29,15 @@ public class IfStatement extends Statement<Boolean> {
 
         if (result) {
             internalBlock.toRunnable(ctx.getScriptInstance()).execute();
+        } else {
+            for (Line branch : ctx.getLine().getElseBranches()) { // Run the first else if that's true, or the else
+                if (branch.getStatement() instanceof IfStatement && !branch.toContext(ctx.getScriptInstance()).getLiteral("Condition").getBoolean()) {
+                    continue;
+                }
+
+                branch.getInternalBlock().orElseThrow(() -> new MissingInternalBlockException("Else statements must have internal blocks.")).toRunnable(ctx.getScriptInstance()).execute();
+                break;
+            }
         }
 
         return Result.<Boolean>builder().success().result(result).build();
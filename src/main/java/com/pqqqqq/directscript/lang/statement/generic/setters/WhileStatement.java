@@ -1,5 +1,6 @@
 package com.pqqqqq.directscript.lang.statement.generic.setters;
 
+import com.google.common.collect.AbstractIterator;
 import com.pqqqqq.directscript.lang.data.container.DataContainer;
 import com.pqqqqq.directscript.lang.exception.MissingInternalBlockException;
 import com.pqqqqq.directscript.lang.reader.Block;
@@ -27,18 +28,14 @@ public class WhileStatement extends Statement {
     public Result run(Context ctx) {
         Block internalBlock = ctx.getLine().getInternalBlock().orElseThrow(() -> new MissingInternalBlockException("While statements must have internal blocks."));
         DataContainer container = ctx.getContainer("Condition");
+        ScriptInstance scriptInstance = ctx.getScriptInstance();
 
-        while (container.resolve(ctx).getBoolean()) { // This needs to be re-parsed every time
-            ScriptInstance.Result result = ctx.getScriptInstance().execute(internalBlock);
-
-            if (result == ScriptInstance.Result.FAILURE_BREAK) {
-                break;
-            }
-
-            if (result == ScriptInstance.Result.FAILURE_CONTINUE) {
-                continue;
+        scriptInstance.loop(new AbstractIterator<Block.BlockRunnable>() {
+            @Override
+            protected Block.BlockRunnable computeNext() {
+                return container.resolve(ctx).getBoolean() ? internalBlock.toRunnable(scriptInstance) : endOfData(); // This needs to be re-parsed every time
             }
-        }
+        });
 
         return Result.success();
     }
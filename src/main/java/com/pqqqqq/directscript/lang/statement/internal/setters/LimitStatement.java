@@ -0,0 +1,50 @@
+package com.pqqqqq.directscript.lang.statement.internal.setters;
+
+import com.pqqqqq.directscript.lang.data.Literal;
+import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.script.Limits;
+import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.util.Utilities;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a limit statement, which sets one of the limits a script's runs are aborted at
+ * @see Limits
+ */
+public class LimitStatement extends Statement {
+    public static final Syntax SYNTAX = Syntax.builder()
+            .identifiers("limit")
+            .executionTime(ExecutionTime.COMPILE)
+            .arguments(Arguments.of(GenericArguments.withName("Limit"), ",", GenericArguments.withName("Value")))
+            .build();
+
+    @Override
+    public Syntax getSyntax() {
+        return SYNTAX;
+    }
+
+    @Override
+    public Result run(Context ctx) {
+        Limits limits = ctx.getScript().getLimits();
+        String limit = ctx.getLiteral("Limit").getString();
+        Literal value = ctx.getLiteral("Value");
+
+        switch (limit.toLowerCase(Locale.ROOT)) {
+            case "statements":
+                limits.setStatements(value.getNumber().longValue());
+                break;
+            case "time":
+                limits.setTime(Utilities.getFormattedTime(value.getString()), TimeUnit.MICROSECONDS);
+                break;
+            case "depth":
+                limits.setCallDepth(value.getNumber().intValue());
+                break;
+            default:
+                return Result.builder().failure().error("Unknown limit: " + limit + ". Valid limits are: statements, time, depth").build();
+        }
+
+        return Result.success();
+    }
+}
@@ -0,0 +1,28 @@
+package com.pqqqqq.directscript.lang.statement.internal.setters;
+
+import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.util.Utilities;
+
+/**
+ * Represents a time slice statement, which lets a script's runs continue over several ticks
+ * @see com.pqqqqq.directscript.lang.script.Script#getTimeSlice()
+ */
+public class TimeSliceStatement extends Statement {
+    public static final Syntax SYNTAX = Syntax.builder()
+            .identifiers("timeslice")
+            .executionTime(ExecutionTime.COMPILE)
+            .arguments(Arguments.of(GenericArguments.withName("TimeSlice")))
+            .build();
+
+    @Override
+    public Syntax getSyntax() {
+        return SYNTAX;
+    }
+
+    @Override
+    public Result run(Context ctx) {
+        ctx.getScript().setTimeSlice(Utilities.getFormattedTime(ctx.getLiteral("TimeSlice").getString()));
+        return Result.success();
+    }
+}
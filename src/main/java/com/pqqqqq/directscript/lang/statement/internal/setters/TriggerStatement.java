@@ -1,12 +1,16 @@
 package com.pqqqqq.directscript.lang.statement.internal.setters;
 
 import com.pqqqqq.directscript.lang.data.Literal;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
 import com.pqqqqq.directscript.lang.reader.Context;
 import com.pqqqqq.directscript.lang.statement.Statement;
+import com.pqqqqq.directscript.lang.trigger.Limiter;
 import com.pqqqqq.directscript.lang.trigger.Trigger;
 import com.pqqqqq.directscript.lang.trigger.cause.Cause;
 import com.pqqqqq.directscript.lang.trigger.cause.Causes;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +25,7 @@ public class TriggerStatement extends Statement<Trigger> {
             .identifiers("trigger")
             .executionTime(ExecutionTime.COMPILE)
             .arguments(Arguments.of(GenericArguments.withName("TriggerArray")))
+            .arguments(Arguments.of(GenericArguments.withName("TriggerArray"), ",", GenericArguments.withNameAndFlags("Guard", Argument.NO_RESOLVE)))
             .build();
 
     @Override
@@ -35,11 +40,34 @@ public class TriggerStatement extends Statement<Trigger> {
 
         for (Literal trigger : triggers) {
             String causeString = trigger.getString();
+            Optional<Limiter> limiter = Limiter.fromOption(causeString);
+            if (limiter.isPresent()) { // An option, eg throttle=500ms
+                triggerBuilder.limiter(limiter.get());
+                continue;
+            }
+
+            List<String> keys = Collections.emptyList();
+
+            int bracket = causeString.indexOf('[');
+            if (bracket > -1 && causeString.endsWith("]")) { // Keyed, eg Spawn[zombie, world=world_nether]
+                keys = Arrays.asList(causeString.substring(bracket + 1, causeString.length() - 1).split(","));
+                causeString = causeString.substring(0, bracket);
+            }
+
             Optional<Cause> cause = Causes.getCause(causeString);
 
             checkState(cause.isPresent(), "Unknown cause: " + causeString);
             checkState(cause.get() != Causes.COMPILE, "The Compile cause cannot be used at runtime");
-            triggerBuilder.cause(cause.get());
+            if (keys.isEmpty()) {
+                triggerBuilder.cause(cause.get());
+            } else {
+                triggerBuilder.cause(cause.get(), keys);
+            }
+        }
+
+        DataContainer guard = ctx.getContainer("Guard");
+        if (guard != null) { // Compiled with the line, resolved per activation
+            triggerBuilder.guard(ctx.getLine(), guard);
         }
 
         return Result.<Trigger>builder().success().result(triggerBuilder.build()).build();
@@ -0,0 +1,224 @@
+package com.pqqqqq.directscript.lang.trigger;
+
+import com.pqqqqq.directscript.DirectScript;
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
+import com.pqqqqq.directscript.lang.trigger.cause.Cause;
+import com.pqqqqq.directscript.lang.util.Utilities;
+import org.spongepowered.api.util.Identifiable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>Limits how often a {@link Trigger} runs per player or entity, by throttling or debouncing its activations.</p>
+ * <p>Activations are keyed by the UUID of their <code>Player</code>, <code>Entity</code> or <code>Source</code> event var, or share one key if they have none.</p>
+ */
+public class Limiter {
+    private static final String[] KEY_VARS = {"Player", "Entity", "Source"};
+    private static final UUID GLOBAL = new UUID(0L, 0L);
+    private static final int PRUNE_SIZE = 256;
+
+    private final Mode mode;
+    private final long interval; // Nanoseconds
+
+    private final Map<UUID, Long> lastRuns = new ConcurrentHashMap<>(); // Throttle
+    private final Map<UUID, Pending> pending = new HashMap<>(); // Debounce, guarded by itself
+    private volatile int nextPrune = PRUNE_SIZE;
+
+    Limiter(Mode mode, long interval) {
+        checkState(interval > 0, "The %s interval must be positive", mode.getName());
+        this.mode = mode;
+        this.interval = interval;
+    }
+
+    /**
+     * Parses a limiter option of a trigger, such as <code>throttle=500ms</code> or <code>debounce=200ms</code>
+     *
+     * @param option the option
+     * @return the limiter, or absent if the option isn't one
+     */
+    public static Optional<Limiter> fromOption(String option) {
+        int equals = option.indexOf('=');
+        if (equals > -1) {
+            String name = option.substring(0, equals).trim();
+            for (Mode mode : Mode.values()) {
+                if (mode.getName().equalsIgnoreCase(name)) {
+                    long micros = Utilities.getFormattedTime(option.substring(equals + 1));
+                    return Optional.of(new Limiter(mode, TimeUnit.NANOSECONDS.convert(micros, TimeUnit.MICROSECONDS)));
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the {@link Mode} of this limiter
+     *
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the interval of this limiter, in milliseconds
+     *
+     * @return the interval
+     */
+    public long getInterval() {
+        return TimeUnit.MILLISECONDS.convert(interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of keys this limiter currently keeps state for
+     *
+     * @return the key count
+     */
+    public int size() {
+        synchronized (pending) {
+            return lastRuns.size() + pending.size();
+        }
+    }
+
+    /**
+     * <p>Gets whether an activation may run its {@link Trigger} now.</p>
+     * <p>A debounced activation never runs now, but replaces the pending activation of its key, which is run once the key has been quiet for the interval.</p>
+     *
+     * @param trigger the trigger
+     * @param cause   the activated cause
+     * @param builder the builder of the activation
+     * @return true if the activation should run now
+     */
+    boolean admit(Trigger trigger, Cause cause, ScriptInstance.Builder builder) {
+        UUID key = getKey(builder);
+        long now = System.nanoTime();
+
+        if (mode == Mode.THROTTLE) {
+            Long lastRun = lastRuns.get(key);
+            if (lastRun != null && now - lastRun < interval) {
+                return false;
+            }
+
+            lastRuns.put(key, now);
+            if (lastRuns.size() > nextPrune) { // Keys that would be admitted anyway, eg of despawned entities
+                lastRuns.values().removeIf((time) -> now - time >= interval);
+                nextPrune = Math.max(PRUNE_SIZE, lastRuns.size() * 2);
+            }
+            return true;
+        }
+
+        synchronized (pending) {
+            Pending latest = pending.get(key);
+            if (latest == null) {
+                latest = new Pending(trigger, key);
+                pending.put(key, latest);
+                schedule(latest, interval);
+            }
+
+            latest.cause = cause;
+            latest.builder = builder.copy();
+            latest.deadline = now + interval;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the state kept for a key, such as that of a player who quit. A pending debounced activation of the key is dropped
+     *
+     * @param uuid the key
+     */
+    public void evict(UUID uuid) {
+        lastRuns.remove(uuid);
+        synchronized (pending) {
+            pending.remove(uuid);
+        }
+    }
+
+    private void schedule(Pending latest, long delay) {
+        DirectScript.instance().getGame().getScheduler().createTaskBuilder().delay(delay, TimeUnit.NANOSECONDS)
+                .execute(() -> fire(latest)).name("TriggerDebounce").submit(DirectScript.instance());
+    }
+
+    private void fire(Pending latest) {
+        synchronized (pending) {
+            if (pending.get(latest.key) != latest) { // Evicted
+                return;
+            }
+
+            long remaining = latest.deadline - System.nanoTime();
+            if (remaining > 0) { // Activated again since this was scheduled
+                schedule(latest, remaining);
+                return;
+            }
+
+            pending.remove(latest.key);
+        }
+
+        if (latest.cause.getTriggers().contains(latest.trigger)) { // Not since reloaded
+            latest.cause.run(latest.trigger, latest.builder);
+        }
+    }
+
+    private static UUID getKey(ScriptInstance.Builder builder) {
+        for (String var : KEY_VARS) {
+            Object value = builder.getEventVar(var);
+            if (value instanceof Identifiable) {
+                return ((Identifiable) value).getUniqueId();
+            }
+        }
+
+        return GLOBAL;
+    }
+
+    /**
+     * The ways a {@link Limiter} can limit activations
+     */
+    public enum Mode {
+        /**
+         * Runs the first activation of a key, and drops the rest until the interval has passed
+         */
+        THROTTLE("throttle"),
+
+        /**
+         * Runs only the last activation of a key, once no other has followed it for the interval
+         */
+        DEBOUNCE("debounce");
+
+        private final String name;
+
+        Mode(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the option name of this mode
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static class Pending {
+        private final Trigger trigger;
+        private final UUID key;
+
+        private Cause cause;
+        private ScriptInstance.Builder builder;
+        private long deadline;
+
+        Pending(Trigger trigger, UUID key) {
+            this.trigger = trigger;
+            this.key = key;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.pqqqqq.directscript.lang.trigger;
 
 import com.google.common.base.Optional;
+import com.pqqqqq.directscript.lang.Lang;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.exception.state.ExecutionException;
+import com.pqqqqq.directscript.lang.reader.Context;
+import com.pqqqqq.directscript.lang.reader.Line;
+import com.pqqqqq.directscript.lang.script.GuardInstance;
 import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.trigger.cause.Cause;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -18,9 +24,15 @@ import static com.google.common.base.Preconditions.checkState;
 public class Trigger {
     private final Script script;
     private final Cause[] causes;
+    private final Map<Cause, Set<String>> keys;
+    private final Guard guard;
+    private final Limiter limiter;
 
-    Trigger(Script script, Cause... causes) {
+    Trigger(Script script, Map<Cause, Set<String>> keys, Guard guard, Limiter limiter, Cause... causes) {
         this.script = script;
+        this.keys = keys;
+        this.guard = guard;
+        this.limiter = limiter;
         this.causes = causes;
 
         this.script.setTrigger(Optional.of(this));
@@ -53,6 +65,58 @@ public class Trigger {
         return causes;
     }
 
+    /**
+     * <p>Gets the lower case keys this trigger is limited to for the given {@link Cause}, such as entity or block types, or <code>world=NAME</code>.</p>
+     * <p>The trigger only runs for activations with one of these keys of each kind, or for every activation if there are none.</p>
+     *
+     * @param cause the cause
+     * @return the keys, or an empty set for all activations
+     * @see Cause#matches(Set, Collection)
+     */
+    public Set<String> getKeys(Cause cause) {
+        Set<String> causeKeys = keys.get(cause);
+        return causeKeys == null ? Collections.emptySet() : causeKeys;
+    }
+
+    /**
+     * Gets the {@link Guard} that activations must pass for this trigger to run its script
+     *
+     * @return the guard, or absent if none
+     */
+    public Optional<Guard> getGuard() {
+        return Optional.fromNullable(guard);
+    }
+
+    /**
+     * Gets whether an activation of the given {@link ScriptInstance.Builder} passes this trigger's {@link Guard}, without building an instance
+     *
+     * @param builder the builder
+     * @return true if it passes, or if this trigger has no guard
+     */
+    public boolean accepts(ScriptInstance.Builder builder) {
+        return guard == null || guard.test(builder);
+    }
+
+    /**
+     * Gets the {@link Limiter} that throttles or debounces this trigger's activations
+     *
+     * @return the limiter, or absent if none
+     */
+    public Optional<Limiter> getLimiter() {
+        return Optional.fromNullable(limiter);
+    }
+
+    /**
+     * Gets whether an activation of the given {@link ScriptInstance.Builder} may run this trigger now, as decided by its {@link Limiter}
+     *
+     * @param cause   the activated cause
+     * @param builder the builder
+     * @return true if it may run now, or if this trigger has no limiter
+     */
+    public boolean admits(Cause cause, ScriptInstance.Builder builder) {
+        return limiter == null || limiter.admit(this, cause, builder);
+    }
+
     /**
      * Gets whether this trigger has the specified {@link Cause}
      *
@@ -76,6 +140,10 @@ public class Trigger {
     public static class Builder {
         private Script script = null;
         private Set<Cause> causes = new HashSet<Cause>();
+        private Set<Cause> wildcardCauses = new HashSet<Cause>();
+        private Map<Cause, Set<String>> keys = new HashMap<>();
+        private Guard guard = null;
+        private Limiter limiter = null;
 
         Builder() { // Default visibility
         }
@@ -101,6 +169,49 @@ public class Trigger {
          */
         public Builder cause(Cause... causes) {
             this.causes.addAll(Arrays.asList(causes));
+            this.wildcardCauses.addAll(Arrays.asList(causes));
+            return this;
+        }
+
+        /**
+         * Adds a {@link Cause} to this trigger that is limited to the given keys
+         *
+         * @param cause the cause
+         * @param keys  the keys
+         * @return this builder, for fluency
+         * @see Trigger#getKeys(Cause)
+         */
+        public Builder cause(Cause cause, Collection<String> keys) {
+            this.causes.add(cause);
+            for (String key : keys) {
+                this.keys.computeIfAbsent(cause, (c) -> new HashSet<>()).add(key.trim().toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        /**
+         * Sets the guard condition for this trigger, which is evaluated against an activation's event vars before its script instance is built
+         *
+         * @param line      the trigger's line
+         * @param condition the compiled condition
+         * @return this builder, for fluency
+         * @see Trigger#getGuard()
+         */
+        public Builder guard(Line line, DataContainer condition) {
+            this.guard = new Guard(checkNotNull(script, "Script must be set before the guard"), line, condition);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Limiter} for this trigger
+         *
+         * @param limiter the limiter
+         * @return this builder, for fluency
+         * @see Trigger#getLimiter()
+         */
+        public Builder limiter(Limiter limiter) {
+            checkState(this.limiter == null, "A trigger can only be throttled or debounced once");
+            this.limiter = limiter;
             return this;
         }
 
@@ -111,13 +222,92 @@ public class Trigger {
          */
         public Trigger build() {
             checkState(!causes.isEmpty(), "At least one cause must be present");
-            Trigger buildTrigger = new Trigger(checkNotNull(script, "Script"), causes.toArray(new Cause[causes.size()]));
+            keys.keySet().removeAll(wildcardCauses); // A cause without keys is run for all of them
+            Trigger buildTrigger = new Trigger(checkNotNull(script, "Script"), keys, guard, limiter, causes.toArray(new Cause[causes.size()]));
 
             // Notify all causes of a new trigger
             for (Cause cause : causes) {
-                cause.getTriggers().add(buildTrigger);
+                cause.addTrigger(buildTrigger);
             }
             return buildTrigger;
         }
     }
+
+    /**
+     * A condition compiled once with its {@link Trigger}, which an activation must pass before a {@link ScriptInstance} is built for it
+     */
+    public static class Guard {
+        private final Script script;
+        private final DataContainer condition;
+        private final ThreadLocal<Context> contexts; // Reused, each with its own guard instance
+
+        private final AtomicLong evaluations = new AtomicLong();
+        private final AtomicLong rejections = new AtomicLong();
+
+        Guard(Script script, Line line, DataContainer condition) {
+            this.script = script;
+            this.condition = checkNotNull(condition, "Condition cannot be null");
+            this.contexts = ThreadLocal.withInitial(() -> line.toContext(new GuardInstance(script)));
+        }
+
+        /**
+         * Gets the compiled condition of this guard
+         *
+         * @return the condition
+         */
+        public DataContainer getCondition() {
+            return condition;
+        }
+
+        /**
+         * Gets the number of times this guard has been evaluated
+         *
+         * @return the evaluation count
+         */
+        public long getEvaluations() {
+            return evaluations.get();
+        }
+
+        /**
+         * Gets the number of activations this guard has rejected, including those whose condition failed with an error
+         *
+         * @return the rejection count
+         */
+        public long getRejections() {
+            return rejections.get();
+        }
+
+        /**
+         * Evaluates this guard against the event data of a {@link ScriptInstance.Builder}
+         *
+         * @param builder the builder
+         * @return true if the activation passes
+         */
+        public boolean test(ScriptInstance.Builder builder) {
+            evaluations.incrementAndGet();
+
+            Context ctx = contexts.get();
+            GuardInstance guardInstance = (GuardInstance) ctx.getScriptInstance();
+            boolean accepted = false;
+
+            try {
+                guardInstance.bind(builder);
+                accepted = condition.resolve(ctx).getBoolean();
+            } catch (Throwable e) {
+                Lang.instance().exceptionHandler().log(new ExecutionException(e, "Error in the trigger guard of script '%s' -> '%s'", script.getScriptsFile().getStringRepresentation(), script.getName()));
+                Lang.instance().exceptionHandler().flush();
+            } finally {
+                guardInstance.bind(null);
+                if (guardInstance.iterator().hasNext()) {
+                    guardInstance.clear(); // Nothing the condition declared is kept
+                }
+            }
+
+            if (!accepted) {
+                rejections.incrementAndGet();
+            }
+
+            return accepted;
+        }
+    }
 }
@@ -3,8 +3,8 @@ package com.pqqqqq.directscript.lang.trigger.cause;
 import com.pqqqqq.directscript.lang.script.ScriptInstance;
 import com.pqqqqq.directscript.lang.trigger.Trigger;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -15,6 +15,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class Cause {
     private final String[] names;
     private final Set<Trigger> triggers = new HashSet<Trigger>();
+    private final Set<Trigger> wildcardTriggers = new HashSet<Trigger>();
+    private final Map<String, Set<Trigger>> keyedTriggers = new HashMap<>(); // Key -> triggers with that key
 
     Cause(String... names) {
         this.names = checkNotNull(names, "Name");
@@ -46,12 +48,65 @@ public class Cause {
     }
 
     /**
-     * Gets the {@link Set} of {@link Trigger}s to be triggered with this cause is activated
+     * Gets an unmodifiable {@link Set} of {@link Trigger}s to be triggered with this cause is activated
      *
      * @return the trigger set
      */
     public Set<Trigger> getTriggers() {
-        return triggers;
+        return Collections.unmodifiableSet(triggers);
+    }
+
+    /**
+     * Adds a {@link Trigger} to this cause, indexed by its keys for this cause if it has any
+     *
+     * @param trigger the trigger
+     * @see Trigger#getKeys(Cause)
+     */
+    public void addTrigger(Trigger trigger) {
+        triggers.add(checkNotNull(trigger, "Trigger cannot be null"));
+
+        Set<String> keys = trigger.getKeys(this);
+        if (keys.isEmpty()) {
+            wildcardTriggers.add(trigger);
+        } else {
+            for (String key : keys) {
+                keyedTriggers.computeIfAbsent(key, (k) -> new HashSet<>()).add(trigger);
+            }
+        }
+    }
+
+    /**
+     * Removes all {@link Trigger}s from this cause
+     */
+    public void clearTriggers() {
+        triggers.clear();
+        wildcardTriggers.clear();
+        keyedTriggers.clear();
+    }
+
+    /**
+     * Removes a {@link Trigger} from this cause, such as that of a script whose file changed
+     *
+     * @param trigger the trigger
+     */
+    public void removeTrigger(Trigger trigger) {
+        triggers.remove(trigger);
+        wildcardTriggers.remove(trigger);
+        for (String key : trigger.getKeys(this)) {
+            Set<Trigger> keyTriggers = keyedTriggers.get(key);
+            if (keyTriggers != null && keyTriggers.remove(trigger) && keyTriggers.isEmpty()) {
+                keyedTriggers.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gets whether any {@link Trigger}s are triggered by this cause, so callers can skip building its event vars when none are
+     *
+     * @return true if this cause has triggers
+     */
+    public boolean hasTriggers() {
+        return !triggers.isEmpty();
     }
 
     /**
@@ -73,13 +128,103 @@ public class Cause {
             }
 
             builder.cause(this);
-            for (Trigger trigger : triggers) {
-                ScriptInstance buildInstance = builder.copy().script(trigger.getScript()).build();
-                if (accepts(buildInstance)) {
-                    buildInstance.execute();
+            for (Trigger trigger : getTriggers(builder)) { // Copies share the builder's event vars
+                if (!trigger.accepts(builder) || !trigger.admits(this, builder)) { // Guarded before anything is built
+                    continue;
+                }
+
+                run(trigger, builder);
+            }
+        }
+    }
+
+    /**
+     * Runs a {@link Trigger} of this cause for an activation that has passed its guard and limiter
+     *
+     * @param trigger the trigger
+     * @param builder the builder of the activation
+     */
+    public void run(Trigger trigger, ScriptInstance.Builder builder) {
+        ScriptInstance buildInstance = builder.copy().script(trigger.getScript()).build();
+        if (accepts(buildInstance)) {
+            buildInstance.execute();
+        }
+    }
+
+    /**
+     * Gets the {@link Trigger}s an activation of the given {@link ScriptInstance.Builder} runs, which are those matching its keys unless overridden
+     *
+     * @param builder the builder of the activation
+     * @return the triggers
+     * @see #getTriggers(Collection)
+     */
+    protected Collection<Trigger> getTriggers(ScriptInstance.Builder builder) {
+        return getTriggers(builder.getKeys());
+    }
+
+    /**
+     * <p>Gets the {@link Trigger}s an activation with the given keys runs: those without keys, and those whose keys it matches.</p>
+     * <p>An activation without keys runs every trigger.</p>
+     *
+     * @param keys the keys of the activation
+     * @return the triggers
+     * @see #matches(Set, Collection)
+     */
+    public Collection<Trigger> getTriggers(Collection<String> keys) {
+        if (keys.isEmpty() || keyedTriggers.isEmpty()) {
+            return keys.isEmpty() ? triggers : wildcardTriggers;
+        }
+
+        Set<Trigger> matched = null;
+        for (String key : keys) {
+            Set<Trigger> keyed = keyedTriggers.get(key);
+            if (keyed != null) {
+                for (Trigger trigger : keyed) {
+                    if ((matched == null || !matched.contains(trigger)) && matches(trigger.getKeys(this), keys)) { // A trigger with several matching keys still only runs once
+                        if (matched == null) {
+                            matched = new LinkedHashSet<>(wildcardTriggers);
+                        }
+
+                        matched.add(trigger);
+                    }
                 }
             }
         }
+
+        return matched == null ? wildcardTriggers : matched;
+    }
+
+    /**
+     * <p>Gets whether an activation's keys match those of a {@link Trigger}.</p>
+     * <p>Keys are of a kind, which is the part before their <code>=</code> for keys such as <code>world=NAME</code>, and types such as <code>zombie</code> otherwise.
+     * The activation must have one of the trigger's keys of each kind the trigger has, so <code>Spawn[zombie, skeleton, world=world_nether]</code> only runs for
+     * zombies or skeletons in the nether.</p>
+     *
+     * @param triggerKeys the keys of the trigger
+     * @param keys        the keys of the activation
+     * @return true if they match
+     */
+    public static boolean matches(Set<String> triggerKeys, Collection<String> keys) {
+        for (String triggerKey : triggerKeys) {
+            boolean kindMatched = false;
+            for (String key : keys) {
+                if (isSameKind(triggerKey, key) && triggerKeys.contains(key)) {
+                    kindMatched = true;
+                    break;
+                }
+            }
+
+            if (!kindMatched) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isSameKind(String key, String other) {
+        int split = key.indexOf('=');
+        return split == other.indexOf('=') && key.regionMatches(0, other, 0, Math.max(split, 0));
     }
 
     /**
@@ -100,40 +245,234 @@ public class Cause {
     // Custom causes
 
     /**
-     * Represents a custom timer cause
+     * Represents a custom timer cause, whose {@link Trigger}s are kept in a queue ordered by the tick they're next due
      */
     public static class TimerCause extends Cause {
+        private static final long TICK_MILLIS = 50L;
+        private static final double GOLDEN_RATIO = 0.6180339887498949; // Spreads any number of phases evenly
+
+        private final PriorityQueue<Timer> queue = new PriorityQueue<>(); // Only used by the server thread
+        private volatile boolean stale = true;
+        private volatile boolean phaseSpread = false;
+        private long tick = 0L;
+
+        private volatile long runs = 0L;
+        private volatile long totalLatenessNanos = 0L;
+        private volatile long maxLatenessNanos = 0L;
 
         TimerCause() {
             super("Timer");
         }
 
+        /**
+         * Sets whether timers with the same delay are spread over it, instead of all running in the same tick
+         *
+         * @param phaseSpread true to spread them
+         */
+        public void setPhaseSpread(boolean phaseSpread) {
+            this.phaseSpread = phaseSpread;
+            this.stale = true;
+        }
+
+        /**
+         * Gets the number of timers that are scheduled
+         *
+         * @return the timer count
+         */
+        public int getScheduled() {
+            return queue.size();
+        }
+
+        /**
+         * Gets the number of times a timer has come due
+         *
+         * @return the run count
+         */
+        public long getRuns() {
+            return runs;
+        }
+
+        /**
+         * Gets the average time between when timers were due and when they ran, in milliseconds
+         *
+         * @return the average lateness
+         */
+        public double getAverageLateness() {
+            return runs == 0 ? 0D : totalLatenessNanos / (runs * 1.0E6);
+        }
+
+        /**
+         * Gets the most time between when a timer was due and when it ran, in milliseconds
+         *
+         * @return the maximum lateness
+         */
+        public double getMaxLateness() {
+            return maxLatenessNanos / 1.0E6;
+        }
+
+        /**
+         * Advances this cause by a server tick, and runs the {@link Trigger}s that are due
+         */
+        public void tick() {
+            tick++;
+            if (stale) {
+                schedule();
+            }
+
+            while (!stale && !queue.isEmpty() && queue.peek().dueTick <= tick) {
+                Timer timer = queue.poll();
+                long now = System.nanoTime();
+
+                long lateness = Math.max(0L, now - timer.dueNanos);
+                totalLatenessNanos += lateness;
+                maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+                runs++;
+
+                ScriptInstance.Builder builder = ScriptInstance.builder().cause(this);
+                if (timer.trigger.accepts(builder) && timer.trigger.admits(this, builder)) {
+                    run(timer.trigger, builder);
+                }
+
+                timer.dueTick += timer.periodTicks;
+                timer.dueNanos += timer.periodNanos;
+                if (timer.dueTick <= tick) { // Fell more than a period behind, so skip the missed runs
+                    timer.dueTick = tick + timer.periodTicks;
+                    timer.dueNanos = now + timer.periodNanos;
+                }
+
+                if (!stale) { // Otherwise it was reloaded while running, and is rescheduled next tick
+                    queue.add(timer);
+                }
+            }
+        }
+
         @Override
-        public boolean accepts(ScriptInstance scriptInstance) {
-            Long timerDelay = scriptInstance.getScript().getCauseData().getTimerDelay();
-            Long lastTimeRun = scriptInstance.getScript().getCauseData().getLastTimerRun();
+        public void addTrigger(Trigger trigger) {
+            super.addTrigger(trigger);
+            stale = true; // Its delay is set as its script compiles, so schedule it on the next tick
+        }
+
+        @Override
+        public void clearTriggers() {
+            super.clearTriggers();
+            stale = true;
+        }
 
-            if (timerDelay == null) { // This should never happen...
+        @Override
+        public void removeTrigger(Trigger trigger) {
+            super.removeTrigger(trigger);
+            stale = true;
+        }
+
+        @Override
+        protected Collection<Trigger> getTriggers(ScriptInstance.Builder builder) {
+            return Collections.emptyList(); // Only run when they're due, by #tick()
+        }
+
+        @Override
+        public boolean accepts(ScriptInstance scriptInstance) {
+            if (scriptInstance.getScript().getCauseData().getTimerDelay() == null) { // This should never happen...
                 return false;
             }
 
-            if (lastTimeRun == null || (System.currentTimeMillis() - lastTimeRun) >= timerDelay) {
-                scriptInstance.getScript().getCauseData().setLastTimerRun();
-                return true;
+            scriptInstance.getScript().getCauseData().setLastTimerRun();
+            return true;
+        }
+
+        private void schedule() {
+            stale = false;
+            queue.clear();
+
+            long now = System.nanoTime();
+            Map<Long, Integer> periods = new HashMap<>(); // Period -> timers with it so far
+            for (Trigger trigger : getTriggers()) {
+                Long timerDelay = trigger.getScript().getCauseData().getTimerDelay();
+                if (timerDelay == null) {
+                    continue;
+                }
+
+                long periodTicks = Math.max(1L, Math.round(timerDelay / (double) TICK_MILLIS));
+                long phase = 0L; // Otherwise they first run now, as before
+                if (phaseSpread) {
+                    int index = periods.merge(periodTicks, 1, Integer::sum) - 1;
+                    phase = (long) (((index * GOLDEN_RATIO) % 1D) * periodTicks);
+                }
+
+                queue.add(new Timer(trigger, tick + phase, periodTicks, now + TimeUnit.MILLISECONDS.toNanos(phase * TICK_MILLIS), TimeUnit.MILLISECONDS.toNanos(timerDelay)));
+            }
+        }
+
+        private static class Timer implements Comparable<Timer> {
+            private final Trigger trigger;
+            private final long periodTicks;
+            private final long periodNanos;
+            private long dueTick;
+            private long dueNanos;
+
+            Timer(Trigger trigger, long dueTick, long periodTicks, long dueNanos, long periodNanos) {
+                this.trigger = trigger;
+                this.dueTick = dueTick;
+                this.periodTicks = periodTicks;
+                this.dueNanos = dueNanos;
+                this.periodNanos = periodNanos;
+            }
+
+            @Override
+            public int compareTo(Timer other) {
+                return Long.compare(dueTick, other.dueTick);
             }
-            return false;
         }
     }
 
     /**
-     * Represents a custom command cause
+     * Represents a custom command cause, whose {@link Trigger}s are indexed by their scripts' command aliases
      */
     public static class CommandCause extends Cause {
+        private volatile Map<String, List<Trigger>> aliases = null; // Lower case alias -> triggers, built on first use
 
         CommandCause(String name) {
             super(name);
         }
 
+        /**
+         * Gets whether any {@link Trigger} of this cause has the given command as an alias
+         *
+         * @param command the command, without its slash
+         * @return true if a script handles the command
+         */
+        public boolean hasCommand(String command) {
+            return command != null && getAliases().containsKey(command.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public void addTrigger(Trigger trigger) {
+            super.addTrigger(trigger);
+            aliases = null; // Its aliases are set as its script compiles, so index them later
+        }
+
+        @Override
+        public void clearTriggers() {
+            super.clearTriggers();
+            aliases = null;
+        }
+
+        @Override
+        public void removeTrigger(Trigger trigger) {
+            super.removeTrigger(trigger);
+            aliases = null;
+        }
+
+        @Override
+        protected Collection<Trigger> getTriggers(ScriptInstance.Builder builder) {
+            Object cmd = builder.getEventVar("Command");
+            if (!(cmd instanceof String)) {
+                return Collections.emptyList();
+            }
+
+            List<Trigger> commandTriggers = getAliases().get(((String) cmd).toLowerCase(Locale.ROOT));
+            return commandTriggers == null ? Collections.emptyList() : commandTriggers;
+        }
+
         @Override
         public boolean accepts(ScriptInstance scriptInstance) {
             String[] aliases = scriptInstance.getScript().getCauseData().getCommandAliases();
@@ -153,5 +492,27 @@ public class Cause {
             }
             return false;
         }
+
+        private Map<String, List<Trigger>> getAliases() {
+            Map<String, List<Trigger>> index = aliases;
+            if (index == null) {
+                index = new HashMap<>();
+                for (Trigger trigger : getTriggers()) {
+                    String[] scriptAliases = trigger.getScript().getCauseData().getCommandAliases();
+                    if (scriptAliases != null) {
+                        for (String alias : scriptAliases) {
+                            List<Trigger> aliasTriggers = index.computeIfAbsent(alias.toLowerCase(Locale.ROOT), (a) -> new ArrayList<>());
+                            if (!aliasTriggers.contains(trigger)) {
+                                aliasTriggers.add(trigger);
+                            }
+                        }
+                    }
+                }
+
+                aliases = index;
+            }
+
+            return index;
+        }
     }
 }
@@ -1,9 +1,11 @@
 package com.pqqqqq.directscript.lang.trigger.cause;
 
+import com.pqqqqq.directscript.lang.trigger.Trigger;
 import com.pqqqqq.directscript.lang.util.RegistryUtil;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Created by Kevin on 2015-06-02.
@@ -20,7 +22,7 @@ public class Causes {
 
     // Misc.
     public static final Cause CALL = new Cause("Call");
-    public static final Cause TIMER = new Cause.TimerCause();
+    public static final Cause.TimerCause TIMER = new Cause.TimerCause();
 
     // Server events
     public static final Cause ENTITY_SPAWN = new Cause("Spawn", "EntitySpawn");
@@ -46,8 +48,8 @@ public class Causes {
     public static final Cause PLAYER_BLOCK_BREAK = new Cause("PlayerBlockBreak", "PlayerBreakBlock");
     public static final Cause PLAYER_USE_ITEM = new Cause("UseItem", "PlayerUseItem");
 
-    public static final Cause PLAYER_COMMAND = new Cause.CommandCause("Command");
-    public static final Cause COMMAND = new Cause.CommandCause("ConsoleCommand");
+    public static final Cause.CommandCause PLAYER_COMMAND = new Cause.CommandCause("Command");
+    public static final Cause.CommandCause COMMAND = new Cause.CommandCause("ConsoleCommand");
 
     private static final List<Cause> REGISTRY;
 
@@ -64,6 +66,21 @@ public class Causes {
         return REGISTRY;
     }
 
+    /**
+     * Removes the throttle and debounce state every {@link com.pqqqqq.directscript.lang.trigger.Trigger Trigger} keeps for a player or entity
+     *
+     * @param uuid the unique id of the player or entity
+     */
+    public static void evict(UUID uuid) {
+        for (Cause cause : REGISTRY) {
+            for (Trigger trigger : cause.getTriggers()) {
+                if (trigger.getLimiter().isPresent()) {
+                    trigger.getLimiter().get().evict(uuid);
+                }
+            }
+        }
+    }
+
     /**
      * Gets an {@link Optional} {@link Cause} for the key
      *
@@ -0,0 +1,610 @@
+package com.pqqqqq.directscript.lang.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>A single pass lexer that converts a line into an array of {@link Token}s.</p>
+ * <p>Quotes, escapes and bracket pairs are resolved once, so that any search over the resulting {@link Tokens} can skip whole strings and bracket groups instead of rescanning them.</p>
+ */
+public class Lexer {
+    private static final Lexer INSTANCE = new Lexer();
+
+    private Lexer() {
+    }
+
+    /**
+     * Gets the lexer instance
+     *
+     * @return the instance
+     */
+    public static Lexer instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tokenizes the given string in a single pass
+     *
+     * @param string the string
+     * @return the tokens
+     */
+    public Tokens tokenize(String string) {
+        char[] chars = checkNotNull(string, "String cannot be null").toCharArray();
+        List<Token> tokens = new ArrayList<>();
+        int[] tokenIndex = new int[chars.length];
+        Deque<Integer> openBrackets = new ArrayDeque<>();
+
+        int count = 0;
+        while (count < chars.length) {
+            char c = chars[count];
+            int start = count;
+            Token.Type type;
+
+            if (c == '"') {
+                type = Token.Type.STRING;
+                count++;
+                while (count < chars.length && chars[count] != '"') {
+                    count += (chars[count] == '\\' ? 2 : 1); // Skip escaped characters
+                }
+                count = Math.min(count + 1, chars.length); // Include the closing quote, if any
+            } else if (isOpenBracket(c)) {
+                type = Token.Type.OPEN_BRACKET;
+                count++;
+            } else if (isCloseBracket(c)) {
+                type = Token.Type.CLOSE_BRACKET;
+                count++;
+            } else if (Character.isWhitespace(c)) {
+                type = Token.Type.WHITESPACE;
+                do {
+                    count++;
+                } while (count < chars.length && Character.isWhitespace(chars[count]));
+            } else {
+                type = Token.Type.TEXT;
+                do {
+                    count++;
+                } while (count < chars.length && !isSpecial(chars[count]));
+            }
+
+            Token token = new Token(type, start, count);
+            int index = tokens.size();
+            tokens.add(token);
+            Arrays.fill(tokenIndex, start, count, index);
+
+            if (type == Token.Type.OPEN_BRACKET) {
+                openBrackets.push(index);
+            } else if (type == Token.Type.CLOSE_BRACKET && !openBrackets.isEmpty()) {
+                int openIndex = openBrackets.peek();
+                Token open = tokens.get(openIndex);
+                if (closingBracketOf(chars[open.getStart()]) == c) { // Only pair brackets of the same kind
+                    openBrackets.pop();
+                    open.pair = index;
+                    token.pair = openIndex;
+                }
+            }
+        }
+
+        return new Tokens(chars, tokens.toArray(new Token[tokens.size()]), tokenIndex);
+    }
+
+    /**
+     * Trims a string with {@link String#trim()} and by removing any double whitespace outside of quotes
+     *
+     * @param string the string
+     * @return the trimmed string
+     */
+    public String trim(String string) {
+        char[] chars = string.trim().toCharArray(); // First trim using String#trim()
+        StringBuilder builder = new StringBuilder(chars.length);
+        boolean quotes = false;
+
+        for (int count = 0; count < chars.length; count++) {
+            char c = chars[count];
+
+            if (quotes) {
+                builder.append(c);
+                if (c == '\\' && count + 1 < chars.length) {
+                    builder.append(chars[++count]); // Escaped characters are copied as is
+                } else if (c == '"') {
+                    quotes = false;
+                }
+            } else if (c == '"') {
+                quotes = true;
+                builder.append(c);
+            } else if (!Character.isWhitespace(c) || builder.length() > 0 && !Character.isWhitespace(builder.charAt(builder.length() - 1))) {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Gets a {@link Pair} of Boolean, String that represents the block comment status and the current string with its comments removed
+     *
+     * @param blockComment whether there is an active block comment
+     * @param string       the current string
+     * @return the pair of boolean and string
+     */
+    public Pair<Boolean, String> removeComments(boolean blockComment, String string) {
+        char[] chars = string.toCharArray();
+        StringBuilder builder = new StringBuilder(chars.length);
+        boolean quotes = false;
+
+        for (int count = 0; count < chars.length; count++) {
+            char c = chars[count];
+            char next = (count + 1 < chars.length ? chars[count + 1] : 0);
+
+            if (blockComment) {
+                if (c == '*' && next == '/') {
+                    blockComment = false;
+                    count++;
+                }
+            } else if (quotes) {
+                builder.append(c);
+                if (c == '\\' && next != 0) {
+                    builder.append(next);
+                    count++;
+                } else if (c == '"') {
+                    quotes = false;
+                }
+            } else if (c == '/' && next == '*') {
+                blockComment = true;
+                count++;
+            } else if (c == '/' && next == '/') {
+                break; // Inline comment, nothing after matters
+            } else {
+                quotes = (c == '"');
+                builder.append(c);
+            }
+        }
+
+        return Pair.of(blockComment, builder.toString());
+    }
+
+    private static boolean isOpenBracket(char c) {
+        return c == '(' || c == '[' || c == '{';
+    }
+
+    private static boolean isCloseBracket(char c) {
+        return c == ')' || c == ']' || c == '}';
+    }
+
+    private static boolean isSpecial(char c) {
+        return c == '"' || isOpenBracket(c) || isCloseBracket(c) || Character.isWhitespace(c);
+    }
+
+    private static char closingBracketOf(char c) {
+        return (c == '(' ? ')' : c == '[' ? ']' : '}');
+    }
+
+    /**
+     * Represents a single token, a typed index range of the lexed line
+     */
+    public static class Token {
+        private final Type type;
+        private final int start;
+        private final int end;
+        private int pair = -1;
+
+        Token(Type type, int start, int end) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets the {@link Type} of this token
+         *
+         * @return the type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the inclusive start index of this token
+         *
+         * @return the start index
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the exclusive end index of this token
+         *
+         * @return the end index
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * Gets the token index of the matching bracket, if this token is a bracket
+         *
+         * @return the matching token index, or -1 if none
+         */
+        public int getPair() {
+            return pair;
+        }
+
+        /**
+         * An enumeration of token types
+         */
+        public enum Type {
+            TEXT, WHITESPACE, STRING, OPEN_BRACKET, CLOSE_BRACKET
+        }
+    }
+
+    /**
+     * <p>An immutable tokenized line.</p>
+     * <p>All searches take an index range (inclusive start, exclusive end), and only match at the top level of that range: outside of quotes and brackets.</p>
+     */
+    public static class Tokens {
+        private final char[] chars;
+        private final Token[] tokens;
+        private final int[] tokenIndex;
+
+        Tokens(char[] chars, Token[] tokens, int[] tokenIndex) {
+            this.chars = chars;
+            this.tokens = tokens;
+            this.tokenIndex = tokenIndex;
+        }
+
+        /**
+         * Gets the length of the lexed line
+         *
+         * @return the length
+         */
+        public int length() {
+            return chars.length;
+        }
+
+        /**
+         * Gets the character at the given index
+         *
+         * @param index the index
+         * @return the character
+         */
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        /**
+         * Gets the lexed line as a string
+         *
+         * @return the string
+         */
+        public String getString() {
+            return new String(chars);
+        }
+
+        /**
+         * Gets the string in the given range
+         *
+         * @param from the start index
+         * @param to   the end index
+         * @return the substring
+         */
+        public String substring(int from, int to) {
+            return new String(chars, from, to - from);
+        }
+
+        /**
+         * Gets an unmodifiable {@link List} of the {@link Token}s
+         *
+         * @return the tokens
+         */
+        public List<Token> getTokens() {
+            return Collections.unmodifiableList(Arrays.asList(tokens));
+        }
+
+        /**
+         * Gets the {@link Token} at the given character index
+         *
+         * @param index the character index
+         * @return the token
+         */
+        public Token getToken(int index) {
+            return tokens[tokenIndex[index]];
+        }
+
+        /**
+         * Moves the start of a range past any leading whitespace, like {@link String#trim()}
+         *
+         * @param from the start index
+         * @param to   the end index
+         * @return the new start index
+         */
+        public int trimStart(int from, int to) {
+            while (from < to && chars[from] <= ' ') {
+                from++;
+            }
+            return from;
+        }
+
+        /**
+         * Moves the end of a range before any trailing whitespace, like {@link String#trim()}
+         *
+         * @param from the start index
+         * @param to   the end index
+         * @return the new end index
+         */
+        public int trimEnd(int from, int to) {
+            while (to > from && chars[to - 1] <= ' ') {
+                to--;
+            }
+            return to;
+        }
+
+        /**
+         * Gets whether the given range starts with the prefix
+         *
+         * @param from   the start index
+         * @param to     the end index
+         * @param prefix the prefix
+         * @return true if the range starts with the prefix
+         */
+        public boolean startsWith(int from, int to, String prefix) {
+            return matches(from, to, prefix);
+        }
+
+        /**
+         * Gets whether the given range ends with the suffix
+         *
+         * @param from   the start index
+         * @param to     the end index
+         * @param suffix the suffix
+         * @return true if the range ends with the suffix
+         */
+        public boolean endsWith(int from, int to, String suffix) {
+            return to - suffix.length() >= from && matches(to - suffix.length(), to, suffix);
+        }
+
+        /**
+         * Gets the character index of the bracket matching the bracket at the given index
+         *
+         * @param index the bracket index
+         * @return the matching bracket index, or -1 if there is none
+         */
+        public int matchingBracket(int index) {
+            Token token = getToken(index);
+            if (token.getPair() < 0) {
+                return -1;
+            }
+
+            return tokens[token.getPair()].getStart();
+        }
+
+        /**
+         * Gets the first top level index of a find string in the given range
+         *
+         * @param from the start index
+         * @param to   the end index
+         * @param find the string to find
+         * @return the index, or -1 if none are found
+         */
+        public int indexOf(int from, int to, String find) {
+            return indexOf(from, to, find, false);
+        }
+
+        /**
+         * Gets the first index of a find string in the given range, excluding quotes, and optional exclusion of brackets
+         *
+         * @param from          the start index
+         * @param to            the end index
+         * @param find          the string to find
+         * @param allowBrackets whether to allow the sequence inside of a bracket
+         * @return the index, or -1 if none are found
+         */
+        public int indexOf(int from, int to, String find, boolean allowBrackets) {
+            for (int count = from; count < to; count = next(count, allowBrackets)) {
+                if (matches(count, to, find)) {
+                    return count;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Gets the last top level index of a find string in the given range
+         *
+         * @param from the start index
+         * @param to   the end index
+         * @param find the string to find
+         * @return the index, or -1 if none are found
+         */
+        public int lastIndexOf(int from, int to, String find) {
+            return lastIndexOf(from, to, find, false);
+        }
+
+        /**
+         * Gets the last index of a find string in the given range, excluding quotes, and optional exclusion of brackets
+         *
+         * @param from          the start index
+         * @param to            the end index
+         * @param find          the string to find
+         * @param allowBrackets whether to allow the sequence inside of a bracket
+         * @return the index, or -1 if none are found
+         */
+        public int lastIndexOf(int from, int to, String find, boolean allowBrackets) {
+            int lastIndex = -1;
+            for (int count = from; count < to; count = next(count, allowBrackets)) {
+                if (matches(count, to, find)) {
+                    lastIndex = count;
+                }
+            }
+
+            return lastIndex;
+        }
+
+        /**
+         * Splits the given range at the top level delimiters. A trailing empty segment is not included
+         *
+         * @param from       the start index
+         * @param to         the end index
+         * @param delimiters the delimiters
+         * @return a {@link List} of ranges, as {start, end} arrays
+         */
+        public List<int[]> split(int from, int to, String... delimiters) {
+            List<int[]> list = new ArrayList<>();
+            int segmentStart = from;
+
+            int count = from;
+            splitLoop:
+            while (count < to) {
+                for (String delimiter : delimiters) {
+                    if (matches(count, to, delimiter)) {
+                        list.add(new int[]{segmentStart, count});
+                        count += delimiter.length();
+                        segmentStart = count;
+                        continue splitLoop;
+                    }
+                }
+
+                count = next(count, false);
+            }
+
+            if (segmentStart < to) {
+                list.add(new int[]{segmentStart, to});
+            }
+            return list;
+        }
+
+        /**
+         * <p>Finds the next {@link Split} in the given range by a prioritized split group.</p>
+         * <p>The first group with a top level match is used, and within it, the last match in the range is chosen.</p>
+         *
+         * @param from            the start index
+         * @param to              the end index
+         * @param delimiterGroups a two-dimensional delimiter string array, where each String[] in the String[][] is prioritized by its ordinal
+         * @return the split, or null if none
+         */
+        public Split nextSequence(int from, int to, String[]... delimiterGroups) {
+            for (String[] splitGroup : delimiterGroups) {
+                Split current = null;
+                int currentOrdinal = -1;
+
+                for (int count = from; count < to; count = next(count, false)) {
+                    for (int ordinal = 0; ordinal < splitGroup.length; ordinal++) {
+                        String split = splitGroup[ordinal];
+                        int end = count + split.length();
+
+                        // The latest ending match wins, and on ties, the last delimiter in the group (so that !~ is chosen over ~)
+                        if ((current == null || end > current.getAfterStart() || end == current.getAfterStart() && ordinal > currentOrdinal) && matches(count, to, split)) {
+                            current = new Split(count, split, end);
+                            currentOrdinal = ordinal;
+                        }
+                    }
+                }
+
+                if (current != null) {
+                    return current;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets whether the find string occurs at the given index, without passing the end index
+         *
+         * @param index the index
+         * @param to    the end index
+         * @param find  the string to find
+         * @return true if it occurs
+         */
+        public boolean matches(int index, int to, String find) {
+            int length = find.length();
+            if (index + length > to) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (chars[index + i] != find.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the next top level index after the given top level index, skipping any string or bracket group starting there
+         *
+         * @param index the index
+         * @return the next top level index
+         */
+        public int next(int index) {
+            return next(index, false);
+        }
+
+        private int next(int index, boolean allowBrackets) { // Gets the next top level index
+            Token token = getToken(index);
+
+            switch (token.getType()) {
+                case STRING:
+                    return token.getEnd(); // Skip the entire string
+                case OPEN_BRACKET:
+                    if (allowBrackets) {
+                        return index + 1;
+                    }
+                    return (token.getPair() < 0 ? chars.length : tokens[token.getPair()].getEnd()); // Skip to after the matching bracket
+                case CLOSE_BRACKET:
+                    return (allowBrackets ? index + 1 : chars.length); // Unbalanced bracket, nothing after is top level
+                default:
+                    return index + 1;
+            }
+        }
+    }
+
+    /**
+     * Represents an immutable split of a range: the end of the before segment, the delimiter, and the start of the after segment
+     */
+    public static class Split {
+        private final int beforeEnd;
+        private final String delimiter;
+        private final int afterStart;
+
+        Split(int beforeEnd, String delimiter, int afterStart) {
+            this.beforeEnd = beforeEnd;
+            this.delimiter = delimiter;
+            this.afterStart = afterStart;
+        }
+
+        /**
+         * Gets the exclusive end index of the before segment, which is where the delimiter starts
+         *
+         * @return the before segment end
+         */
+        public int getBeforeEnd() {
+            return beforeEnd;
+        }
+
+        /**
+         * Gets the delimiter
+         *
+         * @return the delimiter
+         */
+        public String getDelimiter() {
+            return delimiter;
+        }
+
+        /**
+         * Gets the inclusive start index of the after segment, which is where the delimiter ends
+         *
+         * @return the after segment start
+         */
+        public int getAfterStart() {
+            return afterStart;
+        }
+    }
+}
@@ -3,12 +3,11 @@ package com.pqqqqq.directscript.lang.util;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Created by Kevin on 2015-06-04.
- * A utility for string parsing
+ * A utility for string parsing, backed by the {@link Lexer}
  */
 public class StringParser {
     private static final StringParser INSTANCE = new StringParser();
@@ -31,53 +30,17 @@ public class StringParser {
      * @param string    the string to split
      * @param delimiter the delimiter strings
      * @return the split string array
+     * @see Lexer.Tokens#split(int, int, String...)
      */
     public String[] parseSplit(String string, String... delimiter) {
-        List<String> list = new ArrayList<String>();
+        Lexer.Tokens tokens = Lexer.instance().tokenize(string);
+        List<int[]> ranges = tokens.split(0, tokens.length(), delimiter);
 
-        boolean quotes = false;
-        int roundBrackets = 0, squareBrackets = 0, curlyBrackets = 0;
-        String builder = "";
-
-        for (int count = 0; count < string.length(); count++) {
-            char c = string.charAt(count);
-
-            if (c == '"') {
-                if (!builder.endsWith("\\") || builder.endsWith("\\\\")) {
-                    quotes = !quotes;
-                }
-            } else if (!quotes) {
-                if (c == '(') {
-                    roundBrackets++;
-                } else if (c == ')') {
-                    roundBrackets--;
-                } else if (c == '[') {
-                    squareBrackets++;
-                } else if (c == ']') {
-                    squareBrackets--;
-                } else if (c == '{') {
-                    curlyBrackets++;
-                } else if (c == '}') {
-                    curlyBrackets--;
-                }
-            }
-
-            builder += c;
-            if (!quotes && roundBrackets == 0 && squareBrackets == 0 && curlyBrackets == 0) {
-                for (String split : delimiter) {
-                    if (builder.endsWith(split)) {
-                        list.add(builder.substring(0, builder.length() - split.length()));
-                        builder = "";
-                        break;
-                    }
-                }
-            }
-        }
-
-        if (!builder.isEmpty()) {
-            list.add(builder);
+        String[] split = new String[ranges.size()];
+        for (int i = 0; i < split.length; i++) {
+            split[i] = tokens.substring(ranges.get(i)[0], ranges.get(i)[1]);
         }
-        return list.toArray(new String[list.size()]);
+        return split;
     }
 
     /**
@@ -86,56 +49,16 @@ public class StringParser {
      * @param string          the string to parse
      * @param delimiterGroups a two-dimensional delimiter string array, where each String[] in the String[][] is prioritized by its ordinal
      * @return the next split sequence, or null if none
+     * @see Lexer.Tokens#nextSequence(int, int, String[]...)
      */
     public SplitSequence parseNextSequence(String string, String[]... delimiterGroups) {
-        for (String[] splitGroup : delimiterGroups) {
-            boolean quotes = false;
-            int roundBrackets = 0, squareBrackets = 0, curlyBrackets = 0;
-            String builder = "";
-            SplitSequence current = null;
-
-            for (int count = 0; count < string.length(); count++) {
-                char c = string.charAt(count);
-
-                if (c == '"') {
-                    if (!builder.endsWith("\\") || builder.endsWith("\\\\")) {
-                        quotes = !quotes;
-                    }
-                } else if (!quotes) {
-                    if (c == '(') {
-                        roundBrackets++;
-                    } else if (c == ')') {
-                        roundBrackets--;
-                    } else if (c == '[') {
-                        squareBrackets++;
-                    } else if (c == ']') {
-                        squareBrackets--;
-                    } else if (c == '{') {
-                        curlyBrackets++;
-                    } else if (c == '}') {
-                        curlyBrackets--;
-                    }
-                }
-
-                builder += c;
-                if (!quotes && roundBrackets == 0 && squareBrackets == 0 && curlyBrackets == 0) {
-                    for (String split : splitGroup) {
-                        if (builder.endsWith(split)) {
-                            String before = string.substring(0, count - split.length() + 1);
-                            String after = string.substring(count + 1);
+        Lexer.Tokens tokens = Lexer.instance().tokenize(string);
+        Lexer.Split split = tokens.nextSequence(0, tokens.length(), delimiterGroups);
 
-                            current = new SplitSequence(before, split, after);
-                        }
-                    }
-                }
-            }
-
-            if (current != null) {
-                return current;
-            }
+        if (split == null) {
+            return null;
         }
-
-        return null;
+        return new SplitSequence(tokens.substring(0, split.getBeforeEnd()), split.getDelimiter(), tokens.substring(split.getAfterStart(), tokens.length()));
     }
 
     /**
@@ -158,42 +81,7 @@ public class StringParser {
      * @return the index, or -1 if none are found
      */
     public int indexOf(String string, String find, boolean allowBrackets) {
-        boolean quotes = false;
-        int roundBrackets = 0, squareBrackets = 0, curlyBrackets = 0;
-        String builder = "";
-
-        for (int count = 0; count < string.length(); count++) {
-            char c = string.charAt(count);
-            builder += c;
-
-            if (!quotes && roundBrackets == 0 && squareBrackets == 0 && curlyBrackets == 0) {
-                if (builder.endsWith(find)) {
-                    return builder.length() - find.length();
-                }
-            }
-
-            if (c == '"') {
-                if (!builder.endsWith("\\") || builder.endsWith("\\\\")) {
-                    quotes = !quotes;
-                }
-            } else if (!quotes && !allowBrackets) {
-                if (c == '(') {
-                    roundBrackets++;
-                } else if (c == ')') {
-                    roundBrackets--;
-                } else if (c == '[') {
-                    squareBrackets++;
-                } else if (c == ']') {
-                    squareBrackets--;
-                } else if (c == '{') {
-                    curlyBrackets++;
-                } else if (c == '}') {
-                    curlyBrackets--;
-                }
-            }
-        }
-
-        return -1;
+        return Lexer.instance().tokenize(string).indexOf(0, string.length(), find, allowBrackets);
     }
 
     /**
@@ -216,43 +104,7 @@ public class StringParser {
      * @return the index, or -1 if none are found
      */
     public int lastIndexOf(String string, String find, boolean allowBrackets) {
-        boolean quotes = false;
-        int roundBrackets = 0, squareBrackets = 0, curlyBrackets = 0;
-        int lastIndex = -1;
-        String builder = "";
-
-        for (int count = 0; count < string.length(); count++) {
-            char c = string.charAt(count);
-            builder += c;
-
-            if (!quotes && roundBrackets == 0 && squareBrackets == 0 && curlyBrackets == 0) {
-                if (builder.endsWith(find)) {
-                    lastIndex = builder.length() - find.length();
-                }
-            }
-
-            if (c == '"') {
-                if (!builder.endsWith("\\") || builder.endsWith("\\\\")) {
-                    quotes = !quotes;
-                }
-            } else if (!quotes && !allowBrackets) {
-                if (c == '(') {
-                    roundBrackets++;
-                } else if (c == ')') {
-                    roundBrackets--;
-                } else if (c == '[') {
-                    squareBrackets++;
-                } else if (c == ']') {
-                    squareBrackets--;
-                } else if (c == '{') {
-                    curlyBrackets++;
-                } else if (c == '}') {
-                    curlyBrackets--;
-                }
-            }
-        }
-
-        return lastIndex;
+        return Lexer.instance().tokenize(string).lastIndexOf(0, string.length(), find, allowBrackets);
     }
 
     /**
@@ -260,25 +112,10 @@ public class StringParser {
      *
      * @param string the string
      * @return the trimmed string
+     * @see Lexer#trim(String)
      */
     public String trim(String string) {
-        string = string.trim(); // First trim using String#trim()
-        boolean quotes = false;
-        String builder = "";
-
-        for (char c : string.toCharArray()) {
-            if (c == '"') {
-                if (!builder.endsWith("\\") || builder.endsWith("\\\\")) {
-                    quotes = !quotes;
-                }
-            }
-
-            if (quotes || !Character.isWhitespace(c) || !builder.isEmpty() && !Character.isWhitespace(builder.charAt(builder.length() - 1))) { // trim() should get rid of leading whitespace, but just in case
-                builder += c;
-            }
-        }
-
-        return builder;
+        return Lexer.instance().trim(string);
     }
 
     /**
@@ -287,34 +124,10 @@ public class StringParser {
      * @param blockComment whether there is an active block comment
      * @param string       the current string
      * @return the pair of boolean and string
+     * @see Lexer#removeComments(boolean, String)
      */
     public Pair<Boolean, String> removeComments(boolean blockComment, String string) {
-        if (blockComment) {
-            int endBlock = indexOf(string, "*/", true);
-
-            if (endBlock >= 0) {
-                return removeComments(false, string.substring(endBlock + 2));
-            }
-            return Pair.of(true, "");
-        } else {
-            int startBlock = indexOf(string, "/*", true);
-            int inlineBlock = indexOf(string, "//", true);
-
-            if (startBlock < 0 && inlineBlock < 0) {
-                return Pair.of(false, string);
-            }
-
-            if (startBlock >= 0 && (inlineBlock < 0 || startBlock < inlineBlock)) {
-                Pair<Boolean, String> booleanStringPair = removeComments(true, string.substring(startBlock + 2));
-                return Pair.of(booleanStringPair.getLeft(), string.substring(0, startBlock) + booleanStringPair.getRight());
-            }
-
-            if (inlineBlock >= 0 && (startBlock < 0 || inlineBlock < startBlock)) {
-                return Pair.of(false, string.substring(0, inlineBlock));
-            }
-        }
-
-        return null;
+        return Lexer.instance().removeComments(blockComment, string);
     }
 
     /**
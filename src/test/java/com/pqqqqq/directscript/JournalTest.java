@@ -0,0 +1,145 @@
+package com.pqqqqq.directscript;
+
+import com.pqqqqq.directscript.lang.data.Literal;
+import com.pqqqqq.directscript.lang.data.env.Environment;
+import com.pqqqqq.directscript.lang.data.env.Variable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the public variable {@link Journal} drops what a crash leaves behind when it's replayed
+ */
+public class JournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayDropsAPartialRecord() throws IOException {
+        File directory = folder.getRoot();
+        Environment environment = new TestEnvironment();
+        Journal journal = new Journal(directory);
+
+        set(environment, "a", 1D);
+        journal.compact(environment);
+        journal.append(set(environment, "b", 2D));
+        journal.sync();
+        long whole = journalFile(directory).length();
+        journal.append(set(environment, "c", 3D));
+        journal.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile(directory), "rw")) {
+            file.setLength(file.length() - 3); // A crash part way through writing c
+        }
+
+        environment = new TestEnvironment();
+        journal = new Journal(directory);
+        journal.replay(environment);
+
+        assertEquals(1D, number(environment, "a"), 0D);
+        assertEquals(2D, number(environment, "b"), 0D);
+        assertFalse(environment.getVariable("c").isPresent());
+        assertEquals(1, journal.getRecords());
+        assertEquals("The partial record is cut off", whole, journalFile(directory).length());
+
+        journal.append(set(environment, "d", 4D)); // Follows b, rather than the cut off record
+        journal.close();
+
+        environment = new TestEnvironment();
+        journal = new Journal(directory);
+        journal.replay(environment);
+
+        assertEquals(2D, number(environment, "b"), 0D);
+        assertEquals(4D, number(environment, "d"), 0D);
+        assertEquals(2, journal.getRecords());
+    }
+
+    @Test
+    public void replayDropsAnOldGenerationJournal() throws IOException {
+        File directory = folder.getRoot();
+        Environment environment = new TestEnvironment();
+        Journal journal = new Journal(directory);
+
+        set(environment, "a", 1D);
+        journal.compact(environment);
+        journal.append(set(environment, "a", 2D));
+        journal.close();
+        byte[] stale = Files.readAllBytes(journalFile(directory).toPath());
+
+        set(environment, "a", 3D);
+        journal.compact(environment);
+        journal.close();
+        Files.write(journalFile(directory).toPath(), stale); // A crash after the snapshot was written, but before the old journal was deleted
+
+        environment = new TestEnvironment();
+        journal = new Journal(directory);
+        journal.replay(environment);
+
+        assertEquals("The snapshot already has the old journal's records", 3D, number(environment, "a"), 0D);
+        assertEquals(0, journal.getRecords());
+        assertFalse(journalFile(directory).exists());
+
+        journal.append(set(environment, "b", 4D)); // Under a header of the snapshot's generation
+        journal.close();
+
+        environment = new TestEnvironment();
+        journal = new Journal(directory);
+        journal.replay(environment);
+
+        assertEquals(3D, number(environment, "a"), 0D);
+        assertEquals(4D, number(environment, "b"), 0D);
+        assertEquals(1, journal.getRecords());
+    }
+
+    @Test
+    public void setAsideStartsANewJournal() throws IOException {
+        File directory = folder.getRoot();
+        File snapshot = new File(directory, "public.snapshot");
+        Files.write(snapshot.toPath(), new byte[]{1, 2, 3, 4, 5}); // Not a snapshot
+
+        Environment environment = new TestEnvironment();
+        Journal journal = new Journal(directory);
+        try {
+            journal.replay(environment);
+            fail("A broken snapshot was replayed");
+        } catch (IllegalStateException ignored) {
+        }
+
+        set(environment, "a", 1D); // What was read, or set since
+        List<File> moved = journal.setAside();
+        journal.compact(environment);
+        journal.close();
+
+        assertEquals(1, moved.size());
+        assertArrayEquals("The broken file is kept", new byte[]{1, 2, 3, 4, 5}, Files.readAllBytes(moved.get(0).toPath()));
+
+        environment = new TestEnvironment();
+        journal = new Journal(directory);
+        journal.replay(environment);
+        assertEquals(1D, number(environment, "a"), 0D);
+    }
+
+    private static File journalFile(File directory) {
+        return new File(directory, "public.journal");
+    }
+
+    private static Variable set(Environment environment, String name, double value) {
+        return environment.addVariable(new Variable(name, environment, Literal.fromObject(value)));
+    }
+
+    private static double number(Environment environment, String name) {
+        assertTrue(name + " was replayed", environment.getVariable(name).isPresent());
+        return ((Literal) environment.getVariable(name).get().getDatum()).getNumber();
+    }
+
+    private static class TestEnvironment extends Environment {
+    }
+}
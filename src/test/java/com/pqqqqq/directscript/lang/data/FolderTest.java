@@ -0,0 +1,99 @@
+package com.pqqqqq.directscript.lang.data;
+
+import com.pqqqqq.directscript.lang.data.container.AmnesiacContainer;
+import com.pqqqqq.directscript.lang.data.container.ConditionContainer;
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ConditionalExpressionContainer;
+import com.pqqqqq.directscript.lang.reader.Block;
+import com.pqqqqq.directscript.lang.reader.Line;
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link Folder} collapses constant {@link DataContainer} subtrees, and prunes if branches that can never run
+ */
+public class FolderTest {
+    private final Sequencer sequencer = Sequencer.instance();
+
+    @Test
+    public void constantExpressionsFoldIntoOneLiteral() {
+        Folder.Pass pass = Folder.instance().pass();
+
+        DataContainer arithmetic = pass.fold(sequencer.parse("1 + 2 * 3"));
+        assertTrue(arithmetic instanceof Literal);
+        assertEquals(7D, ((Literal) arithmetic).getNumber(), 0D);
+        assertEquals("Both operators", 2, pass.getFolded());
+
+        DataContainer array = pass.fold(sequencer.parse("{1, 2 + 3}"));
+        assertTrue(array instanceof Literal);
+        List<Literal> elements = ((Literal<?>) array).getArray();
+        assertEquals(5D, elements.get(1).getNumber(), 0D);
+
+        assertSame(Literal.Literals.TRUE, pass.fold(sequencer.parse("1 < 2 and 3 == 3")));
+        assertSame(Literal.Literals.FALSE, pass.fold(sequencer.parse("1 > 2 or 3 != 3")));
+        assertSame(Literal.Literals.TRUE, pass.fold(sequencer.parse("!(1 == 2)")));
+    }
+
+    @Test
+    public void runtimeOperandsAreKept() {
+        Folder.Pass pass = Folder.instance().pass();
+        DataContainer runtime = new AmnesiacContainer(Literal.fromObject(4D), "4"); // Never constant, since its first run is empty
+
+        DataContainer sum = pass.fold(new ArithmeticContainer(runtime, sequencer.parse("2 * 3"), ArithmeticContainer.ArithmeticOperator.ADDITION, "a + 2 * 3"));
+        assertTrue(sum instanceof ArithmeticContainer);
+        assertSame(runtime, ((ArithmeticContainer) sum).getFirstTerm());
+        assertEquals("Only the constant operand", 6D, ((Literal) ((ArithmeticContainer) sum).getSecondTerm()).getNumber(), 0D);
+
+        ConditionalExpressionContainer alwaysTrue = new ConditionalExpressionContainer(Literal.fromObject(1D), Literal.fromObject(1D), ConditionalExpressionContainer.ComparativeOperator.EQUALS);
+        ConditionalExpressionContainer atRuntime = new ConditionalExpressionContainer(runtime, Literal.fromObject(4D), ConditionalExpressionContainer.ComparativeOperator.EQUALS);
+        DataContainer condition = pass.fold(new ConditionContainer(Arrays.asList(Arrays.asList(alwaysTrue, atRuntime))));
+
+        assertTrue(condition instanceof ConditionContainer);
+        ConditionalExpressionContainer[][] rows = ((ConditionContainer) condition).getConditionExpressions();
+        assertEquals(1, rows.length);
+        assertArrayEquals("The always true comparison is dropped", new ConditionalExpressionContainer[]{atRuntime}, rows[0]);
+    }
+
+    @Test
+    public void constantIfBranchesArePruned() {
+        Script script = ifElse("false");
+        List<Line> ifLines = script.getLines().get(0).getInternalBlock().get().getLines();
+        List<Line> elseLines = script.getLines().get(2).getInternalBlock().get().getLines();
+
+        assertEquals(1, Folder.instance().prune(script));
+        assertTrue("The if block can never run", ifLines.isEmpty());
+        assertEquals(1, elseLines.size());
+
+        script = ifElse("true");
+        ifLines = script.getLines().get(0).getInternalBlock().get().getLines();
+        elseLines = script.getLines().get(2).getInternalBlock().get().getLines();
+
+        assertEquals(1, Folder.instance().prune(script));
+        assertEquals(1, ifLines.size());
+        assertTrue("The else block can never run", elseLines.isEmpty());
+    }
+
+    private static Script ifElse(String condition) { // Lines as the reader builds them, numbers only since strings are colour formatted through the server
+        Script script = new Script(new ScriptsFile(new File("scripts"), new File("scripts", "test.ds")), "Test");
+        Block ifBlock = new Block(1), elseBlock = new Block(1);
+
+        line(script, 0, "if (" + condition + ") {", script).internal(ifBlock).closingBrace(2).build();
+        line(script, 1, "print(1)", ifBlock).build();
+        line(script, 2, "} else {", script).openingBrace(0).internal(elseBlock).closingBrace(4).build();
+        line(script, 3, "print(2)", elseBlock).build();
+        line(script, 4, "}", script).openingBrace(2).build();
+        return script;
+    }
+
+    private static Line.Builder line(Script script, int number, String line, Block block) {
+        return Line.builder().absoluteLine(number + 1).scriptLine(number).line(line).script(script).block(block);
+    }
+}
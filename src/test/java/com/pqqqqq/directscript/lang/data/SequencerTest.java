@@ -0,0 +1,92 @@
+package com.pqqqqq.directscript.lang.data;
+
+import com.pqqqqq.directscript.lang.data.container.DataContainer;
+import com.pqqqqq.directscript.lang.data.container.expression.ArithmeticContainer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link Sequencer.Mode#PRECEDENCE} parser builds the same trees as the {@link Sequencer.Mode#LEGACY} one
+ */
+public class SequencerTest {
+    // Only numbers and booleans, since string literals and variable names are colour formatted through the server
+    private static final String[] SEQUENCES = {
+            "1 + 2 * 3 - 4 / 5 ^ 2",
+            "9 - 4 - 2",
+            "2 ^ 3 ^ 2",
+            "7 % 4 ` 2",
+            "1 * (2 + 3) ^ 2 - 4 / -2",
+            "(1 + 2) * 3",
+            "((1 + 2)) * (3 - 4)",
+            "-(1 + 2) * -3",
+            "-1 + -2",
+            "1 - -2",
+            "1 !~ 2",
+            "1 < 2 + 3",
+            "1 == 2 == false",
+            "!true == false",
+            "1 == 1 or 2 != 2 and 3 < 3",
+            "1 <= 2 and 3 >= 4 or 5 ~ 6",
+            "1 == 2 and 3 == 4 and 5 == 6 or 7 == 8",
+            "1 == 2 * 3 + 4 and 5 < 6",
+            "5 < 6 and 1 == 2 * 3 + 4",
+            "1 + 2 == 3 and 4 * 5 > 6 or 7 - 8 != 9",
+            "true ? 1 : 2",
+            "1 == 2 ? 3 : 4",
+            "1 == 2 ? 3 : 4 ? 5 : 6",
+            "(true ? 1 : 2) + 3",
+            "1 + 2 == 3 ? 4 : 5 + 6",
+            "1 == 2 + 3 * 4 ? 5 - 6 : 7 / 8",
+            "(1 < 2 ? 3 : 4) * 5 == 15",
+            "{1, 2 + 3, 4 * 5}",
+            "{1, {2, 3}, (4 + 5) * 6}",
+            "{1 + 2 == 3, 4 ^ 2 % 3}",
+            "{1: 1 + 2, 2: 3 == 4}"
+    };
+
+    private final Sequencer sequencer = Sequencer.instance();
+    private final Sequencer.Mode mode = sequencer.getMode();
+
+    @After
+    public void restoreMode() {
+        sequencer.setMode(mode);
+    }
+
+    @Test
+    public void precedenceMatchesLegacy() throws IOException {
+        for (String sequence : SEQUENCES) {
+            sequencer.setMode(Sequencer.Mode.LEGACY);
+            byte[] legacy = encode(sequencer.parse(sequence));
+
+            sequencer.setMode(Sequencer.Mode.PRECEDENCE);
+            byte[] precedence = encode(sequencer.parse(sequence));
+
+            assertArrayEquals(sequence, legacy, precedence);
+        }
+    }
+
+    @Test
+    public void arithmeticBindsTighterOperatorsFirst() {
+        sequencer.setMode(Sequencer.Mode.PRECEDENCE);
+
+        ArithmeticContainer sum = (ArithmeticContainer) sequencer.parse("1 + 2 * 3");
+        assertEquals(ArithmeticContainer.ArithmeticOperator.ADDITION, sum.getOperator());
+        assertEquals(ArithmeticContainer.ArithmeticOperator.MULTIPLICATION, ((ArithmeticContainer) sum.getSecondTerm()).getOperator());
+
+        ArithmeticContainer difference = (ArithmeticContainer) sequencer.parse("9 - 4 - 2");
+        assertTrue("Operators of the same precedence are left associative", difference.getFirstTerm() instanceof ArithmeticContainer);
+        assertEquals(3D, difference.resolve(null).getNumber(), 0D);
+    }
+
+    private static byte[] encode(DataContainer container) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Encoder.instance().encode(new DataOutputStream(bytes), container);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+package com.pqqqqq.directscript.lang.data.env;
+
+import com.pqqqqq.directscript.lang.data.Literal;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link Variable}s are read by the {@link VariableSlots} assigned when a script compiles, through the slots each {@link Environment} copies from its parent
+ */
+public class EnvironmentTest {
+    private final VariableSlots variableSlots = new VariableSlots();
+    private final int x = variableSlots.assign("x");
+    private final int y = variableSlots.assign("y");
+
+    @Test
+    public void slotsAreOnlyAssignedWhenCompiled() {
+        assertEquals(0, x);
+        assertEquals(1, y);
+        assertEquals(x, variableSlots.assign("x"));
+        assertEquals(-1, variableSlots.getSlot("z"));
+        assertEquals(2, variableSlots.size());
+    }
+
+    @Test
+    public void childrenReadTheirParentsSlots() {
+        TestEnvironment parent = new TestEnvironment(null);
+        Variable outer = set(parent, "x", 1D);
+        TestEnvironment child = new TestEnvironment(parent);
+
+        assertSame(outer, child.getVariable(variableSlots, x, "x").get());
+        assertFalse(child.getVariable(variableSlots, y, "y").isPresent());
+
+        Variable inner = set(child, "y", 2D);
+        assertSame(inner, child.getVariable(variableSlots, y, "y").get());
+        assertFalse("Only the child declared it", parent.getVariable(variableSlots, y, "y").isPresent());
+
+        Variable unslotted = set(parent, "z", 3D); // Only known once it runs
+        assertSame(unslotted, child.getVariable("z").get());
+    }
+
+    @Test
+    public void laterAndRemovedVariablesAreLookedUpByName() {
+        TestEnvironment parent = new TestEnvironment(null);
+        Variable first = set(parent, "x", 1D);
+        TestEnvironment child = new TestEnvironment(parent);
+
+        Variable later = set(parent, "y", 2D); // After the child copied its slots
+        assertSame(later, child.getVariable(variableSlots, y, "y").get());
+
+        Variable replaced = set(parent, "x", 3D);
+        assertNotSame(first, replaced);
+        assertSame(replaced, child.getVariable(variableSlots, x, "x").get());
+
+        assertTrue(parent.removeVariable("x"));
+        assertFalse(child.getVariable(variableSlots, x, "x").isPresent());
+    }
+
+    @Test
+    public void removingAShadowRevealsTheParents() {
+        TestEnvironment parent = new TestEnvironment(null);
+        Variable outer = set(parent, "x", 1D);
+        TestEnvironment child = new TestEnvironment(parent);
+        set(child, "x", 2D);
+
+        assertEquals(2D, number(child.getVariable(variableSlots, x, "x").get()), 0D);
+        assertTrue(child.removeVariable("x"));
+        assertSame(outer, child.getVariable(variableSlots, x, "x").get());
+    }
+
+    private static Variable set(Environment environment, String name, double value) {
+        return environment.addVariable(new Variable(name, environment, Literal.fromObject(value)));
+    }
+
+    private static double number(Variable variable) {
+        return ((Literal) variable.getDatum()).getNumber();
+    }
+
+    private class TestEnvironment extends Environment {
+        TestEnvironment(Environment parent) {
+            super(parent, variableSlots);
+        }
+    }
+}
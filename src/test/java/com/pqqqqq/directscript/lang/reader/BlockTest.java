@@ -0,0 +1,74 @@
+package com.pqqqqq.directscript.lang.reader;
+
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that break and continue inside an if block only jump out of that block, not the loop around it
+ */
+public class BlockTest {
+    private final Script script = new Script(new ScriptsFile(new File("scripts"), new File("scripts", "test.ds")), "Test");
+    private final Block loopBody = new Block(1);
+    private final Block ifBody = new Block(2);
+    private final Line breakLine, continueLine, printLine;
+
+    public BlockTest() { // Lines as the reader builds them, numbers only since strings are colour formatted through the server
+        line(0, "while (true) {", script).internal(loopBody).closingBrace(6).build();
+        line(1, "if (true) {", loopBody).internal(ifBody).closingBrace(3).build();
+        breakLine = line(2, "break", ifBody).build();
+        line(3, "}", loopBody).openingBrace(1).build();
+        continueLine = line(4, "continue", loopBody).build();
+        printLine = line(5, "print(1)", loopBody).build();
+        line(6, "}", script).openingBrace(0).build();
+    }
+
+    @Test
+    public void jumpsEndTheirOwnBlock() {
+        Block.Instruction[] instructions = ifBody.getInstructions(Script.runtimePredicate());
+        assertEquals(1, instructions.length);
+        assertSame(breakLine, instructions[0].getLine());
+        assertEquals(Optional.of(ScriptInstance.Result.FAILURE_BREAK), instructions[0].getJump());
+
+        instructions = loopBody.getInstructions(Script.runtimePredicate());
+        assertEquals("The nested break isn't part of the loop body", 4, instructions.length);
+        for (Block.Instruction instruction : instructions) {
+            assertNotSame(breakLine, instruction.getLine());
+        }
+
+        assertSame(continueLine, instructions[2].getLine());
+        assertEquals(Optional.of(ScriptInstance.Result.FAILURE_CONTINUE), instructions[2].getJump());
+        assertSame(printLine, instructions[3].getLine());
+        assertFalse(instructions[3].getJump().isPresent());
+    }
+
+    @Test
+    public void compiledJumpsMatchUncompiled() {
+        ifBody.compile();
+        loopBody.compile();
+
+        Block.Instruction[] compiled = loopBody.getInstructions(Script.runtimePredicate());
+        assertSame("Compiled once", compiled, loopBody.getInstructions(Script.runtimePredicate()));
+        assertEquals(4, compiled.length);
+        assertEquals(Optional.of(ScriptInstance.Result.FAILURE_CONTINUE), compiled[2].getJump());
+        assertEquals(Optional.of(ScriptInstance.Result.FAILURE_BREAK), ifBody.getInstructions(Script.runtimePredicate())[0].getJump());
+    }
+
+    @Test
+    public void breakReturnsFromTheIfBlock() {
+        ScriptInstance scriptInstance = ScriptInstance.builder().script(script).cause(Causes.CALL).predicate(Script.runtimePredicate()).build();
+        assertEquals("The if statement then carries on after its block", ScriptInstance.Result.FAILURE_BREAK, ifBody.toRunnable(scriptInstance).execute());
+        assertFalse("The frame is popped", scriptInstance.getCurrentRunnable().isPresent());
+    }
+
+    private Line.Builder line(int number, String line, Block block) {
+        return Line.builder().absoluteLine(number + 1).scriptLine(number).line(line).script(script).block(block);
+    }
+}
@@ -0,0 +1,118 @@
+package com.pqqqqq.directscript.lang.reader;
+
+import com.pqqqqq.directscript.lang.data.Sequencer;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.statement.Statements;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the precompiled <code>.dsc</code> {@link ScriptCache} reads back the lines it wrote, and is ignored once it's stale
+ */
+public class ScriptCacheTest {
+    private static final List<String> SOURCE = Arrays.asList(
+            "// Numbers only, since strings are colour formatted through the server",
+            "print(1 + 2 * 3)",
+            "",
+            "if (1 < 2) { /* Comments are left out */",
+            "    print(4)",
+            "} else if (2 == 3) {",
+            "    print(5)",
+            "} else {",
+            "    print(6)",
+            "}"
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Sequencer sequencer = Sequencer.instance();
+    private final Sequencer.Mode mode = sequencer.getMode();
+
+    @After
+    public void restoreMode() {
+        sequencer.setMode(mode);
+    }
+
+    @Test
+    public void readsBackWhatItWrote() throws IOException {
+        File source = write();
+        Pair<Integer, Integer> written = ScriptCache.instance().write(new ScriptsFile(folder.getRoot(), source));
+        assertEquals(8, (int) written.getRight());
+        assertTrue(ScriptCache.isCache(ScriptCache.getCacheFile(source)));
+        assertFalse(ScriptCache.isCache(source));
+
+        Optional<List<ScriptCache.Entry>> read = ScriptCache.instance().read(source, Reader.hash(source));
+        assertTrue(read.isPresent());
+
+        List<ScriptCache.Entry> entries = read.get();
+        assertEquals(8, entries.size());
+        assertEquals(2, entries.get(0).getAbsoluteLine());
+        assertEquals("print(1 + 2 * 3)", entries.get(0).getLine());
+        assertEquals("if (1 < 2) { ", entries.get(1).getLine());
+        assertEquals(10, entries.get(7).getAbsoluteLine());
+
+        Line.Content print = entries.get(0).getContent();
+        assertNotNull("Print lines are precompiled", print);
+        assertSame(Statements.getStatement("print(1 + 2 * 3)").get(), print.getStatement());
+        assertEquals(7D, print.getContainers().get(0).resolve(null).getNumber(), 0D);
+
+        assertNotNull("Else if lines keep their if branch", entries.get(3).getBranch());
+        assertFalse(entries.get(3).isPlainElse());
+        assertTrue(entries.get(5).isPlainElse());
+    }
+
+    @Test
+    public void ignoresAStaleCache() throws IOException {
+        File source = write();
+        ScriptCache.instance().write(new ScriptsFile(folder.getRoot(), source));
+        String hash = Reader.hash(source);
+
+        assertFalse("Another source", ScriptCache.instance().read(source, hash + "0").isPresent());
+
+        sequencer.setMode(mode == Sequencer.Mode.LEGACY ? Sequencer.Mode.PRECEDENCE : Sequencer.Mode.LEGACY);
+        assertFalse("Another parser", ScriptCache.instance().read(source, hash).isPresent());
+        sequencer.setMode(mode);
+
+        Files.write(source.toPath(), Arrays.asList("print(7)"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertFalse("An edited source", ScriptCache.instance().read(source, Reader.hash(source)).isPresent());
+    }
+
+    @Test
+    public void neverOverwritesADscScript() throws IOException {
+        File source = write();
+        File script = ScriptCache.getCacheFile(source);
+        List<String> lines = Arrays.asList("print(8)");
+        Files.write(script.toPath(), lines, StandardCharsets.UTF_8); // A script of its own, as .dsc files were before precompiling
+
+        try {
+            ScriptCache.instance().write(new ScriptsFile(folder.getRoot(), source));
+            fail("The .dsc script was precompiled over");
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertEquals(lines, Files.readAllLines(script.toPath(), StandardCharsets.UTF_8));
+        assertFalse(ScriptCache.isCache(script));
+        assertFalse("A script isn't read as a cache", ScriptCache.instance().read(source, Reader.hash(source)).isPresent());
+    }
+
+    private File write() throws IOException {
+        File source = new File(folder.getRoot(), "cached.ds");
+        Files.write(source.toPath(), SOURCE, StandardCharsets.UTF_8);
+        return source;
+    }
+}
@@ -0,0 +1,101 @@
+package com.pqqqqq.directscript.lang.script;
+
+import com.pqqqqq.directscript.lang.exception.ScriptAbortedException;
+import com.pqqqqq.directscript.lang.trigger.cause.Causes;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a {@link Watchdog} aborts a run once it exceeds its {@link Limits}, and not before
+ */
+public class WatchdogTest {
+    private final Script script = new Script(new ScriptsFile(new File("scripts"), new File("scripts", "test.ds")), "Test");
+    private final ScriptInstance scriptInstance = ScriptInstance.builder().script(script).cause(Causes.CALL).build();
+
+    @After
+    public void resetGlobal() {
+        Limits.global().setStatements(0L);
+        Limits.global().setTime(0L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void abortsJustPastTheStatementLimit() {
+        for (long limit : new long[]{1L, 10L, 1024L, 3000L}) { // Within, at and across check intervals
+            Limits limits = new Limits();
+            limits.setStatements(limit);
+            Watchdog watchdog = new Watchdog(scriptInstance, limits);
+
+            for (long i = 0; i < limit; i++) {
+                watchdog.step();
+            }
+
+            assertAborts(watchdog);
+            assertAborts(watchdog); // And stays aborted, for its scheduled blocks
+        }
+    }
+
+    @Test
+    public void unlimitedRunsAreNeverAborted() {
+        Watchdog watchdog = new Watchdog(scriptInstance, new Limits());
+        for (int i = 0; i < 10000; i++) {
+            watchdog.step();
+        }
+    }
+
+    @Test
+    public void abortsPastTheTimeLimit() throws InterruptedException {
+        Limits limits = new Limits();
+        limits.setTime(1L, TimeUnit.MILLISECONDS);
+        Watchdog watchdog = new Watchdog(scriptInstance, limits);
+
+        Thread.sleep(5L);
+        try {
+            for (int i = 0; i < 10000; i++) { // The clock is only read every so many statements
+                watchdog.step();
+            }
+            fail("Ran for longer than its time limit");
+        } catch (ScriptAbortedException ignored) {
+        }
+    }
+
+    @Test
+    public void suspendedTimeIsNotCounted() throws InterruptedException {
+        Limits limits = new Limits();
+        limits.setTime(1L, TimeUnit.SECONDS);
+        Watchdog watchdog = new Watchdog(scriptInstance, limits);
+
+        watchdog.suspended(TimeUnit.HOURS.toNanos(1L)); // More than it could have run for
+        Thread.sleep(5L);
+        for (int i = 0; i < 10000; i++) {
+            watchdog.step();
+        }
+    }
+
+    @Test
+    public void scriptLimitsFallBackToTheGlobalOnes() {
+        Limits limits = new Limits();
+        assertFalse(limits.isWatched());
+
+        Limits.global().setStatements(5L);
+        assertEquals(5L, limits.getStatements());
+        assertTrue(limits.isWatched());
+
+        limits.setStatements(20L);
+        assertEquals("A script's own limit comes first", 20L, limits.getStatements());
+        assertEquals(5L, Limits.global().getStatements());
+    }
+
+    private static void assertAborts(Watchdog watchdog) {
+        try {
+            watchdog.step();
+            fail("Ran past its statement limit");
+        } catch (ScriptAbortedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("statements"));
+        }
+    }
+}
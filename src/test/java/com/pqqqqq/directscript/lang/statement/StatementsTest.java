@@ -0,0 +1,68 @@
+package com.pqqqqq.directscript.lang.statement;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the indexed {@link Statements#getStatement(String)} finds the statement the linear registry search does
+ */
+public class StatementsTest {
+    // Only numbers and booleans, since string literals and variable names are colour formatted through the server
+    private static final String[] LINES = {
+            "print(1)",
+            "PRINT(1 + 2)",
+            "    print(3)",
+            "print()",
+            "if (1 < 2) {",
+            "If(true){",
+            "} else {",
+            "} else if (false) {",
+            "}",
+            "  }",
+            "while (false) {",
+            "break()",
+            "continue()",
+            "return(1)",
+            "x = 1",
+            "x += 2",
+            "x -= 3",
+            "x *= 4",
+            "x /= 5",
+            "++x",
+            "--x",
+            "x++",
+            "x--",
+            "randint(1, 2)",
+            "randomInt(1, 2)",
+            "abs(-1)",
+            "absolute(-1)",
+            "round(1.5)",
+            "millis()",
+            "size({1, 2})",
+            "sublist({1, 2, 3}, 1)",
+            "subArray({1, 2, 3}, 1)",
+            "for (i = 0; i < 1; i++) {",
+            "@trigger",
+            "1 + 2",
+            "printer(1)",
+            "",
+            "   "
+    };
+
+    @Test
+    public void indexMatchesLinear() {
+        for (String line : LINES) {
+            assertEquals(line, Statements.getStatementLinear(line), Statements.getStatement(line));
+        }
+    }
+
+    @Test
+    public void indexKeepsRegistryPriority() {
+        assertSame(Statements.PRINT, Statements.getStatement("print(1)").get());
+        assertSame("Case insensitive", Statements.PRINT, Statements.getStatement("PrInT(1)").get());
+        assertSame("Leading whitespace", Statements.IF, Statements.getStatement("    if (true) {").get());
+        assertSame("Else comes before the termination it starts with", Statements.ELSE, Statements.getStatement("} else {").get());
+        assertSame(Statements.TERMINATION, Statements.getStatement("}").get());
+    }
+}
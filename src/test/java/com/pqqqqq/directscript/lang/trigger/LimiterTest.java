@@ -0,0 +1,83 @@
+package com.pqqqqq.directscript.lang.trigger;
+
+import com.pqqqqq.directscript.lang.script.ScriptInstance;
+import org.junit.Test;
+import org.spongepowered.api.util.Identifiable;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the trigger options and per key throttling of a {@link Limiter}. Debounced activations are run by the server's scheduler, so only their options are checked
+ */
+public class LimiterTest {
+    @Test
+    public void parsesTriggerOptions() {
+        Optional<Limiter> throttle = Limiter.fromOption("throttle=500ms");
+        assertTrue(throttle.isPresent());
+        assertEquals(Limiter.Mode.THROTTLE, throttle.get().getMode());
+        assertEquals(500L, throttle.get().getInterval());
+
+        Optional<Limiter> debounce = Limiter.fromOption("Debounce = 2s");
+        assertTrue(debounce.isPresent());
+        assertEquals(Limiter.Mode.DEBOUNCE, debounce.get().getMode());
+        assertEquals(2000L, debounce.get().getInterval());
+
+        assertFalse(Limiter.fromOption("zombie").isPresent());
+        assertFalse(Limiter.fromOption("world=world").isPresent());
+    }
+
+    @Test
+    public void intervalsMustBePositive() {
+        try {
+            Limiter.fromOption("throttle=0ms");
+            fail("A throttle without an interval");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void throttleRunsTheFirstActivationPerKey() {
+        Limiter limiter = new Limiter(Limiter.Mode.THROTTLE, TimeUnit.NANOSECONDS.convert(1, TimeUnit.HOURS));
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+
+        assertTrue(admit(limiter, activation(first)));
+        assertFalse("Within the interval", admit(limiter, activation(first)));
+        assertTrue("Another player", admit(limiter, activation(second)));
+        assertFalse(admit(limiter, activation(second)));
+        assertEquals(2, limiter.size());
+
+        limiter.evict(first);
+        assertEquals(1, limiter.size());
+        assertTrue("A player who quit and came back", admit(limiter, activation(first)));
+
+        assertTrue("Activations without a player share a key", admit(limiter, ScriptInstance.builder()));
+        assertFalse(admit(limiter, ScriptInstance.builder()));
+    }
+
+    @Test
+    public void throttleRunsAgainAfterTheInterval() throws InterruptedException {
+        Limiter limiter = new Limiter(Limiter.Mode.THROTTLE, TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS));
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(admit(limiter, activation(uuid)));
+        Thread.sleep(5L);
+        assertTrue(admit(limiter, activation(uuid)));
+    }
+
+    private static boolean admit(Limiter limiter, ScriptInstance.Builder activation) {
+        return limiter.admit(null, null, activation); // Throttling doesn't look at the trigger or cause
+    }
+
+    private static ScriptInstance.Builder activation(UUID uuid) {
+        return ScriptInstance.builder().eventVar("Player", new Identifiable() {
+            @Override
+            public UUID getUniqueId() {
+                return uuid;
+            }
+        });
+    }
+}
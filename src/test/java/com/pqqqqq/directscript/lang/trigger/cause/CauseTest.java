@@ -0,0 +1,65 @@
+package com.pqqqqq.directscript.lang.trigger.cause;
+
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.trigger.Trigger;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which keyed {@link Trigger}s an activation of a {@link Cause} runs
+ */
+public class CauseTest {
+    private final Cause cause = new Cause("Test");
+    private final Trigger everything = trigger();
+    private final Trigger zombies = trigger("zombie", "Skeleton");
+    private final Trigger nether = trigger("world=world_nether");
+    private final Trigger netherZombies = trigger("zombie", "world=world_nether", "world=DIM-1");
+
+    @Test
+    public void typesMatchAnyOfTheirKind() {
+        Collection<Trigger> triggers = cause.getTriggers(Arrays.asList("minecraft:skeleton", "skeleton", "world=world"));
+        assertEquals(2, triggers.size());
+        assertTrue(triggers.contains(everything));
+        assertTrue(triggers.contains(zombies));
+    }
+
+    @Test
+    public void mixedKindsMustAllMatch() {
+        Collection<Trigger> triggers = cause.getTriggers(Arrays.asList("minecraft:zombie", "zombie", "world=world_nether"));
+        assertEquals(4, triggers.size());
+
+        triggers = cause.getTriggers(Arrays.asList("minecraft:zombie", "zombie", "world=dim-1"));
+        assertTrue(triggers.contains(netherZombies));
+        assertFalse(triggers.contains(nether));
+
+        triggers = cause.getTriggers(Arrays.asList("minecraft:zombie", "zombie", "world=world"));
+        assertFalse("A zombie outside the nether", triggers.contains(netherZombies));
+        assertTrue(triggers.contains(zombies));
+
+        triggers = cause.getTriggers(Arrays.asList("minecraft:creeper", "creeper", "world=world_nether"));
+        assertFalse("Something else in the nether", triggers.contains(netherZombies));
+        assertTrue(triggers.contains(nether));
+
+        triggers = cause.getTriggers(Collections.singletonList("zombie"));
+        assertFalse("A zombie with no world", triggers.contains(netherZombies));
+    }
+
+    @Test
+    public void activationsWithoutKeysRunEverything() {
+        assertEquals(4, cause.getTriggers(Collections.<String>emptyList()).size());
+        assertEquals(Collections.singleton(everything), cause.getTriggers(Collections.singletonList("creeper")));
+    }
+
+    private Trigger trigger(String... keys) {
+        Script script = new Script(new ScriptsFile(new File("scripts"), new File("scripts", "test.ds")), "Test" + keys.length);
+        Trigger.Builder builder = Trigger.builder().script(script);
+        return (keys.length == 0 ? builder.cause(cause) : builder.cause(cause, Arrays.asList(keys))).build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.pqqqqq.directscript.lang.trigger.cause;
+
+import com.pqqqqq.directscript.lang.script.Script;
+import com.pqqqqq.directscript.lang.script.ScriptsFile;
+import com.pqqqqq.directscript.lang.trigger.Trigger;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link Cause.TimerCause} runs each timer on the ticks it's due, however many timers it has
+ */
+public class TimerCauseTest {
+    private final Cause.TimerCause cause = new Cause.TimerCause();
+
+    @Test
+    public void timersRunOnTheirDueTicks() {
+        Script everyTwo = timer("EveryTwo", 100L), everyThree = timer("EveryThree", 150L), everyTick = timer("EveryTick", 10L);
+        assertEquals("Scheduled on the next tick", 0, cause.getScheduled());
+
+        cause.tick(); // Tick 1, all run first
+        assertEquals(3, cause.getScheduled());
+        assertRuns(1, 1, 1, everyTwo, everyThree, everyTick);
+
+        cause.tick(); // 2
+        assertRuns(1, 1, 2, everyTwo, everyThree, everyTick);
+
+        cause.tick(); // 3
+        assertRuns(2, 1, 3, everyTwo, everyThree, everyTick);
+
+        cause.tick(); // 4
+        assertRuns(2, 2, 4, everyTwo, everyThree, everyTick);
+
+        for (int tick = 5; tick <= 13; tick++) {
+            cause.tick();
+        }
+
+        assertRuns(7, 5, 13, everyTwo, everyThree, everyTick);
+        assertEquals(25, cause.getRuns());
+    }
+
+    @Test
+    public void changedTriggersAreRescheduled() {
+        Script everyTwo = timer("EveryTwo", 100L);
+        cause.tick();
+        cause.tick();
+        assertRuns(1, everyTwo);
+
+        Script everyTick = timer("EveryTick", 50L); // Added part way, and run first on the next tick
+        cause.tick();
+        assertEquals(2, cause.getScheduled());
+        assertRuns(1, everyTick);
+
+        cause.clearTriggers();
+        cause.tick();
+        assertEquals(0, cause.getScheduled());
+        assertRuns(1, everyTick);
+    }
+
+    @Test
+    public void phaseSpreadSharesTicksOut() {
+        cause.setPhaseSpread(true);
+        Script[] scripts = new Script[4];
+        for (int i = 0; i < scripts.length; i++) {
+            scripts[i] = timer("Every" + i, 200L); // Every 4 ticks
+        }
+
+        int[] perTick = new int[4];
+        for (int tick = 0; tick < 4; tick++) {
+            long before = cause.getRuns();
+            cause.tick();
+            perTick[tick] = (int) (cause.getRuns() - before);
+        }
+
+        for (Script script : scripts) {
+            assertEquals("Each timer runs once a period", 1L, script.getExecutions());
+        }
+
+        for (int runs : perTick) {
+            assertTrue("Not all in the same tick", runs < scripts.length);
+        }
+    }
+
+    private Script timer(String name, long delay) {
+        Script script = new Script(new ScriptsFile(new File("scripts"), new File("scripts", "test.ds")), name);
+        script.getCauseData().setTimerDelay(delay);
+        Trigger.builder().script(script).cause(cause).build();
+        return script;
+    }
+
+    private static void assertRuns(long everyTwo, long everyThree, long everyTick, Script... scripts) {
+        assertRuns(everyTwo, scripts[0]);
+        assertRuns(everyThree, scripts[1]);
+        assertRuns(everyTick, scripts[2]);
+    }
+
+    private static void assertRuns(long runs, Script script) {
+        assertEquals(script.getName(), runs, script.getExecutions());
+    }
+}
@@ -0,0 +1,86 @@
+package com.pqqqqq.directscript.lang.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link Lexer} backed {@link StringParser} gives the results the character by character parser it replaced did
+ */
+public class LexerTest {
+    private final StringParser parser = StringParser.instance();
+
+    @Test
+    public void splitSkipsQuotesAndBrackets() {
+        assertArrayEquals(new String[]{"a", " b", " c"}, parser.parseSplit("a, b, c", ","));
+        assertArrayEquals(new String[]{"f(a, b)", " c"}, parser.parseSplit("f(a, b), c", ","));
+        assertArrayEquals(new String[]{"\"x, y\"", " z"}, parser.parseSplit("\"x, y\", z", ","));
+        assertArrayEquals(new String[]{"arr[1, 2]", " {3, 4}", " 5"}, parser.parseSplit("arr[1, 2], {3, 4}, 5", ","));
+        assertArrayEquals(new String[]{"{1, 2}", "\"x, y\"", "f(3, 4)"}, parser.parseSplit("{1, 2}, \"x, y\", f(3, 4)", ", "));
+        assertArrayEquals(new String[]{"a", "b", "c"}, parser.parseSplit("a and b or c", " and ", " or "));
+        assertArrayEquals(new String[]{"(a + b) * c - d"}, parser.parseSplit("(a + b) * c - d", ","));
+    }
+
+    @Test
+    public void nextSequenceTakesTheLastOfTheFirstGroupFound() {
+        assertSequence("a + b ", "-", " c", parser.parseNextSequence("a + b - c", new String[]{"+", "-"}));
+        assertSequence("a ", "==", " b + c", parser.parseNextSequence("a == b + c", new String[]{"=="}, new String[]{"+"}));
+        assertSequence("a ", "+", " b * c", parser.parseNextSequence("a + b * c", new String[]{"=="}, new String[]{"+"}));
+        assertSequence("\"a + b\" ", "+", " c", parser.parseNextSequence("\"a + b\" + c", new String[]{"+"}));
+        assertNull(parser.parseNextSequence("(a + b) * c", new String[]{"+"}));
+    }
+
+    @Test
+    public void indexOfSkipsQuotesAndBrackets() {
+        assertEquals(7, parser.indexOf("f(a, b), c", ","));
+        assertEquals(3, parser.indexOf("f(a, b), c", ",", true));
+        assertEquals(1, parser.lastIndexOf("a, {b, c}", ","));
+        assertEquals(5, parser.lastIndexOf("a, {b, c}", ",", true));
+        assertEquals(-1, parser.indexOf("\"a, b\"", ","));
+        assertEquals(8, parser.lastIndexOf("a[1] + b[2]", "["));
+    }
+
+    @Test
+    public void trimKeepsWhitespaceInQuotes() {
+        assertEquals("say \"a  b\" c", parser.trim("say  \"a  b\"   c "));
+        assertEquals("x y", parser.trim("  x   y  "));
+        assertEquals("a, b, c", parser.trim("a, b, c"));
+    }
+
+    @Test
+    public void removeCommentsOutsideQuotes() {
+        assertEquals(Pair.of(false, "x "), parser.removeComments(false, "x // comment"));
+        assertEquals(Pair.of(false, "a  c "), parser.removeComments(false, "a /* b */ c // d"));
+        assertEquals(Pair.of(false, "\"// not\" "), parser.removeComments(false, "\"// not\" // yes"));
+        assertEquals(Pair.of(true, "a "), parser.removeComments(false, "a /* open"));
+        assertEquals(Pair.of(false, " b"), parser.removeComments(true, "a */ b"));
+        assertEquals(Pair.of(true, ""), parser.removeComments(true, "still open"));
+    }
+
+    @Test
+    public void escapedQuotesStayInTheirString() { // The old parser lost track of these, so it split inside the strings
+        assertEquals(13, parser.indexOf("\"esc \\\" q, r\", s", ","));
+        assertEquals(13, parser.lastIndexOf("\"esc \\\" q, r\", s", ",", true));
+        assertArrayEquals(new String[]{"\"a\\\\\" ", " b"}, parser.parseSplit("\"a\\\\\" , b", ","));
+    }
+
+    @Test
+    public void bracketsOnlyPairWithTheirOwnKind() {
+        Lexer.Tokens tokens = Lexer.instance().tokenize("(a[b)]");
+        assertEquals(-1, tokens.matchingBracket(0));
+        assertEquals(-1, tokens.matchingBracket(4));
+        assertEquals(5, tokens.matchingBracket(2));
+
+        tokens = Lexer.instance().tokenize("(a[b])");
+        assertEquals(5, tokens.matchingBracket(0));
+        assertEquals(4, tokens.matchingBracket(2));
+    }
+
+    private static void assertSequence(String before, String delimiter, String after, StringParser.SplitSequence sequence) {
+        assertNotNull(sequence);
+        assertEquals(before, sequence.getBeforeSegment());
+        assertEquals(delimiter, sequence.getDelimiter());
+        assertEquals(after, sequence.getAfterSegment());
+    }
+}